@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The inputs the benchmarks are run over.
+ *
+ * <p>The sources are the JavaScript runtime libraries that are checked in with the compiler
+ * (polyfills, transpilation helpers and type checking utilities), which are real, annotated
+ * library code. They are read from the working tree, so the benchmarks must be run from the root
+ * of the repository; a different set of sources can be used by setting the {@code
+ * closure.benchmark.corpus} system property to a directory. The externs are the compiler's
+ * built-in browser externs.
+ */
+final class BenchmarkCorpus {
+  static final String CORPUS_PROPERTY = "closure.benchmark.corpus";
+
+  private static final String DEFAULT_CORPUS = "src/com/google/javascript/jscomp/js";
+
+  private BenchmarkCorpus() {}
+
+  /** Returns the sources of the corpus, in a stable order. */
+  static ImmutableList<SourceFile> sources() {
+    return readAll(Paths.get(System.getProperty(CORPUS_PROPERTY, DEFAULT_CORPUS)));
+  }
+
+  /** Returns the externs of the corpus. */
+  static ImmutableList<SourceFile> externs() {
+    try {
+      return ImmutableList.copyOf(
+          CommandLineRunner.getBuiltinExterns(CompilerOptions.Environment.BROWSER));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Returns options that only parse the corpus and print it back. */
+  static CompilerOptions newOptions() {
+    CompilerOptions options = new CompilerOptions();
+    options.setLanguageIn(CompilerOptions.LanguageMode.ECMASCRIPT_2017);
+    options.setLanguageOut(CompilerOptions.LanguageMode.ECMASCRIPT_2017);
+    options.setPrettyPrint(false);
+    return options;
+  }
+
+  /** Returns a compiler that has parsed the corpus with the given options. */
+  static Compiler parse(CompilerOptions options) {
+    Compiler compiler = new Compiler();
+    compiler.disableThreads();
+    compiler.init(externs(), sources(), options);
+    compiler.parse();
+    if (compiler.hasErrors()) {
+      throw new IllegalStateException(
+          "The benchmark corpus has errors: " + compiler.getErrors()[0]);
+    }
+    return compiler;
+  }
+
+  private static ImmutableList<SourceFile> readAll(Path dir) {
+    if (!Files.isDirectory(dir)) {
+      throw new IllegalStateException(
+          "Cannot find " + dir.toAbsolutePath() + ", run the benchmarks from the repository root");
+    }
+    List<Path> paths;
+    try (Stream<Path> files = Files.walk(dir)) {
+      paths = files.filter(p -> p.toString().endsWith(".js")).collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Collections.sort(paths);
+    List<SourceFile> sources = new ArrayList<>(paths.size());
+    for (Path path : paths) {
+      try {
+        String code = new String(Files.readAllBytes(path), UTF_8);
+        sources.add(SourceFile.fromCode(path.toString(), code));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return ImmutableList.copyOf(sources);
+  }
+}
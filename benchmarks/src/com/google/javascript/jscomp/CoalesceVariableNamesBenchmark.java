@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.Node;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CoalesceVariableNames} over functions with many variables: generator and async
+ * functions transpiled by {@link Es6RewriteGenerators}, whose state machines keep all the locals
+ * of the original function, and plain functions with many short lived locals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CoalesceVariableNamesBenchmark {
+  /** The number of locals declared in each generated function. */
+  @Param({"100", "1000", "4000"})
+  public int variables;
+
+  private CompilerOptions options;
+  private String transpiledSource;
+  private Compiler compiler;
+
+  @Setup
+  public void setUp() {
+    options = BenchmarkCorpus.newOptions();
+    options.setLanguageOut(CompilerOptions.LanguageMode.ECMASCRIPT5);
+
+    // Transpile the generator and async functions once. Their output is parsed again for each
+    // invocation, as it would be seen by the optimizations.
+    Compiler transpiler = new Compiler();
+    transpiler.disableThreads();
+    transpiler.compile(
+        SourceFile.fromCode("externs.js", ""),
+        SourceFile.fromCode("generators.js", generatorSource()),
+        options);
+    if (transpiler.hasErrors()) {
+      throw new IllegalStateException(
+          "The generated code has errors: " + transpiler.getErrors()[0]);
+    }
+    transpiledSource = transpiler.toSource();
+  }
+
+  /** Parses the sources again, since the pass rewrites the AST it runs on. */
+  @Setup(Level.Invocation)
+  public void parse() {
+    compiler = new Compiler();
+    compiler.disableThreads();
+    compiler.init(
+        ImmutableList.of(SourceFile.fromCode("externs.js", "")),
+        ImmutableList.of(
+            SourceFile.fromCode("generators.js", transpiledSource),
+            SourceFile.fromCode("plain.js", plainSource())),
+        options);
+    compiler.parse();
+    new Normalize(compiler, false).process(compiler.getExternsRoot(), compiler.getJsRoot());
+  }
+
+  @Benchmark
+  public Node transpiledGenerators() {
+    Node root = compiler.getJsRoot().getFirstChild();
+    new CoalesceVariableNames(compiler, false, Integer.MAX_VALUE)
+        .process(compiler.getExternsRoot(), root);
+    return root;
+  }
+
+  @Benchmark
+  public Node plainFunctions() {
+    Node root = compiler.getJsRoot().getSecondChild();
+    new CoalesceVariableNames(compiler, false, Integer.MAX_VALUE)
+        .process(compiler.getExternsRoot(), root);
+    return root;
+  }
+
+  /** Returns a generator and an async function that each declare {@link #variables} locals. */
+  private String generatorSource() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("function* generator(a) {");
+    for (int i = 0; i < variables; i++) {
+      String previous = i == 0 ? "a" : "x" + (i - 1);
+      sb.append("var x").append(i).append(" = yield ").append(previous).append(";");
+      sb.append("if (x").append(i).append(") { yield x").append(i).append(" + 1; }");
+    }
+    sb.append("}");
+    sb.append("async function asyncFunction(a) {");
+    for (int i = 0; i < variables; i++) {
+      String previous = i == 0 ? "a" : "y" + (i - 1);
+      sb.append("var y").append(i).append(" = await ").append(previous).append(";");
+    }
+    sb.append("return y").append(variables - 1).append(";");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /** Returns a function whose {@link #variables} locals can all be coalesced into one. */
+  private String plainSource() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("function plain(f, g) {");
+    for (int i = 0; i < variables; i++) {
+      sb.append("var z").append(i).append(" = f(); g(z").append(i).append(");");
+    }
+    sb.append("}");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the control flow graphs of the functions of the corpus, and copying them into
+ * the {@link IndexedControlFlowGraph} form that the data flow analyses walk, so that the cost of
+ * the copy can be compared to the cost of the linked graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ControlFlowGraphBenchmark {
+  private Compiler compiler;
+  private final List<Node> functions = new ArrayList<>();
+  private final List<ControlFlowGraph<Node>> cfgs = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    compiler = BenchmarkCorpus.parse(BenchmarkCorpus.newOptions());
+    NodeTraversal.traverseEs6(
+        compiler,
+        compiler.getJsRoot(),
+        new AbstractPostOrderCallback() {
+          @Override
+          public void visit(NodeTraversal t, Node n, Node parent) {
+            if (n.isFunction()) {
+              functions.add(n);
+            }
+          }
+        });
+    for (Node function : functions) {
+      cfgs.add(buildGraph(function));
+    }
+  }
+
+  @Benchmark
+  public int buildGraphs() {
+    int nodes = 0;
+    for (Node function : functions) {
+      nodes += buildGraph(function).getNodes().size();
+    }
+    return nodes;
+  }
+
+  /** Copies each graph as a backward analysis would, bypassing the copy kept by the graph. */
+  @Benchmark
+  public int indexGraphs() {
+    int nodes = 0;
+    for (ControlFlowGraph<Node> cfg : cfgs) {
+      nodes +=
+          IndexedControlFlowGraph.create(cfg, cfg.getOptionalNodeComparator(false))
+              .getNodeCount();
+    }
+    return nodes;
+  }
+
+  private ControlFlowGraph<Node> buildGraph(Node function) {
+    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, true);
+    cfa.process(null, function);
+    return cfa.getCfg();
+  }
+}
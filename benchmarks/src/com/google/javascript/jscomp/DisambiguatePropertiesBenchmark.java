@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DisambiguateProperties} over the type checked and normalized corpus, with the
+ * scripts searched on one or more threads. Use a large, well typed corpus for meaningful numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DisambiguatePropertiesBenchmark {
+  @Param({"1", "4"})
+  public int numParallelThreads;
+
+  private Compiler compiler;
+
+  // The pass renames properties, so every run needs a freshly checked AST.
+  @Setup(Level.Invocation)
+  public void check() {
+    CompilerOptions options = BenchmarkCorpus.newOptions();
+    // The type checker runs on the transpiled code.
+    options.setLanguageOut(CompilerOptions.LanguageMode.ECMASCRIPT5);
+    options.setCheckTypes(true);
+    options.setNumParallelThreads(numParallelThreads);
+    compiler = new Compiler();
+    compiler.disableThreads();
+    compiler.init(BenchmarkCorpus.externs(), BenchmarkCorpus.sources(), options);
+    compiler.parseForCompilation();
+    compiler.stage1Passes();
+    new Normalize(compiler, false).process(compiler.getExternsRoot(), compiler.getJsRoot());
+  }
+
+  @Benchmark
+  public Compiler disambiguate() {
+    new DisambiguateProperties(compiler, ImmutableMap.<String, CheckLevel>of())
+        .process(compiler.getExternsRoot(), compiler.getJsRoot());
+    return compiler;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading and writing the boolean properties of every node of the corpus, and cloning
+ * the AST with its properties. Use {@code -prof gc} to see the allocations of the writes and of
+ * the clone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NodePropsBenchmark {
+  private Node root;
+  private final List<Node> nodes = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    Compiler compiler = BenchmarkCorpus.parse(BenchmarkCorpus.newOptions());
+    root = compiler.getJsRoot();
+    NodeTraversal.traverseEs6(compiler, root, new AbstractPostOrderCallback() {
+      @Override
+      public void visit(NodeTraversal t, Node n, Node parent) {
+        nodes.add(n);
+      }
+    });
+  }
+
+  @Benchmark
+  public int getBooleanProps() {
+    int count = 0;
+    for (Node n : nodes) {
+      if (n.getBooleanProp(Node.IS_CONSTANT_NAME)
+          || n.getBooleanProp(Node.QUOTED_PROP)
+          || n.getBooleanProp(Node.FREE_CALL)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int putBooleanProps() {
+    int count = 0;
+    for (Node n : nodes) {
+      boolean wasSet = n.getBooleanProp(Node.IS_NAMESPACE);
+      n.putBooleanProp(Node.IS_NAMESPACE, !wasSet);
+      n.putBooleanProp(Node.IS_NAMESPACE, wasSet);
+      if (wasSet) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public Node cloneTree() {
+    return root.cloneTree();
+  }
+}
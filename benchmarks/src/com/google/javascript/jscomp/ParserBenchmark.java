@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.jscomp.parsing.parser.Parser;
+import com.google.javascript.jscomp.parsing.parser.Scanner;
+import com.google.javascript.jscomp.parsing.parser.TokenType;
+import com.google.javascript.jscomp.parsing.parser.trees.Comment;
+import com.google.javascript.jscomp.parsing.parser.util.ErrorReporter;
+import com.google.javascript.jscomp.parsing.parser.util.SourcePosition;
+import com.google.javascript.jscomp.parsing.parser.util.SourceRange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the three stages of parsing the corpus: tokenizing it, building the parse trees and
+ * building the compiler's AST from them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+  private static final Parser.Config PARSER_CONFIG =
+      new Parser.Config(Parser.Config.Mode.ES8_OR_GREATER, /* isStrictMode */ false);
+
+  private final List<SourceFile> sources = new ArrayList<>();
+  private final List<String> contents = new ArrayList<>();
+  private final List<com.google.javascript.jscomp.parsing.parser.SourceFile> parserSources =
+      new ArrayList<>();
+  private Config config;
+
+  @Setup
+  public void setUp() throws IOException {
+    for (SourceFile source : BenchmarkCorpus.sources()) {
+      sources.add(source);
+      contents.add(source.getCode());
+      parserSources.add(
+          new com.google.javascript.jscomp.parsing.parser.SourceFile(
+              source.getName(), source.getCode()));
+    }
+    config =
+        ParserRunner.createConfig(
+            Config.LanguageMode.ECMASCRIPT8, null, Config.StrictMode.SLOPPY);
+  }
+
+  @Benchmark
+  public int scan() {
+    int tokens = 0;
+    for (com.google.javascript.jscomp.parsing.parser.SourceFile source : parserSources) {
+      // Only the parser knows where a template literal substitution ends, so they are scanned as
+      // errors here.
+      Scanner scanner = new Scanner(IGNORING_REPORTER, NO_COMMENTS, source);
+      while (scanner.nextToken().type != TokenType.END_OF_FILE) {
+        tokens++;
+      }
+    }
+    return tokens;
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    for (com.google.javascript.jscomp.parsing.parser.SourceFile source : parserSources) {
+      blackhole.consume(new Parser(PARSER_CONFIG, FAILING_REPORTER, source).parseProgram());
+    }
+  }
+
+  @Benchmark
+  public void buildAst(Blackhole blackhole) {
+    for (int i = 0; i < sources.size(); i++) {
+      blackhole.consume(
+          ParserRunner.parse(sources.get(i), contents.get(i), config, FAILING_AST_REPORTER));
+    }
+  }
+
+  private static final Scanner.CommentRecorder NO_COMMENTS =
+      new Scanner.CommentRecorder() {
+        @Override
+        public void recordComment(Comment.Type type, SourceRange range, String value) {}
+      };
+
+  private static final ErrorReporter IGNORING_REPORTER =
+      new ErrorReporter() {
+        @Override
+        protected void reportError(SourcePosition location, String message) {}
+
+        @Override
+        protected void reportWarning(SourcePosition location, String message) {}
+      };
+
+  private static final ErrorReporter FAILING_REPORTER =
+      new ErrorReporter() {
+        @Override
+        protected void reportError(SourcePosition location, String message) {
+          throw new IllegalStateException(location + ": " + message);
+        }
+
+        @Override
+        protected void reportWarning(SourcePosition location, String message) {}
+      };
+
+  private static final com.google.javascript.rhino.ErrorReporter FAILING_AST_REPORTER =
+      new com.google.javascript.rhino.ErrorReporter() {
+        @Override
+        public void warning(String message, String sourceName, int line, int lineOffset) {}
+
+        @Override
+        public void error(String message, String sourceName, int line, int lineOffset) {
+          throw new IllegalStateException(sourceName + ":" + line + ": " + message);
+        }
+      };
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one run of the peephole optimizations, configured as in {@link DefaultPassConfig}, over
+ * a fresh copy of the AST of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PeepholeBenchmark {
+  private Compiler compiler;
+  private Node root;
+
+  @Setup
+  public void setUp() {
+    compiler = BenchmarkCorpus.parse(BenchmarkCorpus.newOptions());
+  }
+
+  // Each invocation takes several milliseconds, so the cost of the copy is not measured.
+  @Setup(Level.Invocation)
+  public void copyAst() {
+    root = compiler.getJsRoot().cloneTree();
+  }
+
+  @Benchmark
+  public Node peephole() {
+    boolean late = false;
+    new PeepholeOptimizationsPass(
+            compiler,
+            PassNames.PEEPHOLE_OPTIMIZATIONS,
+            new MinimizeExitPoints(compiler),
+            new PeepholeMinimizeConditions(late),
+            new PeepholeSubstituteAlternateSyntax(late),
+            new PeepholeReplaceKnownMethods(late, /* useTypes */ false),
+            new PeepholeRemoveDeadCode(),
+            new PeepholeFoldConstants(late, /* useTypes */ false),
+            new PeepholeCollectPropertyAssignments())
+        .process(compiler.getExternsRoot(), root);
+    return root;
+  }
+}
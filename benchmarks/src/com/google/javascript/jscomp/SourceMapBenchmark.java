@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures printing the AST of the corpus while recording a source map with {@link
+ * com.google.debugging.sourcemap.SourceMapGeneratorV3}, and writing the map out. Compare with
+ * {@link CodePrinterBenchmark} for the cost of the source map alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SourceMapBenchmark {
+  private CompilerOptions options;
+  private Node root;
+
+  @Setup
+  public void setUp() {
+    options = BenchmarkCorpus.newOptions();
+    options.setSourceMapFormat(SourceMap.Format.V3);
+    root = BenchmarkCorpus.parse(options).getJsRoot();
+  }
+
+  @Benchmark
+  public String printWithSourceMap() throws IOException {
+    SourceMap sourceMap = options.sourceMapFormat.getInstance();
+    String code =
+        new CodePrinter.Builder(root)
+            .setCompilerOptions(options)
+            .setSourceMap(sourceMap)
+            .build();
+    StringBuilder map = new StringBuilder(code.length());
+    sourceMap.appendTo(map, "compiled.js");
+    return map.toString();
+  }
+}
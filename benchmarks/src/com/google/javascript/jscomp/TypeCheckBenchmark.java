@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the checks phase of a compilation of the corpus with type checking enabled, using
+ * either {@link TypeCheck} or {@link NewTypeInference}. Besides type checking, the phase only
+ * transpiles the corpus to ES5.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TypeCheckBenchmark {
+  @Param({"false", "true"})
+  public boolean newTypeInference;
+
+  private Compiler compiler;
+
+  // The checks change the AST, so every run needs a freshly parsed one.
+  @Setup(Level.Invocation)
+  public void parse() {
+    CompilerOptions options = BenchmarkCorpus.newOptions();
+    // The type checkers run on the transpiled code.
+    options.setLanguageOut(CompilerOptions.LanguageMode.ECMASCRIPT5);
+    if (newTypeInference) {
+      options.setNewTypeInference(true);
+    } else {
+      options.setCheckTypes(true);
+    }
+    compiler = new Compiler();
+    compiler.disableThreads();
+    compiler.init(BenchmarkCorpus.externs(), BenchmarkCorpus.sources(), options);
+    compiler.parseForCompilation();
+  }
+
+  @Benchmark
+  public Compiler check() {
+    compiler.stage1Passes();
+    return compiler;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp.newtypes;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the implementations of {@link PersistentMap} on the operations of the type
+ * environments of NTI: building a map one variable at a time, updating one variable, looking
+ * variables up, and joining, which updates many variables at once. The clojure map needs
+ * Clojure on the classpath; without it, it is the naive map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersistentMapBenchmark {
+  @Param({"champ", "clojure", "naive"})
+  public String implementation;
+
+  // Like the number of variables in the environment of a small and of a large function.
+  @Param({"10", "200"})
+  public int size;
+
+  private String[] keys;
+  private PersistentMap<String, Integer> full;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    keys = new String[size];
+    PersistentMap<String, Integer> map = PersistentMap.createEmpty(implementation);
+    for (int i = 0; i < size; i++) {
+      keys[i] = "var" + i;
+      map = map.with(keys[i], i);
+    }
+    full = map;
+  }
+
+  private String nextKey() {
+    next = (next + 1) % size;
+    return keys[next];
+  }
+
+  @Benchmark
+  public PersistentMap<String, Integer> build() {
+    PersistentMap<String, Integer> map = PersistentMap.createEmpty(implementation);
+    for (int i = 0; i < size; i++) {
+      map = map.with(keys[i], i);
+    }
+    return map;
+  }
+
+  @Benchmark
+  public PersistentMap<String, Integer> updateOne() {
+    return full.with(nextKey(), -1);
+  }
+
+  @Benchmark
+  public Integer get() {
+    return full.get(nextKey());
+  }
+
+  @Benchmark
+  public PersistentMap<String, Integer> updateAllWith() {
+    PersistentMap<String, Integer> map = full;
+    for (int i = 0; i < size; i++) {
+      map = map.with(keys[i], -i);
+    }
+    return map;
+  }
+
+  @Benchmark
+  public PersistentMap<String, Integer> updateAllTransient() {
+    PersistentMap.Transient<String, Integer> map = full.asTransient();
+    for (int i = 0; i < size; i++) {
+      map.put(keys[i], -i);
+    }
+    return map.persistent();
+  }
+}
@@ -28,6 +28,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -55,12 +56,17 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -70,6 +76,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -175,6 +186,9 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
   private final Gson gson;
 
+  // The saved compiler state is usually large, use bigger buffers than the default.
+  private static final int SAVED_STATE_BUFFER_SIZE = 1 << 16;
+
   static final String OUTPUT_MARKER = "%output%";
   private static final String OUTPUT_MARKER_JS_STRING = "%output|jsstring%";
 
@@ -928,11 +942,12 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
               compiler.getDegenerateModuleGraph().getAllModules()));
     }
 
-    String fileName = getModuleOutputFileName(m);
-    String baseName = new File(fileName).getName();
-    writeOutput(out, compiler, m,
-        parsedModuleWrappers.get(m.getName()).replace("%basename%", baseName),
-        "%s", null);
+    writeOutput(out, compiler, m, getModuleWrapper(m), "%s", null);
+  }
+
+  private String getModuleWrapper(JSModule m) {
+    String baseName = new File(getModuleOutputFileName(m)).getName();
+    return parsedModuleWrappers.get(m.getName()).replace("%basename%", baseName);
   }
 
   /**
@@ -950,8 +965,61 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     }
     checkState(compiler.getOptions().outputJs == OutputJs.NORMAL);
 
-    String code = module == null ? compiler.toSource() : compiler.toSource(module);
-    writeOutput(out, compiler, code, wrapper, codePlaceholder, escaper);
+    if (escaper != null) {
+      // The code has to be escaped as a whole.
+      String code = module == null ? compiler.toSource() : compiler.toSource(module);
+      writeOutput(out, compiler, code, wrapper, codePlaceholder, escaper);
+      return;
+    }
+
+    // Print the code straight to the output, so that it never has to be held in memory.
+    int pos = wrapper.indexOf(codePlaceholder);
+    String prefix = "";
+    String suffix = "";
+    if (pos != -1) {
+      prefix = wrapper.substring(0, pos);
+      suffix = wrapper.substring(pos + codePlaceholder.length());
+    }
+    out.append(prefix);
+    if (module == null) {
+      compiler.writeSource(out);
+    } else {
+      compiler.writeSource(module, out);
+    }
+    out.append(suffix);
+    out.append('\n');
+
+    // If we have a source map, adjust its offsets to match
+    // the code WITHIN the wrapper.
+    if (pos != -1 && compiler.getSourceMap() != null) {
+      compiler.getSourceMap().setWrapperPrefix(prefix);
+    }
+  }
+
+  /**
+   * Writes the code of a module to an output stream, wrapped like {@link #writeModuleOutput}
+   * does, and adds its mappings to the given source map rather than to the compiler's. Several
+   * modules can be written at the same time, on threads with a stack as large as the compiler
+   * thread's.
+   */
+  private void writeModuleOutput(Appendable out, JSModule m, @Nullable SourceMap sourceMap)
+      throws IOException {
+    String wrapper = getModuleWrapper(m);
+    int pos = wrapper.indexOf("%s");
+    String prefix = "";
+    String suffix = "";
+    if (pos != -1) {
+      prefix = wrapper.substring(0, pos);
+      suffix = wrapper.substring(pos + "%s".length());
+    }
+    out.append(prefix);
+    compiler.writeSource(m, sourceMap, out);
+    out.append(suffix);
+    out.append('\n');
+
+    if (pos != -1 && sourceMap != null) {
+      sourceMap.setWrapperPrefix(prefix);
+    }
   }
 
   /**
@@ -1148,13 +1216,15 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       }
     }
 
+    outputTracerMetrics();
+
     return processResults(result, modules, options);
   }
 
   private Result performStage1andSave(String filename) {
     Result result;
     try (BufferedOutputStream serializedOutputStream =
-        new BufferedOutputStream(new FileOutputStream(filename))) {
+        new BufferedOutputStream(new FileOutputStream(filename), SAVED_STATE_BUFFER_SIZE)) {
       compiler.parseForCompilation();
       if (!compiler.hasErrors()) {
         compiler.stage1Passes();
@@ -1174,8 +1244,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
   private Result restoreAndPerformStage2(String filename) {
     Result result;
-    try (BufferedInputStream serializedInputStream =
-        new BufferedInputStream(new FileInputStream(filename))) {
+    try (InputStream serializedInputStream = openSavedState(filename)) {
       compiler.restoreState(serializedInputStream);
       if (!compiler.hasErrors()) {
           compiler.stage2Passes();
@@ -1192,6 +1261,54 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     return result;
   }
 
+  /**
+   * Opens a file written by {@link #performStage1andSave}. The file is memory mapped when
+   * possible, so that it is paged in as deserialization reaches it instead of being copied through
+   * a read buffer.
+   */
+  private static InputStream openSavedState(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size <= Integer.MAX_VALUE) {
+        // The mapping stays valid after the channel is closed.
+        return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+      }
+    }
+    return new BufferedInputStream(new FileInputStream(filename), SAVED_STATE_BUFFER_SIZE);
+  }
+
+  /** An InputStream reading from a ByteBuffer. */
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+
   private Result performFullCompilation() {
     Result result;
     try {
@@ -1410,6 +1527,12 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return INVALID_MODULE_SOURCEMAP_PATTERN;
     }
 
+    if (options.numParallelThreads > 1 && modules.size() > 1
+        && compiler.getOptions().outputJs == OutputJs.NORMAL) {
+      outputModulesInParallel(modules, options);
+      return null;
+    }
+
     for (JSModule m : modules) {
       if (isOutputInJson()) {
         this.filesToStreamOut.add(createJsonFileFromModule(m));
@@ -1442,6 +1565,89 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     return null;
   }
 
+  /**
+   * Prints the modules and their source maps on {@code options.numParallelThreads} workers. Each
+   * module gets a source map of its own, so the result is the same as when they are printed one
+   * after the other.
+   */
+  private void outputModulesInParallel(List<JSModule> modules, final B options)
+      throws IOException {
+    // The printers look the type registry up, do not let them create it concurrently.
+    compiler.getTypeIRegistry();
+
+    ExecutorService executor = newOutputExecutor(options.numParallelThreads);
+    try {
+      List<Future<JsonFileSpec>> futures = new ArrayList<>(modules.size());
+      for (final JSModule m : modules) {
+        futures.add(executor.submit(new Callable<JsonFileSpec>() {
+          @Override
+          public JsonFileSpec call() throws IOException {
+            return outputModule(m, options);
+          }
+        }));
+      }
+      // Collect the results in module order, so the JSON output is the same as when the modules
+      // are printed one after the other.
+      for (Future<JsonFileSpec> future : futures) {
+        JsonFileSpec jsonFile = getOutput(future);
+        if (jsonFile != null) {
+          filesToStreamOut.add(jsonFile);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Writes a module and its source map to their files, or returns them as a JSON file spec when
+   * the output is streamed as JSON.
+   */
+  private JsonFileSpec outputModule(JSModule m, B options) throws IOException {
+    SourceMap sourceMap =
+        options.sourceMapOutputPath != null ? compiler.newSourceMap() : null;
+    String moduleFilename = getModuleOutputFileName(m);
+    if (isOutputInJson()) {
+      StringBuilder output = new StringBuilder();
+      writeModuleOutput(output, m, sourceMap);
+      JsonFileSpec jsonFile = new JsonFileSpec(output.toString(), moduleFilename);
+      if (sourceMap != null) {
+        StringBuilder moduleSourceMap = new StringBuilder();
+        sourceMap.appendTo(moduleSourceMap, moduleFilename);
+        jsonFile.setSourceMap(moduleSourceMap.toString());
+      }
+      return jsonFile;
+    }
+
+    try (Writer writer = fileNameToLegacyOutputWriter(moduleFilename)) {
+      writeModuleOutput(writer, m, sourceMap);
+    }
+    if (sourceMap != null) {
+      try (Writer mapFileOut = fileNameToOutputWriter2(expandSourceMapPath(options, m))) {
+        sourceMap.appendTo(mapFileOut, moduleFilename);
+      }
+    }
+    return null;
+  }
+
+  private static JsonFileSpec getOutput(Future<JsonFileSpec> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing the modules");
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private static ExecutorService newOutputExecutor(int numThreads) {
+    // The printer recurses into the AST, give it as much stack as the compiler thread.
+    return Executors.newFixedThreadPool(
+        numThreads, CompilerExecutor.newDaemonThreadFactory("jscompiler-output-"));
+  }
+
   /** Given an output module, convert it to a JSONFileSpec with associated sourcemap */
   private JsonFileSpec createJsonFileFromModule(JSModule module) throws IOException {
     compiler.getSourceMap().reset();
@@ -1947,6 +2153,17 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     }
   }
 
+  /**
+   * Writes the per-pass metrics of the compilation if requested.
+   */
+  private void outputTracerMetrics() throws IOException {
+    if (config.tracerMetricsFile != null && compiler.tracker != null) {
+      try (Writer out = fileNameToOutputWriter2(config.tracerMetricsFile)) {
+        compiler.tracker.outputMetrics(out, config.tracerMetricsFormat);
+      }
+    }
+  }
+
   /**
    * Prints the current module graph as JSON.
    */
@@ -2567,6 +2784,29 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private String tracerMetricsFile = null;
+
+    /**
+     * Sets the file to which the per-pass metrics of the compilation are written. They are only
+     * collected when the tracer is on.
+     */
+    public CommandLineConfig setTracerMetricsFile(String tracerMetricsFile) {
+      this.tracerMetricsFile = tracerMetricsFile;
+      return this;
+    }
+
+    private PerformanceTracker.MetricsFormat tracerMetricsFormat =
+        PerformanceTracker.MetricsFormat.JSON;
+
+    /**
+     * Sets the format of the per-pass metrics file.
+     */
+    public CommandLineConfig setTracerMetricsFormat(
+        PerformanceTracker.MetricsFormat tracerMetricsFormat) {
+      this.tracerMetricsFormat = tracerMetricsFormat;
+      return this;
+    }
+
     private List<String> outputBundles = ImmutableList.of();
 
     /**
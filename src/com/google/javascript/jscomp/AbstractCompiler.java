@@ -625,4 +625,16 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
   PersistentInputStore getPersistentInputStore() {
     return persistentInputStore;
   }
+
+  private @Nullable AstCache astCache;
+
+  void setAstCache(AstCache astCache) {
+    this.astCache = astCache;
+  }
+
+  /** Returns the cache of parsed ASTs, or null if parsing is not cached. */
+  @Nullable
+  AstCache getAstCache() {
+    return astCache;
+  }
 }
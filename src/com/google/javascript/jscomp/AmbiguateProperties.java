@@ -21,22 +21,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Joiner;
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
-import com.google.javascript.jscomp.graph.AdjacencyGraph;
-import com.google.javascript.jscomp.graph.Annotation;
-import com.google.javascript.jscomp.graph.GraphColoring;
-import com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring;
-import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.SubGraph;
 import com.google.javascript.rhino.FunctionTypeI;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.ObjectTypeI;
 import com.google.javascript.rhino.TypeI;
 import com.google.javascript.rhino.jstype.JSTypeNative;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -110,8 +103,11 @@ class AmbiguateProperties implements CompilerPass {
         }
       };
 
-  /** A map from TypeI to a unique representative Integer. */
-  private final BiMap<TypeI, Integer> intForType = HashBiMap.create();
+  /** A map from TypeI to a unique representative Integer, numbered from 1. */
+  private final Map<TypeI, Integer> intForType = new HashMap<>();
+
+  /** The types in the order of their representative Integers, the type of 1 first. */
+  private final List<TypeI> typeForInt = new ArrayList<>();
 
   /** A map from TypeI to JSTypeBitSet representing the types related to the type. */
   private final Map<TypeI, JSTypeBitSet> relatedBitsets = new HashMap<>();
@@ -167,10 +163,12 @@ class AmbiguateProperties implements CompilerPass {
     if (type != null && type.isGenericObjectType()) {
       type = type.toMaybeObjectType().getRawType();
     }
-    if (intForType.containsKey(type)) {
-      return intForType.get(type).intValue();
+    Integer typeInt = intForType.get(type);
+    if (typeInt != null) {
+      return typeInt.intValue();
     }
-    int newInt = intForType.size() + 1;
+    typeForInt.add(type);
+    int newInt = typeForInt.size();
     intForType.put(type, newInt);
     return newInt;
   }
@@ -178,8 +176,17 @@ class AmbiguateProperties implements CompilerPass {
   @Override
   public void process(Node externs, Node root) {
     // Find all property references and record the types on which they occur.
-    // Populate stringNodesToRename, propertyMap, quotedNames.
-    NodeTraversal.traverseEs6(compiler, root, new ProcessProperties());
+    // Populate stringNodesToRename, propertyMap, quotedNames. The scripts are
+    // searched in parallel, then the references are recorded in script order.
+    List<ProcessProperties> scriptReferences = new ArrayList<>(root.getChildCount());
+    for (int i = 0; i < root.getChildCount(); i++) {
+      scriptReferences.add(new ProcessProperties());
+    }
+    ParallelScriptTraversal.traverse(
+        compiler, root, compiler.getOptions().numParallelThreads, scriptReferences);
+    for (ProcessProperties references : scriptReferences) {
+      references.record();
+    }
 
     ImmutableSet.Builder<String> reservedNames = ImmutableSet.<String>builder()
         .addAll(externedNames)
@@ -187,21 +194,18 @@ class AmbiguateProperties implements CompilerPass {
 
     int numRenamedPropertyNames = 0;
     int numSkippedPropertyNames = 0;
-    ArrayList<PropertyGraphNode> nodes = new ArrayList<>(propertyMap.size());
+    List<Property> props = new ArrayList<>(propertyMap.size());
     for (Property prop : propertyMap.values()) {
       if (prop.skipAmbiguating) {
         ++numSkippedPropertyNames;
         reservedNames.add(prop.oldName);
       } else {
         ++numRenamedPropertyNames;
-        nodes.add(new PropertyGraphNode(prop));
+        props.add(prop);
       }
     }
 
-    PropertyGraph graph = new PropertyGraph(nodes);
-    GraphColoring<Property, Void> coloring =
-        new GreedyGraphColoring<>(graph, FREQUENCY_COMPARATOR);
-    int numNewPropertyNames = coloring.color();
+    int numNewPropertyNames = colorProperties(props);
 
     // Generate new names for the properties that will be renamed.
     NameGenerator nameGen =
@@ -213,10 +217,10 @@ class AmbiguateProperties implements CompilerPass {
     }
 
     // Translate the color of each Property instance to a name.
-    for (PropertyGraphNode node : graph.getNodes()) {
-      node.getValue().newName = colorMap[node.getAnnotation().hashCode()];
+    for (Property prop : props) {
+      prop.newName = colorMap[prop.color];
       if (renamingMap != null) {
-        renamingMap.put(node.getValue().oldName, node.getValue().newName);
+        renamingMap.put(prop.oldName, prop.newName);
       }
     }
 
@@ -239,15 +243,62 @@ class AmbiguateProperties implements CompilerPass {
     }
   }
 
+  /**
+   * Colors the properties so that properties that are referenced on related
+   * types get different colors, and returns the number of colors.
+   *
+   * <p>This is the greedy coloring of {@link
+   * com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring},
+   * without building the graph: from the most to the least frequent, each
+   * color takes every remaining property whose related types are disjoint
+   * from the related types of the properties that already have the color.
+   */
+  private int colorProperties(List<Property> props) {
+    long start = System.currentTimeMillis();
+    Property[] worklist = props.toArray(new Property[0]);
+    Arrays.sort(worklist, FREQUENCY_COMPARATOR);
+
+    int numColors = 0;
+    int remaining = worklist.length;
+    long numIntersectionTests = 0;
+    BitSet colorRelatedTypes = new BitSet(intForType.size());
+    do {
+      colorRelatedTypes.clear();
+      // Properties that don't get the current color are moved to the front
+      // of the work list, in the same order.
+      int uncolored = 0;
+      for (int i = 0; i < remaining; i++) {
+        Property prop = worklist[i];
+        if (!colorRelatedTypes.intersects(prop.relatedTypes)) {
+          colorRelatedTypes.or(prop.relatedTypes);
+          prop.color = numColors;
+        } else {
+          worklist[uncolored++] = prop;
+        }
+      }
+      numIntersectionTests += remaining;
+      remaining = uncolored;
+      numColors++;
+    } while (remaining > 0);
+
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("Colored " + props.size() + " properties over " + intForType.size()
+                  + " types with " + numColors + " colors in "
+                  + numIntersectionTests + " intersection tests and "
+                  + (System.currentTimeMillis() - start) + " ms.");
+    }
+    return numColors;
+  }
+
   private BitSet getRelatedTypesOnNonUnion(TypeI type) {
     // All of the types we encounter should have been added to the
     // relatedBitsets via computeRelatedTypes.
-    if (relatedBitsets.containsKey(type)) {
-      return relatedBitsets.get(type);
-    } else {
+    BitSet related = relatedBitsets.get(type);
+    if (related == null) {
       throw new RuntimeException("Related types should have been computed for"
                                  + " type: " + type + " but have not been.");
     }
+    return related;
   }
 
   /**
@@ -325,93 +376,6 @@ class AmbiguateProperties implements CompilerPass {
     related.or(relatedBitsets.get(instanceType));
   }
 
-  class PropertyGraph implements AdjacencyGraph<Property, Void> {
-    private final ArrayList<PropertyGraphNode> nodes;
-
-    PropertyGraph(ArrayList<PropertyGraphNode> nodes) {
-      this.nodes = nodes;
-    }
-
-    @Override
-    public List<PropertyGraphNode> getNodes() {
-      return nodes;
-    }
-
-    @Override
-    public GraphNode<Property, Void> getNode(Property property) {
-      throw new RuntimeException("PropertyGraph#getNode is never called.");
-    }
-
-    @Override
-    public SubGraph<Property, Void> newSubGraph() {
-      return new PropertySubGraph();
-    }
-
-    @Override
-    public void clearNodeAnnotations() {
-      for (PropertyGraphNode node : nodes) {
-        node.setAnnotation(null);
-      }
-    }
-
-    @Override
-    public int getWeight(Property value) {
-      return value.numOccurrences;
-    }
-  }
-
-  /**
-   * A {@link SubGraph} that represents properties. The related types of
-   * the properties are used to efficiently calculate adjacency information.
-   */
-  class PropertySubGraph implements SubGraph<Property, Void> {
-    /** Types related to properties referenced in this subgraph. */
-    JSTypeBitSet relatedTypes = new JSTypeBitSet(intForType.size());
-
-    /**
-     * Returns true if prop is in an independent set from all properties in this
-     * sub graph.  That is, if none of its related types intersects with the
-     * related types for this sub graph.
-     */
-    @Override
-    public boolean isIndependentOf(Property prop) {
-      return !relatedTypes.intersects(prop.relatedTypes);
-    }
-
-    /**
-     * Adds the node to the sub graph, adding all its related types to the
-     * related types for the sub graph.
-     */
-    @Override
-    public void addNode(Property prop) {
-      relatedTypes.or(prop.relatedTypes);
-    }
-  }
-
-  static class PropertyGraphNode implements GraphNode<Property, Void> {
-    Property property;
-    protected Annotation annotation;
-
-    PropertyGraphNode(Property property) {
-      this.property = property;
-    }
-
-    @Override
-    public Property getValue() {
-      return property;
-    }
-
-    @Override
-    public Annotation getAnnotation() {
-      return annotation;
-    }
-
-    @Override
-    public void setAnnotation(Annotation data) {
-      annotation = data;
-    }
-  }
-
   private void reportInvalidRenameFunction(Node n, String functionName, String message) {
     compiler.report(
         JSError.make(
@@ -421,8 +385,15 @@ class AmbiguateProperties implements CompilerPass {
   private static final String WANT_STRING_LITERAL = " The first argument must be a string literal.";
   private static final String DO_NOT_WANT_PATH = " The first argument must not be a property path.";
 
-  /** Finds all property references, recording the types on which they occur. */
+  /**
+   * Finds the property references of a script. The references are kept until
+   * {@link #record} is called, so that scripts can be searched in parallel.
+   */
   private class ProcessProperties extends AbstractPostOrderCallback {
+    private final List<Node> stringNodes = new ArrayList<>();
+    private final List<TypeI> types = new ArrayList<>();
+    private final Set<String> scriptQuotedNames = new HashSet<>();
+
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
       switch (n.getToken()) {
@@ -470,7 +441,7 @@ class AmbiguateProperties implements CompilerPass {
 
             for (Node key : objectLiteral.children()) {
               if (key.isQuotedString()) {
-                quotedNames.add(key.getString());
+                scriptQuotedNames.add(key.getString());
               } else {
                 maybeMarkCandidate(key, type);
               }
@@ -494,7 +465,7 @@ class AmbiguateProperties implements CompilerPass {
             if (key.isQuotedString()) {
               // Ensure that we never rename some other property in a way
               // that could conflict with this quoted key.
-              quotedNames.add(key.getString());
+              scriptQuotedNames.add(key.getString());
             } else {
               maybeMarkCandidate(key, type);
             }
@@ -506,7 +477,7 @@ class AmbiguateProperties implements CompilerPass {
           // could conflict with this quoted name.
           Node child = n.getLastChild();
           if (child.isString()) {
-            quotedNames.add(child.getString());
+            scriptQuotedNames.add(child.getString());
           }
           return;
         default:
@@ -516,22 +487,28 @@ class AmbiguateProperties implements CompilerPass {
 
     /**
      * If a property node is eligible for renaming, stashes a reference to it
-     * and increments the property name's access count.
+     * and the type on which it occurs.
      *
      * @param n The STRING node for a property
      */
     private void maybeMarkCandidate(Node n, TypeI type) {
       String name = n.getString();
       if (!externedNames.contains(name)) {
-        stringNodesToRename.add(n);
-        recordProperty(name, type);
+        stringNodes.add(n);
+        types.add(type);
       }
     }
 
-    private Property recordProperty(String name, TypeI type) {
-      Property prop = getProperty(name);
-      prop.addType(type);
-      return prop;
+    /**
+     * Stashes the references found in the script for renaming, and
+     * increments the access count of their property names.
+     */
+    void record() {
+      stringNodesToRename.addAll(stringNodes);
+      quotedNames.addAll(scriptQuotedNames);
+      for (int i = 0; i < stringNodes.size(); i++) {
+        getProperty(stringNodes.get(i).getString()).addType(types.get(i));
+      }
     }
   }
 
@@ -571,6 +548,8 @@ class AmbiguateProperties implements CompilerPass {
     String newName;
     int numOccurrences;
     boolean skipAmbiguating;
+    // The color of the property in colorProperties.
+    int color;
     JSTypeBitSet relatedTypes = new JSTypeBitSet(intForType.size());
 
     Property(String name) {
@@ -639,7 +618,7 @@ class AmbiguateProperties implements CompilerPass {
       int current = 0;
       List<String> types = new ArrayList<>();
       while (-1 != (current = nextSetBit(from))) {
-        types.add(intForType.inverse().get(current).toString());
+        types.add(String.valueOf(typeForInt.get(current - 1)));
         from = current + 1;
       }
       return Joiner.on(" && ").join(types);
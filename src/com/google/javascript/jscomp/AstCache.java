@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.jscomp.parsing.parser.FeatureSet;
+import com.google.javascript.jscomp.parsing.parser.trees.Comment;
+import com.google.javascript.rhino.Node;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * A disk-backed cache of parse results, so that inputs which have not changed since a previous
+ * compilation do not need to be parsed again.
+ *
+ * <p>Entries are keyed by a digest of the name and code of the source and of the parser
+ * configuration, and hold the AST as it comes out of the parser (including JSDoc, source positions
+ * and the detected feature set), before {@link AbstractCompiler#prepareAst} is run on it. Two
+ * files with the same code have separate entries. References to the
+ * {@link SourceFile} are not written to the cache, they are bound to the current source file when
+ * the entry is read back.
+ *
+ * <p>Only clean parses are cached: inputs with parse errors or warnings are always parsed so that
+ * their diagnostics are reported. An entry that cannot be read (for example because it was written
+ * by a different version of the compiler) is treated as a miss and overwritten.
+ */
+class AstCache {
+  /** Bumped whenever the format of the cached entries changes. */
+  private static final int FORMAT_VERSION = 4;
+
+  private static final String SUFFIX = ".ast";
+
+  private final Path directory;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  AstCache(String directory) {
+    this.directory = Paths.get(directory);
+  }
+
+  /**
+   * Returns the key under which the parse of {@code code} from {@code sourceFile} with
+   * {@code config} is cached. The name of the file is part of the key, as the AST keeps it in
+   * places that are not bound to the source file when an entry is read back, like the JSDoc type
+   * expressions.
+   */
+  String getKey(SourceFile sourceFile, String code, Config config) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    hasher.putString(config.getFingerprint(), UTF_8);
+    hasher.putString(sourceFile.getName(), UTF_8);
+    hasher.putString(code, UTF_8);
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns the cached parse result for the given key with its nodes bound to {@code sourceFile},
+   * or null if there is none.
+   */
+  ParserRunner.ParseResult get(String key, final SourceFile sourceFile) {
+    Path file = directory.resolve(key + SUFFIX);
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+      ObjectInputStream objectIn = new ObjectInputStream(in) {
+        {
+          enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+          return obj instanceof SourceFilePlaceholder ? sourceFile : obj;
+        }
+      };
+      if (objectIn.readInt() != FORMAT_VERSION) {
+        misses.incrementAndGet();
+        return null;
+      }
+      FeatureSet features = (FeatureSet) objectIn.readObject();
+      String sourceMapURL = (String) objectIn.readObject();
+      Node ast = (Node) objectIn.readObject();
+      hits.incrementAndGet();
+      return new ParserRunner.ParseResult(
+          ast, ImmutableList.<Comment>of(), features, sourceMapURL);
+    } catch (NoSuchFileException e) {
+      misses.incrementAndGet();
+      return null;
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      Compiler.logger.log(Level.FINE, "Ignoring unreadable AST cache entry " + file, e);
+      misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /** Stores a parse result of {@code sourceFile} under the given key. */
+  void put(String key, final SourceFile sourceFile, ParserRunner.ParseResult result) {
+    Path file = directory.resolve(key + SUFFIX);
+    Path tmp = null;
+    try {
+      Files.createDirectories(directory);
+      // Write to a temporary file and move it in place, so that concurrent compilations sharing
+      // the directory never see a partially written entry.
+      tmp = Files.createTempFile(directory, key, ".tmp");
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+        ObjectOutputStream objectOut = new ObjectOutputStream(out) {
+          {
+            enableReplaceObject(true);
+          }
+
+          @Override
+          protected Object replaceObject(Object obj) {
+            return obj == sourceFile ? SourceFilePlaceholder.INSTANCE : obj;
+          }
+        };
+        objectOut.writeInt(FORMAT_VERSION);
+        objectOut.writeObject(result.features);
+        objectOut.writeObject(result.sourceMapURL);
+        objectOut.writeObject(result.ast);
+        objectOut.flush();
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      Compiler.logger.log(Level.WARNING, "Unable to write AST cache entry " + file, e);
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException ignored) {
+          // Nothing more can be done.
+        }
+      }
+    }
+  }
+
+  int getHitCount() {
+    return hits.get();
+  }
+
+  int getMissCount() {
+    return misses.get();
+  }
+
+  /** Stands in for the source file of the cached AST, which is not part of the entry. */
+  private static final class SourceFilePlaceholder implements Serializable {
+    static final SourceFilePlaceholder INSTANCE = new SourceFilePlaceholder();
+
+    private Object readResolve() throws ObjectStreamException {
+      return INSTANCE;
+    }
+  }
+}
@@ -104,6 +104,11 @@ public final class ByPathWarningsGuard extends WarningsGuard {
     return null;
   }
 
+  @Override
+  protected boolean dependsOnlyOnFileAndType() {
+    return true;
+  }
+
   @Override
   protected int getPriority() {
     return priority;
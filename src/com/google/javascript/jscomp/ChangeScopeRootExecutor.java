@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the rounds of a {@link ChangeScopeRootPass} with its change scope roots spread over a pool
+ * of threads.
+ *
+ * <p>The roots of a round are processed in waves: each wave takes the roots that are not nested
+ * in another root still waiting to be processed, so a function is never processed at the same
+ * time as the functions or script that contain it, and it is processed after them, when the code
+ * around it no longer changes. Roots that were deleted by an earlier wave are skipped.
+ *
+ * <p>One instance is kept per {@link PhaseOptimizer} run so that its threads are reused by all the
+ * passes; it must be shut down afterwards.
+ */
+class ChangeScopeRootExecutor {
+  private final AbstractCompiler compiler;
+  private final int numParallelThreads;
+  private ThreadPoolExecutor poolExecutor;
+
+  ChangeScopeRootExecutor(AbstractCompiler compiler, int numParallelThreads) {
+    this.compiler = compiler;
+    this.numParallelThreads = numParallelThreads;
+  }
+
+  /** Runs all the rounds of the given pass over the change scope roots under {@code root}. */
+  void process(ChangeScopeRootPass pass, Node root) {
+    // Initialize the lazily created state of the compiler that the passes may read.
+    compiler.getTypeIRegistry();
+    for (List<Node> roots = pass.getNextChangeScopeRoots();
+        roots == null || !roots.isEmpty();
+        roots = pass.getNextChangeScopeRoots()) {
+      processRoots(pass, roots == null ? getAllChangeScopeRoots(root) : roots);
+      if (compiler.hasHaltingErrors()) {
+        return;
+      }
+    }
+  }
+
+  private void processRoots(ChangeScopeRootPass pass, List<Node> roots) {
+    Set<Node> waiting = new LinkedHashSet<>(roots);
+    while (!waiting.isEmpty()) {
+      List<Node> wave = new ArrayList<>();
+      for (Node root : waiting) {
+        if (!root.isDeleted() && !hasWaitingAncestor(root, waiting)) {
+          wave.add(root);
+        }
+      }
+      if (wave.isEmpty()) {
+        // Only deleted roots are left.
+        return;
+      }
+      waiting.removeAll(wave);
+      processWave(pass, wave);
+    }
+  }
+
+  private static boolean hasWaitingAncestor(Node root, Set<Node> waiting) {
+    for (Node n = root.getParent(); n != null; n = n.getParent()) {
+      if (waiting.contains(n) && !n.isDeleted()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void processWave(ChangeScopeRootPass pass, List<Node> wave) {
+    if (wave.size() == 1) {
+      pass.enterChangeScopeRoot(compiler, wave.get(0));
+      return;
+    }
+    ThreadPoolExecutor executor = getExecutor();
+    List<Future<?>> futures = new ArrayList<>(wave.size());
+    for (Node root : wave) {
+      futures.add(executor.submit(newTask(pass, root)));
+    }
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      cancel(futures);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      cancel(futures);
+      throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private Runnable newTask(final ChangeScopeRootPass pass, final Node root) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        pass.enterChangeScopeRoot(compiler, root);
+      }
+    };
+  }
+
+  private static void cancel(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      future.cancel(false);
+    }
+  }
+
+  private static List<Node> getAllChangeScopeRoots(Node root) {
+    final List<Node> roots = new ArrayList<>();
+    NodeUtil.visitPreOrder(
+        root,
+        new NodeUtil.Visitor() {
+          @Override
+          public void visit(Node n) {
+            if (NodeUtil.isChangeScopeRoot(n)) {
+              roots.add(n);
+            }
+          }
+        });
+    return roots;
+  }
+
+  private synchronized ThreadPoolExecutor getExecutor() {
+    if (poolExecutor == null) {
+      poolExecutor = new ThreadPoolExecutor(
+          numParallelThreads,
+          numParallelThreads,
+          0,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          CompilerExecutor.newDaemonThreadFactory("jscompiler-ChangeScopeRoot-"));
+    }
+    return poolExecutor;
+  }
+
+  /** Stops the threads of the executor. */
+  synchronized void shutdown() {
+    if (poolExecutor != null) {
+      poolExecutor.shutdown();
+      poolExecutor = null;
+    }
+  }
+}
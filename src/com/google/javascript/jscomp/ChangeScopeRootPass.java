@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.NodeTraversal.ChangeScopeRootCallback;
+import com.google.javascript.rhino.Node;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A compiler pass that works on one change scope root (a script or a function) at a time, and
+ * whose work on a root is independent of the other roots. {@link PhaseOptimizer} processes the
+ * roots of such a pass on several threads when the compilation allows it, see
+ * {@link ChangeScopeRootExecutor}; otherwise the pass runs through {@link #process} as usual.
+ *
+ * <p>A pass is function-scoped and thread-safe if its work on a root:
+ * <ul>
+ * <li>only reads and changes the code of that root, not counting the functions nested in it,
+ *     which it may only remove as a whole;
+ * <li>keeps its state in locals or in thread-safe structures, not in fields of the pass;
+ * <li>reports its changes and diagnostics through the compiler, which is safe to call from
+ *     several threads.
+ * </ul>
+ * Two roots that are processed at the same time are never nested in each other.
+ */
+interface ChangeScopeRootPass extends CompilerPass, ChangeScopeRootCallback {
+  /**
+   * Returns the change scope roots to process in the next round of the pass, or null to process
+   * all the roots of the program. Returns an empty list when the pass is done. This is called on
+   * the compiler thread, between rounds.
+   */
+  @Nullable
+  List<Node> getNextChangeScopeRoots();
+}
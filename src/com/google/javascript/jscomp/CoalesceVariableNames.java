@@ -21,22 +21,18 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Joiner;
 import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
-import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.DataFlowAnalysis.FlowState;
 import com.google.javascript.jscomp.LiveVariablesAnalysisEs6.LiveVariableLattice;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.NodeTraversal.ScopedCallback;
-import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
-import com.google.javascript.jscomp.graph.GraphColoring;
-import com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring;
-import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.LinkedUndirectedGraph;
-import com.google.javascript.jscomp.graph.UndiGraph;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
@@ -58,32 +54,37 @@ import javax.annotation.Nullable;
  * <p>The pass operates similar to a typical register allocator found in an
  * optimizing compiler by first computing live ranges with
  * {@link LiveVariablesAnalysis} and a variable interference graph. Then it uses
- * graph coloring in {@link GraphColoring} to determine which two variables can
- * be merge together safely.
+ * greedy graph coloring to determine which two variables can be merge together
+ * safely. The interference graph is a bit matrix over the variables of the
+ * function, so functions with many variables can be processed; the functions
+ * with more variables than
+ * {@link CompilerOptions#setCoalesceVariableNamesMaxVariables} are skipped.
  *
  */
 class CoalesceVariableNames extends AbstractPostOrderCallback implements
     CompilerPass, ScopedCallback {
 
   private final AbstractCompiler compiler;
-  private final Deque<GraphColoring<Var, Void>> colorings;
+  private final Deque<InterferenceGraph> colorings;
   private final Deque<LiveVariablesAnalysisEs6> liveAnalyses;
   private final boolean usePseudoNames;
+  private final int maxVariables;
   private LiveVariablesAnalysisEs6 liveness;
 
-  private final Comparator<Var> coloringTieBreaker =
-      new Comparator<Var>() {
-        @Override
-        public int compare(Var v1, Var v2) {
-          return liveness.getVarIndex(v1.getName()) - liveness.getVarIndex(v2.getName());
-        }
-      };
-
   /**
    * @param usePseudoNames For debug purposes, when merging variable foo and bar
    * to foo, rename both variable to foo_bar.
    */
   CoalesceVariableNames(AbstractCompiler compiler, boolean usePseudoNames) {
+    this(compiler, usePseudoNames, LiveVariablesAnalysisEs6.MAX_VARIABLES_TO_ANALYZE);
+  }
+
+  /**
+   * @param usePseudoNames For debug purposes, when merging variable foo and bar
+   * to foo, rename both variable to foo_bar.
+   * @param maxVariables Functions with this many variables or more are skipped.
+   */
+  CoalesceVariableNames(AbstractCompiler compiler, boolean usePseudoNames, int maxVariables) {
     // The code is normalized at this point in the compilation process. This allows us to use the
     // fact that all variables have been given unique names. We can hoist coalesced variables to
     // VARS because we know that shadowing can't occur.
@@ -93,6 +94,7 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     colorings = new ArrayDeque<>();
     liveAnalyses = new ArrayDeque<>();
     this.usePseudoNames = usePseudoNames;
+    this.maxVariables = maxVariables;
   }
 
   @Override
@@ -103,7 +105,7 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     compiler.setLifeCycleStage(LifeCycleStage.RAW);
   }
 
-  private static boolean shouldOptimizeScope(NodeTraversal t) {
+  private boolean shouldOptimizeScope(NodeTraversal t) {
     // TODO(user): We CAN do this in the global scope, just need to be
     // careful when something is exported. Liveness uses bit-vector for live
     // sets so I don't see compilation time will be a problem for running this
@@ -118,7 +120,7 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     NodeUtil.getAllVarsDeclaredInFunction(
         allVarsInFn, orderedVars, t.getCompiler(), t.getScopeCreator(), t.getScope());
 
-    return LiveVariablesAnalysisEs6.MAX_VARIABLES_TO_ANALYZE > orderedVars.size();
+    return maxVariables > orderedVars.size();
   }
 
   @Override
@@ -154,15 +156,13 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     // The interference graph has the function's variables as its nodes and any interference
     // between the variables as the edges. Interference between two variables means that they are
     // alive at overlapping times, which means that their variable names cannot be coalesced.
-    UndiGraph<Var, Void> interferenceGraph =
-        computeVariableNamesInterferenceGraph(cfg, liveness.getEscapedLocals());
+    InterferenceGraph interferenceGraph =
+        computeVariableNamesInterferenceGraph(liveness.getEscapedLocals());
 
     // Color any interfering variables with different colors and any variables that can be safely
     // coalesced wih the same color.
-    GraphColoring<Var, Void> coloring =
-        new GreedyGraphColoring<>(interferenceGraph, coloringTieBreaker);
-    coloring.color();
-    colorings.push(coloring);
+    interferenceGraph.color();
+    colorings.push(interferenceGraph);
   }
 
   @Override
@@ -183,15 +183,15 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     }
 
     Var var = liveness.getAllVariables().get(n.getString());
-    GraphNode<Var, Void> vNode = colorings.peek().getGraph().getNode(var);
-    if (vNode == null) {
+    InterferenceGraph coloring = colorings.peek();
+    if (var == null || !coloring.hasNode(liveness.getVarIndex(var.getName()))) {
       // This is not a local.
       return;
     }
-    Var coalescedVar = colorings.peek().getPartitionSuperNode(var);
+    Var coalescedVar = coloring.getPartitionSuperNode(liveness.getVarIndex(var.getName()));
 
     if (!usePseudoNames) {
-      if (vNode.getValue().equals(coalescedVar)) {
+      if (var.equals(coalescedVar)) {
         // The coalesced name is itself, nothing to do.
         return;
       }
@@ -211,12 +211,12 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
       // make this fast.
       String pseudoName = null;
       Set<String> allMergedNames = new TreeSet<>();
-      for (Var iVar : liveness.getAllVariablesInOrder()) {
+      List<Var> allVars = liveness.getAllVariablesInOrder();
+      for (int i = 0; i < allVars.size(); i++) {
         // Look for all the variables that can be merged (in the graph by now)
         // and it is merged with the current coalescedVar.
-        if (colorings.peek().getGraph().getNode(iVar) != null
-            && coalescedVar.equals(colorings.peek().getPartitionSuperNode(iVar))) {
-          allMergedNames.add(iVar.name);
+        if (coloring.hasNode(i) && coalescedVar.equals(coloring.getPartitionSuperNode(i))) {
+          allMergedNames.add(allVars.get(i).name);
         }
       }
 
@@ -235,7 +235,7 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
       n.setString(pseudoName);
       compiler.reportChangeToEnclosingScope(n);
 
-      if (!vNode.getValue().equals(coalescedVar)
+      if (!var.equals(coalescedVar)
           && (NodeUtil.isNameDeclaration(parent)
               || NodeUtil.getEnclosingType(n, Token.DESTRUCTURING_LHS) != null)) {
         makeDeclarationVar(coalescedVar);
@@ -246,27 +246,25 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
 
   /**
    * In order to determine when it is appropriate to coalesce two variables, we use a live variables
-   * analysis to make sure they are not alive at the same time. We take every pairing of variables
-   * and for every CFG node, determine whether the two variables are alive at the same time. If two
-   * variables are alive at the same time, we create an edge between them in the interference graph.
-   * The interference graph is the input to a graph coloring algorithm that ensures any interfering
+   * analysis to make sure they are not alive at the same time. Two variables that are alive at the
+   * same time at the entry or exit of some CFG node are connected in the interference graph. The
+   * interference graph is the input to a graph coloring algorithm that ensures any interfering
    * variables are marked in different color groups, while variables that can safely be coalesced
    * are assigned the same color group.
    *
-   * @param cfg
    * @param escaped we don't want to coalesce any escaped variables
    * @return graph with variable nodes and edges representing variable interference
    */
-  private UndiGraph<Var, Void> computeVariableNamesInterferenceGraph(
-      ControlFlowGraph<Node> cfg, Set<? extends Var> escaped) {
-    UndiGraph<Var, Void> interferenceGraph = LinkedUndirectedGraph.create();
-
-    // First create a node for each non-escaped variable. We add these nodes in the order in which
-    // they appear in the code because we want the names that appear earlier in the code to be used
-    // when coalescing to variables that appear later in the code.
+  private InterferenceGraph computeVariableNamesInterferenceGraph(Set<? extends Var> escaped) {
+    // First create a node for each non-escaped variable. The variables are numbered in the order
+    // in which they appear in the code because we want the names that appear earlier in the code
+    // to be used when coalescing to variables that appear later in the code.
     List<Var> orderedVariables = liveness.getAllVariablesInOrder();
+    InterferenceGraph interferenceGraph = new InterferenceGraph(orderedVariables);
+    BitSet params = new BitSet();
 
-    for (Var v : orderedVariables) {
+    for (int i = 0; i < orderedVariables.size(); i++) {
+      Var v = orderedVariables.get(i);
       if (escaped.contains(v)) {
         continue;
       }
@@ -290,78 +288,205 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
         }
       }
 
-      interferenceGraph.createNode(v);
+      interferenceGraph.addNode(i);
+      if (v.isParam()) {
+        params.set(i);
+      }
     }
 
-    // Go through each variable and try to connect them.
-    int v1Index = -1;
-    for (Var v1 : orderedVariables) {
-      v1Index++;
+    // The parameters are all alive at the entry of the function.
+    interferenceGraph.connectAll(params);
 
-      int v2Index = -1;
-      NEXT_VAR_PAIR:
-      for (Var v2 : orderedVariables) {
-        v2Index++;
-        // Skip duplicate pairs.
-        if (v1Index > v2Index) {
+    // Connect the variables that are alive at the same time at the entry or exit of a CFG node,
+    // and find the CFG nodes in which each variable is assigned.
+    IndexedControlFlowGraph<Node> cfg = liveness.getIndexedCfg();
+    int cfgNodeCount = cfg.getImplicitReturn();
+    BitSet[] assignments = new BitSet[orderedVariables.size()];
+    for (int i = 0; i < assignments.length; i++) {
+      assignments[i] = new BitSet();
+    }
+    BitSet live = new BitSet();
+    BitSet assigned = new BitSet();
+    for (int id = 0; id < cfgNodeCount; id++) {
+      FlowState<LiveVariableLattice> state = cfg.getNode(id).getAnnotation();
+      for (LiveVariableLattice lattice : Arrays.asList(state.getIn(), state.getOut())) {
+        live.clear();
+        live.or(liveness.getBits(lattice));
+        interferenceGraph.connectAll(live);
+      }
+
+      assigned.clear();
+      Node cfgRoot = cfg.getNode(id).getValue();
+      addAssignedVariables(cfgRoot, cfgRoot, assigned);
+      for (int i = assigned.nextSetBit(0); i >= 0; i = assigned.nextSetBit(i + 1)) {
+        assignments[i].set(id);
+      }
+    }
+
+    // Two variables that are never alive at the same time at the boundaries of CFG nodes might
+    // still collide *within* a CFG node, which can only happen in a CFG node that assigns one of
+    // them.
+    BitSet cfgNodes = new BitSet();
+    for (int v1Index = interferenceGraph.nextNode(0); v1Index >= 0;
+        v1Index = interferenceGraph.nextNode(v1Index + 1)) {
+      Var v1 = orderedVariables.get(v1Index);
+      for (int v2Index = interferenceGraph.nextNode(v1Index); v2Index >= 0;
+          v2Index = interferenceGraph.nextNode(v2Index + 1)) {
+        if (interferenceGraph.isConnected(v1Index, v2Index)) {
           continue;
         }
-
-        if (!interferenceGraph.hasNode(v1) || !interferenceGraph.hasNode(v2)) {
-          // Skip nodes that were not added. They are globals and escaped
-          // locals. Also avoid merging a variable with itself.
-          continue NEXT_VAR_PAIR;
+        Var v2 = orderedVariables.get(v2Index);
+        cfgNodes.clear();
+        cfgNodes.or(assignments[v1Index]);
+        cfgNodes.or(assignments[v2Index]);
+        for (int id = cfgNodes.nextSetBit(0); id >= 0; id = cfgNodes.nextSetBit(id + 1)) {
+          FlowState<LiveVariableLattice> state = cfg.getNode(id).getAnnotation();
+          boolean v1OutLive = state.getOut().isLive(v1Index);
+          boolean v2OutLive = state.getOut().isLive(v2Index);
+          Node cfgRoot = cfg.getNode(id).getValue();
+          CombinedLiveRangeChecker checker = new CombinedLiveRangeChecker(
+              cfgRoot,
+              new LiveRangeChecker(v1, v2OutLive ? null : v2),
+              new LiveRangeChecker(v2, v1OutLive ? null : v1));
+          checker.check(cfgRoot);
+          if (checker.isCrossed()) {
+            interferenceGraph.connect(v1Index, v2Index);
+            break;
+          }
         }
+      }
+    }
+    return interferenceGraph;
+  }
 
-        if (v1.isParam() && v2.isParam()) {
-          interferenceGraph.connectIfNotFound(v1, null, v2);
-          continue NEXT_VAR_PAIR;
-        }
+  /**
+   * Adds the indices of the variables that are assigned in the CFG node rooted at {@code cfgRoot},
+   * in the same way as {@link LiveRangeChecker#isAssignTo}, to {@code assigned}.
+   */
+  private void addAssignedVariables(Node cfgRoot, Node n, BitSet assigned) {
+    if (n != cfgRoot && ControlFlowGraph.isEnteringNewCfgNode(n)) {
+      return;
+    }
+    for (Node c = n.getFirstChild(); c != null; c = c.getNext()) {
+      addAssignedVariables(cfgRoot, c, assigned);
+    }
+    if (LiveRangeChecker.shouldVisit(n)) {
+      Node name = n.isName() ? n : n.getFirstChild();
+      Var var = liveness.getAllVariables().get(name.getString());
+      if (var != null && LiveRangeChecker.isAssignTo(var, n, n.getParent())) {
+        assigned.set(liveness.getVarIndex(var.getName()));
+      }
+    }
+  }
 
-        // Go through every CFG node in the program and look at
-        // this variable pair. If they are both live at the same
-        // time, add an edge between them and continue to the next pair.
-        NEXT_CROSS_CFG_NODE:
-        for (DiGraphNode<Node, Branch> cfgNode : cfg.getDirectedGraphNodes()) {
-          if (cfg.isImplicitReturn(cfgNode)) {
-            continue NEXT_CROSS_CFG_NODE;
-          }
+  /**
+   * The interference graph of the variables of a function, and its coloring. The variables are
+   * identified by their index in the liveness analysis, and the edges are kept as a bit matrix.
+   */
+  private static final class InterferenceGraph {
+    private final List<Var> vars;
+    // The variables that may be coalesced.
+    private final BitSet nodes = new BitSet();
+    // For each variable, the variables it interferes with. Like the edges of a graph with a self
+    // loop, this includes the variable itself if it is ever alive.
+    private final BitSet[] edges;
+    private int[] colors;
+    // Maps a color to the variable whose name the variables of that color use. If, for example,
+    // the color 5 is mapped to "foo". Then any other variables colored with the color 5 will now
+    // use the name "foo".
+    private Var[] colorToVar;
+
+    InterferenceGraph(List<Var> vars) {
+      this.vars = vars;
+      this.edges = new BitSet[vars.size()];
+      for (int i = 0; i < edges.length; i++) {
+        edges[i] = new BitSet();
+      }
+    }
 
-          FlowState<LiveVariableLattice> state = cfgNode.getAnnotation();
+    void addNode(int index) {
+      nodes.set(index);
+    }
 
-          // Check the live states and add edge when possible.
+    boolean hasNode(int index) {
+      return nodes.get(index);
+    }
 
-          if ((state.getIn().isLive(v1Index) && state.getIn().isLive(v2Index))
-              || (state.getOut().isLive(v1Index) && state.getOut().isLive(v2Index))) {
-            interferenceGraph.connectIfNotFound(v1, null, v2);
-            continue NEXT_VAR_PAIR;
-          }
-        }
+    /** Returns the first node whose index is at least {@code index}, or -1 if there is none. */
+    int nextNode(int index) {
+      return nodes.nextSetBit(index);
+    }
 
-        // v1 and v2 might not have an edge between them! woohoo. there's
-        // one last sanity check that we have to do: we have to check
-        // if there's a collision *within* the cfg node.
-        NEXT_INTRA_CFG_NODE:
-        for (DiGraphNode<Node, Branch> cfgNode : cfg.getDirectedGraphNodes()) {
-          if (cfg.isImplicitReturn(cfgNode)) {
-            continue NEXT_INTRA_CFG_NODE;
-          }
+    boolean isConnected(int index1, int index2) {
+      return edges[index1].get(index2);
+    }
 
-          FlowState<LiveVariableLattice> state = cfgNode.getAnnotation();
-          boolean v1OutLive = state.getOut().isLive(v1Index);
-          boolean v2OutLive = state.getOut().isLive(v2Index);
-          CombinedLiveRangeChecker checker = new CombinedLiveRangeChecker(
-              cfgNode.getValue(),
-              new LiveRangeChecker(v1, v2OutLive ? null : v2),
-              new LiveRangeChecker(v2, v1OutLive ? null : v1));
-          checker.check(cfgNode.getValue());
-          if (checker.connectIfCrossed(interferenceGraph)) {
-            continue NEXT_VAR_PAIR;
+    void connect(int index1, int index2) {
+      edges[index1].set(index2);
+      edges[index2].set(index1);
+    }
+
+    /**
+     * Connects all the nodes among the given variables with each other and with themselves. The
+     * given set is modified.
+     */
+    void connectAll(BitSet live) {
+      live.and(nodes);
+      for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+        edges[i].or(live);
+      }
+    }
+
+    /**
+     * Greedily colors the graph: from the highest to the lowest degree, with ties broken by index,
+     * each node gets the lowest color that none of its neighbors colored before it has. A self loop
+     * counts twice in the degree of a node.
+     */
+    void color() {
+      final int[] degrees = new int[edges.length];
+      List<Integer> worklist = new ArrayList<>();
+      for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+        degrees[i] = edges[i].cardinality() + (edges[i].get(i) ? 1 : 0);
+        worklist.add(i);
+      }
+      Collections.sort(worklist, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer i1, Integer i2) {
+          int result = degrees[i2] - degrees[i1];
+          return result == 0 ? i1 - i2 : result;
+        }
+      });
+
+      colors = new int[edges.length];
+      Arrays.fill(colors, -1);
+      int count = 0;
+      BitSet usedColors = new BitSet();
+      for (int i : worklist) {
+        usedColors.clear();
+        BitSet neighbors = edges[i];
+        for (int j = neighbors.nextSetBit(0); j >= 0; j = neighbors.nextSetBit(j + 1)) {
+          if (colors[j] >= 0) {
+            usedColors.set(colors[j]);
           }
         }
+        colors[i] = usedColors.nextClearBit(0);
+        count = Math.max(count, colors[i] + 1);
       }
+      colorToVar = new Var[count];
+    }
+
+    /**
+     * Using the coloring as partitions, finds the variable that represents the partition of the
+     * given variable. The first to retrieve its partition will become its representative.
+     */
+    Var getPartitionSuperNode(int index) {
+      checkNotNull(colorToVar, "No coloring founded. color() should be called first.");
+      int color = colors[index];
+      if (colorToVar[color] == null) {
+        colorToVar[color] = vars.get(index);
+      }
+      return colorToVar[color];
     }
-    return interferenceGraph;
   }
 
   /**
@@ -398,14 +523,8 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
       }
     }
 
-    boolean connectIfCrossed(UndiGraph<Var, Void> interferenceGraph) {
-      if (callback1.crossed || callback2.crossed) {
-        Var v1 = callback1.def;
-        Var v2 = callback2.def;
-        interferenceGraph.connectIfNotFound(v1, null, v2);
-        return true;
-      }
-      return false;
+    boolean isCrossed() {
+      return callback1.crossed || callback2.crossed;
     }
   }
 
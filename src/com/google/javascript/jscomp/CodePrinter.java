@@ -20,7 +20,6 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import com.google.debugging.sourcemap.FilePosition;
 import com.google.javascript.jscomp.CodePrinter.Builder.CodeGeneratorFactory;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
@@ -29,6 +28,7 @@ import com.google.javascript.rhino.StaticSourceFile;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.TypeIRegistry;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
@@ -47,27 +47,46 @@ public final class CodePrinter {
   // potentially has a very different implementation to the pretty
   // version.
 
+  // The printers only keep the text that may still change (the current line, and for the compact
+  // printer the previous one) in memory. Everything before it is written to the output in chunks of
+  // at least this many characters, and the source mappings that it contains are passed on to the
+  // source map.
+  private static final int FLUSH_THRESHOLD = 8192;
+
   private abstract static class MappedCodePrinter extends CodeConsumer {
+    private final Appendable out;
+    private final SourceMap sourceMap;
     private final Deque<Mapping> mappings;
-    private final List<Mapping> allMappings;
+    // The mappings that have not been added to the source map yet, in the order they started.
+    private final Deque<Mapping> pendingMappings;
+    // The lengths of the lines that have been written out.
+    private final List<Integer> lineLengths;
     private final boolean createSrcMap;
     private final SourceMap.DetailLevel sourceMapDetailLevel;
+    // The text that has not been written out yet.
     protected final StringBuilder code = new StringBuilder(1024);
+    private int flushedLength = 0;
+    private int flushedLineLength = 0;
+    private char lastFlushedChar = '\0';
     protected final int lineLengthThreshold;
     protected int lineLength = 0;
     protected int lineIndex = 0;
 
     MappedCodePrinter(
+        Appendable out,
         int lineLengthThreshold,
-        boolean createSrcMap,
+        SourceMap sourceMap,
         SourceMap.DetailLevel sourceMapDetailLevel) {
       checkState(sourceMapDetailLevel != null);
+      this.out = out;
       this.lineLengthThreshold = lineLengthThreshold <= 0 ? Integer.MAX_VALUE :
         lineLengthThreshold;
-      this.createSrcMap = createSrcMap;
+      this.sourceMap = sourceMap;
+      this.createSrcMap = sourceMap != null;
       this.sourceMapDetailLevel = sourceMapDetailLevel;
       this.mappings = createSrcMap ? new ArrayDeque<Mapping>() : null;
-      this.allMappings = createSrcMap ? new ArrayList<Mapping>() : null;
+      this.pendingMappings = createSrcMap ? new ArrayDeque<Mapping>() : null;
+      this.lineLengths = createSrcMap ? new ArrayList<Integer>() : null;
     }
 
     /**
@@ -110,7 +129,7 @@ public final class CodePrinter {
         mapping.node = node;
         mapping.start = new FilePosition(line, index);
         mappings.push(mapping);
-        allMappings.add(mapping);
+        pendingMappings.add(mapping);
       }
     }
 
@@ -130,18 +149,66 @@ public final class CodePrinter {
     }
 
     /**
-     * Generates the source map from the given code consumer,
-     * appending the information it saved to the SourceMap
-     * object given.
+     * Writes out the text before the given position, which must not change anymore, once enough
+     * of it has accumulated.
      */
-    void generateSourceMap(String code, SourceMap map) {
+    protected final void maybeFlush(int position) {
+      if (position - flushedLength >= FLUSH_THRESHOLD) {
+        flush(position);
+      }
+    }
+
+    /** Writes out all the remaining text, and adds all the remaining mappings to the source map. */
+    void finish() {
+      flush(getLength());
+      if (createSrcMap) {
+        for (Mapping mapping : pendingMappings) {
+          addMapping(mapping);
+        }
+        pendingMappings.clear();
+      }
+    }
+
+    private void flush(int position) {
+      int end = position - flushedLength;
+      if (end == 0) {
+        return;
+      }
+      try {
+        out.append(code, 0, end);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
       if (createSrcMap) {
-        List<Integer> lineLengths = computeLineLengths(code);
-        for (Mapping mapping : allMappings) {
-          map.addMapping(
-              mapping.node, mapping.start, adjustEndPosition(lineLengths, mapping.end));
+        for (int i = 0; i < end; i++) {
+          if (code.charAt(i) == '\n') {
+            lineLengths.add(flushedLineLength);
+            flushedLineLength = 0;
+          } else {
+            flushedLineLength++;
+          }
         }
       }
+      lastFlushedChar = code.charAt(end - 1);
+      code.delete(0, end);
+      flushedLength = position;
+
+      // The mappings that end on a line that has been written out are final. They have to be added
+      // in order, so stop at the first one that is still open.
+      if (createSrcMap) {
+        while (!pendingMappings.isEmpty()) {
+          Mapping mapping = pendingMappings.peekFirst();
+          if (mapping.end == null || mapping.end.getLine() >= lineLengths.size()) {
+            break;
+          }
+          addMapping(pendingMappings.removeFirst());
+        }
+      }
+    }
+
+    private void addMapping(Mapping mapping) {
+      sourceMap.addMapping(
+          mapping.node, mapping.start, adjustEndPosition(lineLengths, mapping.end));
     }
 
     /**
@@ -153,7 +220,8 @@ public final class CodePrinter {
      */
     void reportLineCut(int lineIndex, int charIndex, boolean insertion) {
       if (createSrcMap) {
-        for (Mapping mapping : allMappings) {
+        // Mappings that have been added to the source map are all on earlier lines.
+        for (Mapping mapping : pendingMappings) {
           mapping.start = convertPosition(mapping.start, lineIndex, charIndex,
               insertion);
 
@@ -209,13 +277,24 @@ public final class CodePrinter {
       }
     }
 
-    public String getCode() {
-      return code.toString();
-    }
-
     @Override
     char getLastChar() {
-      return (code.length() > 0) ? code.charAt(code.length() - 1) : '\0';
+      return (code.length() > 0) ? code.charAt(code.length() - 1) : lastFlushedChar;
+    }
+
+    /** Returns the number of characters printed so far. */
+    protected final int getLength() {
+      return flushedLength + code.length();
+    }
+
+    /** Inserts a character at a position that has not been written out yet. */
+    protected final void insert(int position, char c) {
+      code.insert(position - flushedLength, c);
+    }
+
+    /** Replaces the character at a position that has not been written out yet. */
+    protected final void setCharAt(int position, char c) {
+      code.setCharAt(position - flushedLength, c);
     }
 
     protected final int getCurrentCharIndex() {
@@ -226,20 +305,6 @@ public final class CodePrinter {
       return lineIndex;
     }
 
-    /** Calculates length of each line in compiled code. */
-    private static ImmutableList<Integer> computeLineLengths(String code) {
-      ImmutableList.Builder<Integer> builder = ImmutableList.<Integer>builder();
-      int lineStartPos = 0;
-      int lineEndPos = code.indexOf('\n');
-      while (lineEndPos > -1) {
-        builder.add(lineEndPos - lineStartPos);
-        // Next line starts where current line ends + 1 to skip "\n" character.
-        lineStartPos = lineEndPos + 1;
-        lineEndPos = code.indexOf('\n', lineStartPos);
-      }
-      return builder.build();
-    }
-
     /**
      * Adjusts end position of a mapping. End position points to a column *after* the last character
      * that is covered by a mapping. And if it's end of the line there are 2 possibilities: either
@@ -283,17 +348,19 @@ public final class CodePrinter {
     private int indent = 0;
 
     /**
+     * @param out The output to write the code to.
      * @param lineLengthThreshold The length of a line after which we force
      *                            a newline when possible.
-     * @param createSourceMap Whether to generate source map data.
+     * @param sourceMap The source map to add the mappings to, or null.
      * @param sourceMapDetailLevel A filter to control which nodes get mapped
      *     into the source map.
      */
     private PrettyCodePrinter(
+        Appendable out,
         int lineLengthThreshold,
-        boolean createSourceMap,
+        SourceMap sourceMap,
         SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSourceMap, sourceMapDetailLevel);
+      super(out, lineLengthThreshold, sourceMap, sourceMapDetailLevel);
     }
 
     /**
@@ -368,6 +435,7 @@ public final class CodePrinter {
         code.append('\n');
         lineIndex++;
         lineLength = 0;
+        maybeFlush(getLength());
       }
     }
 
@@ -567,18 +635,18 @@ public final class CodePrinter {
     private int prevLineStartPosition = 0;
 
   /**
+   * @param out The output to write the code to.
    * @param lineBreak break the lines a bit more aggressively
    * @param lineLengthThreshold The length of a line after which we force
    *                            a newline when possible.
-   * @param createSrcMap Whether to gather source position
-   *                            mapping information when printing.
+   * @param sourceMap The source map to add the mappings to, or null.
    * @param sourceMapDetailLevel A filter to control which nodes get mapped into
    *     the source map.
    */
-    private CompactCodePrinter(boolean lineBreak,
+    private CompactCodePrinter(Appendable out, boolean lineBreak,
         boolean preferLineBreakAtEndOfFile, int lineLengthThreshold,
-        boolean createSrcMap, SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSrcMap, sourceMapDetailLevel);
+        SourceMap sourceMap, SourceMap.DetailLevel sourceMapDetailLevel) {
+      super(out, lineLengthThreshold, sourceMap, sourceMapDetailLevel);
       this.lineBreak = lineBreak;
       this.preferLineBreakAtEndOfFile = preferLineBreakAtEndOfFile;
     }
@@ -604,12 +672,13 @@ public final class CodePrinter {
     @Override
     void startNewLine() {
       if (lineLength > 0) {
-        prevCutPosition = code.length();
+        prevCutPosition = getLength();
         prevLineStartPosition = lineStartPosition;
         code.append('\n');
         lineLength = 0;
         lineIndex++;
-        lineStartPosition = code.length();
+        lineStartPosition = getLength();
+        maybeFlush(getFinalPosition());
       }
     }
 
@@ -625,9 +694,9 @@ public final class CodePrinter {
       // Since we are at a legal line break, can we upgrade the
       // preferred break position?  We prefer to break after a
       // semicolon rather than before it.
-      int len = code.length();
+      int len = getLength();
       if (preferredBreakPosition == len - 1) {
-        char ch = code.charAt(len - 1);
+        char ch = getLastChar();
         if (ch == ';') {
           preferredBreakPosition = len;
         }
@@ -646,13 +715,14 @@ public final class CodePrinter {
         if (preferredBreakPosition > lineStartPosition &&
             preferredBreakPosition < lineStartPosition + lineLength) {
           int position = preferredBreakPosition;
-          code.insert(position, '\n');
+          insert(position, '\n');
           prevCutPosition = position;
           reportLineCut(lineIndex, position - lineStartPosition, true);
           lineIndex++;
           lineLength -= (position - lineStartPosition);
           prevLineStartPosition = lineStartPosition;
           lineStartPosition = position + 1;
+          maybeFlush(getFinalPosition());
         } else {
           startNewLine();
         }
@@ -661,7 +731,7 @@ public final class CodePrinter {
 
     @Override
     void notePreferredLineBreak() {
-      preferredBreakPosition = code.length();
+      preferredBreakPosition = getLength();
     }
 
     @Override
@@ -678,9 +748,9 @@ public final class CodePrinter {
         // Shift the previous break to end of file by replacing it with a
         // <space> and adding a new break at end of file. Adding the space
         // handles cases like instanceof\nfoo. (it would be nice to avoid this)
-        code.setCharAt(prevCutPosition, ' ');
+        setCharAt(prevCutPosition, ' ');
         lineStartPosition = prevLineStartPosition;
-        lineLength = code.length() - lineStartPosition;
+        lineLength = getLength() - lineStartPosition;
         // We need +1 to account for the space added few lines above.
         int prevLineEndPosition = prevCutPosition - prevLineStartPosition + 1;
         reportLineCut(lineIndex, prevLineEndPosition, false);
@@ -696,6 +766,14 @@ public final class CodePrinter {
       }
     }
 
+    /**
+     * Returns the position before which the code no longer changes: line breaks are only moved
+     * on the current line, and at the end of the file on the previous one.
+     */
+    private int getFinalPosition() {
+      return preferLineBreakAtEndOfFile ? prevLineStartPosition : lineStartPosition;
+    }
+
   }
 
   public static final class Builder {
@@ -817,12 +895,35 @@ public final class CodePrinter {
      * Generates the source code and returns it.
      */
     public String build() {
+      StringBuilder sb = new StringBuilder(1024);
+      print(sb);
+      return sb.toString();
+    }
+
+    /**
+     * Generates the source code and writes it to {@code out} as it goes, rather than building it
+     * in memory first.
+     */
+    public void writeTo(Appendable out) throws IOException {
+      try {
+        print(out);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+
+    /**
+     * Generates the source code and writes it to {@code out}, wrapping any error it reports in an
+     * {@link UncheckedIOException}.
+     */
+    void print(Appendable out) {
       if (root == null) {
         throw new IllegalStateException(
             "Cannot build without root node being specified");
       }
 
-      return toSource(
+      toSource(
+          out,
           root,
           Format.fromOptions(options, outputTypes, prettyPrint),
           options,
@@ -854,8 +955,9 @@ public final class CodePrinter {
     }
   }
 
-  /** Converts a tree to JS code */
-  private static String toSource(
+  /** Converts a tree to JS code and writes it to the given output. */
+  private static void toSource(
+      Appendable out,
       Node root,
       Format outputFormat,
       CompilerOptions options,
@@ -867,18 +969,19 @@ public final class CodePrinter {
       CodeGeneratorFactory codeGeneratorFactory) {
     checkState(options.sourceMapDetailLevel != null);
 
-    boolean createSourceMap = (sourceMap != null);
     MappedCodePrinter mcp =
         outputFormat == Format.COMPACT
         ? new CompactCodePrinter(
+            out,
             lineBreak,
             options.preferLineBreakAtEndOfFile,
             options.lineLengthThreshold,
-            createSourceMap,
+            sourceMap,
             options.sourceMapDetailLevel)
         : new PrettyCodePrinter(
+            out,
             options.lineLengthThreshold,
-            createSourceMap,
+            sourceMap,
             options.sourceMapDetailLevel);
     CodeGenerator cg = codeGeneratorFactory.getCodeGenerator(outputFormat, mcp);
 
@@ -894,13 +997,6 @@ public final class CodePrinter {
 
     cg.add(root);
     mcp.endFile();
-
-    String code = mcp.getCode();
-
-    if (createSourceMap) {
-      mcp.generateSourceMap(code, sourceMap);
-    }
-
-    return code;
+    mcp.finish();
   }
 }
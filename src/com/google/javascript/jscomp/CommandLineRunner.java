@@ -670,6 +670,32 @@ public class CommandLineRunner extends
     private CompilerOptions.TracerMode tracerMode =
         CompilerOptions.TracerMode.OFF;
 
+    @Option(name = "--tracer_metrics_file",
+        hidden = true,
+        usage = "A file to which the duration, CPU time, allocations and AST size changes of "
+        + "each compiler pass are written, for tools that track the compile time. Turns on "
+        + "--tracer_mode=AST_SIZE if the tracer is off.")
+    private String tracerMetricsFile = null;
+
+    @Option(name = "--tracer_metrics_format",
+        hidden = true,
+        usage = "The format of --tracer_metrics_file. Options: JSON, CHROME_TRACE")
+    private PerformanceTracker.MetricsFormat tracerMetricsFormat =
+        PerformanceTracker.MetricsFormat.JSON;
+
+    @Option(name = "--ast_cache_dir",
+        hidden = true,
+        usage = "A directory in which to cache the parsed ASTs of the inputs. Inputs that have "
+        + "not changed since a previous compilation using the same directory are not parsed "
+        + "again.")
+    private String astCacheDir = null;
+
+    @Option(name = "--num_parallel_threads",
+        hidden = true,
+        usage = "The number of threads to use for the work that can be done in parallel, such as "
+        + "parsing the inputs and writing out the modules.")
+    private int numParallelThreads = 1;
+
     @Option(name = "--new_type_inf",
         handler = BooleanOptionHandler.class,
         usage = "Checks for type errors using the new type inference algorithm.")
@@ -1607,6 +1633,8 @@ public class CommandLineRunner extends
           .setOutputBundle(bundleFiles)
           .setSkipNormalOutputs(skipNormalOutputs)
           .setOutputModuleDependencies(flags.outputModuleDependencies)
+          .setTracerMetricsFile(flags.tracerMetricsFile)
+          .setTracerMetricsFormat(flags.tracerMetricsFormat)
           .setProcessCommonJSModules(flags.processCommonJsModules)
           .setModuleRoots(moduleRoots)
           .setTransformAMDToCJSModules(flags.transformAmdModules)
@@ -1795,6 +1823,15 @@ public class CommandLineRunner extends
 
     options.setPrintSourceAfterEachPass(flags.printSourceAfterEachPass);
     options.setTracerMode(flags.tracerMode);
+    if (flags.tracerMetricsFile != null && !flags.tracerMode.isOn()) {
+      // The metrics are collected by the tracer. AST_SIZE is the cheapest mode that still
+      // measures the AST size changes of each pass.
+      options.setTracerMode(CompilerOptions.TracerMode.AST_SIZE);
+    }
+    if (flags.astCacheDir != null) {
+      options.setAstCacheDirectory(flags.astCacheDir);
+    }
+    options.setNumParallelThreads(flags.numParallelThreads);
     options.setStrictModeInput(flags.strictModeInput);
     if (!flags.emitUseStrict) {
       options.setEmitUseStrict(false);
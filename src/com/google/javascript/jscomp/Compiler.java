@@ -54,6 +54,8 @@ import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.TypeIRegistry;
 import com.google.javascript.rhino.jstype.JSTypeRegistry;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -62,6 +64,7 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -249,6 +252,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
   private final CompilerExecutor compilerExecutor = createCompilerExecutor();
 
+  /** Parses inputs in parallel; created lazily and shared by all parse phases. */
+  private PrebuildAst prebuildAst = null;
+
   /**
    * Logger for the whole com.google.javascript.jscomp domain -
    * setting configuration for this logger affects all loggers
@@ -340,6 +346,10 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     moduleLoader = ModuleLoader.EMPTY;
 
+    if (options.astCacheDirectory != null) {
+      setAstCache(new AstCache(options.astCacheDirectory));
+    }
+
     reconcileOptionsWithGuards();
 
     // TODO(johnlenz): generally, the compiler should not be changing the options object
@@ -537,12 +547,18 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     inputSourceMaps.putAll(options.inputSourceMaps);
     // Create the source map if necessary.
     if (options.sourceMapOutputPath != null) {
-      sourceMap = options.sourceMapFormat.getInstance();
-      sourceMap.setPrefixMappings(options.sourceMapLocationMappings);
-      if (options.applyInputSourceMaps) {
-        sourceMap.setSourceFileMapping(this);
-      }
+      sourceMap = newSourceMap();
+    }
+  }
+
+  /** Creates an empty source map configured by the options. */
+  SourceMap newSourceMap() {
+    SourceMap map = options.sourceMapFormat.getInstance();
+    map.setPrefixMappings(options.sourceMapLocationMappings);
+    if (options.applyInputSourceMaps) {
+      map.setSourceFileMapping(this);
     }
+    return map;
   }
 
   private <T extends SourceFile> List<CompilerInput> makeExternInputs(List<T> externSources) {
@@ -1693,6 +1709,20 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
   }
 
+  /**
+   * Replaces the performance tracker with a new one, so that the metrics of the scripts hot-swapped
+   * next are kept apart from those of the earlier compilation or hot swaps.
+   */
+  void resetTracker() {
+    if (tracker != null) {
+      removeChangeHandler(tracker.getCodeChangeHandler());
+    }
+    maybeSetTracker();
+    if (tracker != null) {
+      tracker.recordInitialAstSize();
+    }
+  }
+
   //------------------------------------------------------------------------
   // Parsing
   //------------------------------------------------------------------------
@@ -1717,7 +1747,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     try {
       // Parse externs sources.
       if (options.numParallelThreads > 1) {
-        new PrebuildAst(this, options.numParallelThreads).prebuild(externs);
+        getPrebuildAst().prebuild(externs);
       }
       for (CompilerInput input : externs) {
         Node n = input.getAstRoot(this);
@@ -1802,7 +1832,26 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
         this.moduleLoader.setErrorHandler(this);
       }
 
-      orderInputs();
+      // Without dependency management every input is kept and ordering parses them all anyway
+      // (to look for @externs), so start parsing now and let ordering pick up the ASTs as they
+      // are done.
+      PrebuildAst.ParseBatch parseBatch = null;
+      if (options.numParallelThreads > 1 && !options.getDependencyOptions().needsManagement()) {
+        parseBatch = getPrebuildAst().start(inputs);
+      }
+
+      try {
+        Tracer orderTracer = newTracer(PassNames.ORDER_INPUTS);
+        try {
+          orderInputs();
+        } finally {
+          stopTracer(orderTracer, PassNames.ORDER_INPUTS);
+        }
+      } finally {
+        if (parseBatch != null && hasErrors()) {
+          parseBatch.cancel();
+        }
+      }
 
       // If in IDE mode, we ignore the error and keep going.
       if (hasErrors()) {
@@ -1811,7 +1860,18 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
       // Build the AST.
       if (options.numParallelThreads > 1) {
-        new PrebuildAst(this, options.numParallelThreads).prebuild(inputs);
+        Tracer awaitTracer = newTracer(PassNames.AWAIT_PARSED_INPUTS);
+        try {
+          if (parseBatch == null) {
+            parseBatch = getPrebuildAst().start(inputs);
+          }
+          if (!parseBatch.await()) {
+            // Parsing stopped on a halting error.
+            return null;
+          }
+        } finally {
+          stopTracer(awaitTracer, PassNames.AWAIT_PARSED_INPUTS);
+        }
       }
 
       for (CompilerInput input : inputs) {
@@ -1860,6 +1920,13 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
   }
 
+  private PrebuildAst getPrebuildAst() {
+    if (prebuildAst == null) {
+      prebuildAst = new PrebuildAst(this, options.numParallelThreads);
+    }
+    return prebuildAst;
+  }
+
   void orderInputsWithLargeStack() {
     runInCompilerThread(new Callable<Void>() {
       @Override
@@ -2135,7 +2202,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       }
     }
     if (options.numParallelThreads > 1) {
-      new PrebuildAst(this, options.numParallelThreads).prebuild(filteredInputs);
+      getPrebuildAst().prebuild(filteredInputs);
     }
     for (CompilerInput input : filteredInputs) {
       input.setCompiler(this);
@@ -2164,7 +2231,6 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   }
 
 
-
   /**
    * Allow subclasses to override the default CompileOptions object.
    */
@@ -2223,13 +2289,30 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    */
   @Override
   public String toSource() {
-    return runInCompilerThread(
-        new Callable<String>() {
+    CodeBuilder cb = new CodeBuilder();
+    toSource(cb);
+    return cb.toString();
+  }
+
+  /**
+   * Converts the main parse tree back to JS code and writes it to {@code out} as it is printed,
+   * without holding the whole output in memory.
+   */
+  public void writeSource(Appendable out) throws IOException {
+    try {
+      toSource(new CodeBuilder(out));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void toSource(final CodeBuilder cb) {
+    runInCompilerThread(
+        new Callable<Void>() {
           @Override
-          public String call() throws Exception {
+          public Void call() throws Exception {
             Tracer tracer = newTracer("toSource");
             try {
-              CodeBuilder cb = new CodeBuilder();
               if (jsRoot != null) {
                 int i = 0;
                 if (options.shouldPrintExterns()) {
@@ -2245,7 +2328,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
                   toSource(cb, i++, scriptNode);
                 }
               }
-              return cb.toString();
+              return null;
             } finally {
               stopTracer(tracer, "toSource");
             }
@@ -2283,28 +2366,63 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    * Converts the parse tree for a module back to JS code.
    */
   public String toSource(final JSModule module) {
-    return runInCompilerThread(new Callable<String>() {
+    CodeBuilder cb = new CodeBuilder();
+    toSource(cb, module);
+    return cb.toString();
+  }
+
+  /**
+   * Converts the parse tree for a module back to JS code and writes it to {@code out} as it is
+   * printed, without holding the whole output in memory.
+   */
+  public void writeSource(JSModule module, Appendable out) throws IOException {
+    try {
+      toSource(new CodeBuilder(out), module);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void toSource(final CodeBuilder cb, final JSModule module) {
+    runInCompilerThread(new Callable<Void>() {
       @Override
-      public String call() throws Exception {
-        List<CompilerInput> inputs = module.getInputs();
-        int numInputs = inputs.size();
-        if (numInputs == 0) {
-          return "";
-        }
-        CodeBuilder cb = new CodeBuilder();
-        for (int i = 0; i < numInputs; i++) {
-          Node scriptNode = inputs.get(i).getAstRoot(Compiler.this);
-          if (scriptNode == null) {
-            throw new IllegalArgumentException(
-                "Bad module: " + module.getName());
-          }
-          toSource(cb, i, scriptNode);
-        }
-        return cb.toString();
+      public Void call() throws Exception {
+        printModule(cb, module, sourceMap);
+        return null;
       }
     });
   }
 
+  /**
+   * Converts the parse tree for a module back to JS code and writes it to {@code out}, adding the
+   * mappings to the given source map.
+   *
+   * <p>Printing does not change the AST, so unlike the other methods converting it back to code,
+   * this one can be called for several modules at the same time. It does not switch to the
+   * compiler thread: the caller must run it on a thread with a stack as large as the compiler
+   * thread's.
+   */
+  void writeSource(JSModule module, @Nullable SourceMap sourceMap, Appendable out)
+      throws IOException {
+    try {
+      printModule(new CodeBuilder(out), module, sourceMap);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void printModule(CodeBuilder cb, JSModule module, @Nullable SourceMap sourceMap) {
+    List<CompilerInput> inputs = module.getInputs();
+    int numInputs = inputs.size();
+    for (int i = 0; i < numInputs; i++) {
+      Node scriptNode = inputs.get(i).getAstRoot(this);
+      if (scriptNode == null) {
+        throw new IllegalArgumentException(
+            "Bad module: " + module.getName());
+      }
+      printScript(cb, i, scriptNode, sourceMap);
+    }
+  }
 
   /**
    * Converts the parse tree for each input in a module back to JS code.
@@ -2351,60 +2469,64 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
         new Callable<Void>() {
           @Override
           public Void call() throws Exception {
-            if (options.printInputDelimiter) {
-              if ((cb.getLength() > 0) && !cb.endsWith("\n")) {
-                cb.append("\n"); // Make sure that the label starts on a new line
-              }
-              checkState(root.isScript());
+            printScript(cb, inputSeqNum, root, sourceMap);
+            return null;
+          }
+        });
+  }
 
-              String delimiter = options.inputDelimiter;
+  private void printScript(
+      CodeBuilder cb, int inputSeqNum, Node root, @Nullable SourceMap sourceMap) {
+    if (options.printInputDelimiter) {
+      if ((cb.getLength() > 0) && cb.getLastChar() != '\n') {
+        cb.append("\n"); // Make sure that the label starts on a new line
+      }
+      checkState(root.isScript());
 
-              String inputName = root.getInputId().getIdName();
-              String sourceName = root.getSourceFileName();
-              checkState(sourceName != null);
-              checkState(!sourceName.isEmpty());
+      String delimiter = options.inputDelimiter;
 
-              delimiter =
-                  delimiter
-                      .replace("%name%", Matcher.quoteReplacement(inputName))
-                      .replace("%num%", String.valueOf(inputSeqNum))
-                      .replace("%n%", "\n");
+      String inputName = root.getInputId().getIdName();
+      String sourceName = root.getSourceFileName();
+      checkState(sourceName != null);
+      checkState(!sourceName.isEmpty());
 
-              cb.append(delimiter).append("\n");
-            }
-            if (root.getJSDocInfo() != null) {
-              String license = root.getJSDocInfo().getLicense();
-              if (license != null && cb.addLicense(license)) {
-                cb.append("/*\n").append(license).append("*/\n");
-              }
-            }
+      delimiter =
+          delimiter
+              .replace("%name%", Matcher.quoteReplacement(inputName))
+              .replace("%num%", String.valueOf(inputSeqNum))
+              .replace("%n%", "\n");
 
-            // If there is a valid source map, then indicate to it that the current
-            // root node's mappings are offset by the given string builder buffer.
-            if (options.sourceMapOutputPath != null) {
-              sourceMap.setStartingPosition(cb.getLineIndex(), cb.getColumnIndex());
-            }
+      cb.append(delimiter).append("\n");
+    }
+    if (root.getJSDocInfo() != null) {
+      String license = root.getJSDocInfo().getLicense();
+      if (license != null && cb.addLicense(license)) {
+        cb.append("/*\n").append(license).append("*/\n");
+      }
+    }
 
-            // if LanguageMode is strict, only print 'use strict'
-            // for the first input file
-            String code = toSource(root, sourceMap, inputSeqNum == 0);
-            if (!code.isEmpty()) {
-              cb.append(code);
-
-              // In order to avoid parse ambiguity when files are concatenated
-              // together, all files should end in a semi-colon. Do a quick
-              // heuristic check if there's an obvious semi-colon already there.
-              int length = code.length();
-              char lastChar = code.charAt(length - 1);
-              char secondLastChar = length >= 2 ? code.charAt(length - 2) : '\0';
-              boolean hasSemiColon = lastChar == ';' || (lastChar == '\n' && secondLastChar == ';');
-              if (!hasSemiColon) {
-                cb.append(";");
-              }
-            }
-            return null;
-          }
-        });
+    // If there is a valid source map, then indicate to it that the current
+    // root node's mappings are offset by the given string builder buffer.
+    if (sourceMap != null) {
+      sourceMap.setStartingPosition(cb.getLineIndex(), cb.getColumnIndex());
+    }
+
+    // if LanguageMode is strict, only print 'use strict'
+    // for the first input file
+    int start = cb.getLength();
+    newCodePrinter(root, sourceMap, inputSeqNum == 0).print(cb);
+    int length = cb.getLength() - start;
+    if (length > 0) {
+      // In order to avoid parse ambiguity when files are concatenated
+      // together, all files should end in a semi-colon. Do a quick
+      // heuristic check if there's an obvious semi-colon already there.
+      char lastChar = cb.getLastChar();
+      char secondLastChar = length >= 2 ? cb.getSecondLastChar() : '\0';
+      boolean hasSemiColon = lastChar == ';' || (lastChar == '\n' && secondLastChar == ';');
+      if (!hasSemiColon) {
+        cb.append(";");
+      }
+    }
   }
 
   /**
@@ -2414,13 +2536,13 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   @Override
   public String toSource(Node n) {
     initCompilerOptionsIfTesting();
-    return toSource(n, null, true);
+    return newCodePrinter(n, null, true).build();
   }
 
   /**
-   * Generates JavaScript source code for an AST.
+   * Returns a printer of the JavaScript source code for an AST.
    */
-  private String toSource(Node n, SourceMap sourceMap, boolean firstOutput) {
+  private CodePrinter.Builder newCodePrinter(Node n, SourceMap sourceMap, boolean firstOutput) {
     CodePrinter.Builder builder = new CodePrinter.Builder(n);
     builder.setTypeRegistry(getTypeIRegistry());
     builder.setCompilerOptions(options);
@@ -2429,46 +2551,89 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     builder.setTagAsTypeSummary(
         firstOutput && !n.isFromExterns() && options.shouldGenerateTypedExterns());
     builder.setTagAsStrict(firstOutput && options.shouldEmitUseStrict());
-    return builder.build();
+    return builder;
   }
 
   /**
    * Stores a buffer of text to which more can be appended.  This is just like a
    * StringBuilder except that we also track the number of lines.
+   *
+   * <p>A builder can also pass the text on to another {@link Appendable} instead of keeping it, in
+   * which case {@link #toString} is empty and only the position information is tracked. Errors
+   * of the underlying output are reported as {@link UncheckedIOException}s.
    */
-  public static class CodeBuilder {
+  public static class CodeBuilder implements Appendable {
     private final StringBuilder sb = new StringBuilder();
+    private final Appendable out;
+    private int length = 0;
+    private char lastChar = '\0';
+    private char secondLastChar = '\0';
     private int lineCount = 0;
     private int colCount = 0;
     private final Set<String> uniqueLicenses = new HashSet<>();
 
+    public CodeBuilder() {
+      this.out = sb;
+    }
+
+    /** Creates a builder that writes the text to {@code out}. */
+    CodeBuilder(Appendable out) {
+      this.out = out;
+    }
+
     /** Removes all text, but leaves the line count unchanged. */
     void reset() {
+      checkState(out == sb, "Cannot reset text that has been written out");
       sb.setLength(0);
+      length = 0;
+      lastChar = '\0';
+      secondLastChar = '\0';
     }
 
     /** Appends the given string to the text buffer. */
-    CodeBuilder append(String str) {
-      sb.append(str);
+    @Override
+    public CodeBuilder append(CharSequence str) {
+      return append(str, 0, str.length());
+    }
 
-      // Adjust the line and column information for the new text.
-      int index = -1;
-      int lastIndex = index;
-      while ((index = str.indexOf('\n', index + 1)) >= 0) {
-        ++lineCount;
-        lastIndex = index;
+    @Override
+    public CodeBuilder append(CharSequence str, int start, int end) {
+      try {
+        out.append(str, start, end);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
       }
 
-      if (lastIndex == -1) {
-        // No new lines, append the new characters added.
-        colCount += str.length();
-      } else {
-        colCount = str.length() - (lastIndex + 1);
+      // Adjust the line and column information for the new text.
+      for (int i = start; i < end; i++) {
+        track(str.charAt(i));
       }
+      return this;
+    }
 
+    @Override
+    public CodeBuilder append(char c) {
+      try {
+        out.append(c);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      track(c);
       return this;
     }
 
+    private void track(char c) {
+      if (c == '\n') {
+        ++lineCount;
+        colCount = 0;
+      } else {
+        ++colCount;
+      }
+      secondLastChar = lastChar;
+      lastChar = c;
+      ++length;
+    }
+
     /** Returns all text in the text buffer. */
     @Override
     public String toString() {
@@ -2477,7 +2642,17 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     /** Returns the length of the text buffer. */
     public int getLength() {
-      return sb.length();
+      return length;
+    }
+
+    /** Returns the last character of the text, or 0 if there is none. */
+    char getLastChar() {
+      return lastChar;
+    }
+
+    /** Returns the second to last character of the text, or 0 if there is none. */
+    char getSecondLastChar() {
+      return secondLastChar;
     }
 
     /** Returns the (zero-based) index of the last line in the text buffer. */
@@ -2490,12 +2665,6 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       return colCount;
     }
 
-    /** Determines whether the text ends with the given suffix. */
-    boolean endsWith(String suffix) {
-      return (sb.length() > suffix.length())
-          && suffix.equals(sb.substring(sb.length() - suffix.length()));
-    }
-
     /** Adds a license and returns whether it is unique (has yet to be encountered). */
     boolean addLicense(String license) {
       return uniqueLicenses.add(license);
@@ -2622,27 +2791,33 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     this.phaseOptimizer = po;
   }
 
+  // The change reporting methods are synchronized, since function-scoped passes may report changes
+  // from several threads; see ChangeScopeRootPass.
+
   @Override
-  public int getChangeStamp() {
+  public synchronized int getChangeStamp() {
     return changeStamp;
   }
 
   @Override
-  List<Node> getChangedScopeNodesForPass(String passName) {
+  synchronized List<Node> getChangedScopeNodesForPass(String passName) {
     List<Node> changedScopeNodes = changeTimeline.getSince(passName);
     changeTimeline.mark(passName);
+    if (phaseOptimizer != null) {
+      phaseOptimizer.recordChangedScopeNodes(changedScopeNodes);
+    }
     return changedScopeNodes;
   }
 
   @Override
-  List<Node> getDeletedScopeNodesForPass(String passName) {
+  synchronized List<Node> getDeletedScopeNodesForPass(String passName) {
     List<Node> deletedScopeNodes = deleteTimeline.getSince(passName);
     deleteTimeline.mark(passName);
     return deletedScopeNodes;
   }
 
   @Override
-  public void incrementChangeStamp() {
+  public synchronized void incrementChangeStamp() {
     changeStamp++;
   }
 
@@ -2693,12 +2868,11 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   @Override
   public void reportChangeToChangeScope(Node changeScopeRoot) {
     checkState(changeScopeRoot.isScript() || changeScopeRoot.isFunction());
-    recordChange(changeScopeRoot);
-    notifyChangeHandlers();
+    recordChangeAndNotify(changeScopeRoot);
   }
 
   @Override
-  public void reportFunctionDeleted(Node n) {
+  public synchronized void reportFunctionDeleted(Node n) {
     checkState(n.isFunction());
     n.setDeleted(true);
     changeTimeline.remove(n);
@@ -2707,7 +2881,11 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
   @Override
   public void reportChangeToEnclosingScope(Node n) {
-    recordChange(getChangeScopeForNode(n));
+    recordChangeAndNotify(getChangeScopeForNode(n));
+  }
+
+  private synchronized void recordChangeAndNotify(Node changeScopeRoot) {
+    recordChange(changeScopeRoot);
     notifyChangeHandlers();
   }
 
@@ -2799,6 +2977,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     return new DiagnosticGroups();
   }
 
+  // Passes may report from several threads at once, see ChangeScopeRootPass. The warnings guard
+  // and the error manager are safe to use from several threads, so only the error handler of the
+  // options, which may not be, is called under a lock.
   @Override
   public void report(JSError error) {
     CheckLevel level = error.getDefaultLevel();
@@ -2811,8 +2992,11 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     if (level.isOn()) {
       initCompilerOptionsIfTesting();
-      if (getOptions().errorHandler != null) {
-        getOptions().errorHandler.report(level, error);
+      ErrorHandler errorHandler = getOptions().errorHandler;
+      if (errorHandler != null) {
+        synchronized (errorHandler) {
+          errorHandler.report(level, error);
+        }
       }
       errorManager.report(level, error);
     }
@@ -3328,7 +3512,12 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       if (logger.isLoggable(Level.INFO)) {
         logger.info("Performing HotSwap for pass " + passFactory.getName());
       }
-      pass.hotSwapScript(js, originalRoot);
+      Tracer tracer = newTracer(passFactory.getName());
+      try {
+        pass.hotSwapScript(js, originalRoot);
+      } finally {
+        stopTracer(tracer, passFactory.getName());
+      }
     }
   }
 
@@ -3577,9 +3766,22 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
   }
 
+  /** Identifies a stream written by {@link #saveState}. */
+  private static final int SAVED_STATE_MAGIC = 0x4a53434d; // "JSCM"
+
+  /**
+   * Version of the saved state format. Bump this whenever the serialized form of the compiler
+   * state (including Node, JSDocInfo and the type registry) changes incompatibly, so that stale
+   * state files are rejected with a clear error instead of failing somewhere in deserialization.
+   */
+  private static final int SAVED_STATE_VERSION = 3;
+
   @GwtIncompatible("ObjectOutputStream")
   public void saveState(OutputStream outputStream) throws IOException {
     // Do not close the outputstream, caller is responsible for closing it.
+    DataOutputStream header = new DataOutputStream(outputStream);
+    header.writeInt(SAVED_STATE_MAGIC);
+    header.writeInt(SAVED_STATE_VERSION);
     final ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
     runInCompilerThread(new Callable<Void>() {
       @Override
@@ -3589,6 +3791,8 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
         if (typeRegistry != null) {
           typeRegistry.saveContents(objectOutputStream);
         }
+        // Push out what the object stream buffered, the caller only flushes the underlying stream.
+        objectOutputStream.flush();
         stopTracer(tracer, "serializeCompilerState");
         return null;
       }
@@ -3614,6 +3818,15 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
 
     // Do not close the input stream, caller is responsible for closing it.
+    DataInputStream header = new DataInputStream(inputStream);
+    if (header.readInt() != SAVED_STATE_MAGIC) {
+      throw new IOException("Not a saved compiler state");
+    }
+    int version = header.readInt();
+    if (version != SAVED_STATE_VERSION) {
+      throw new IOException(
+          "Saved compiler state has version " + version + ", expected " + SAVED_STATE_VERSION);
+    }
     final ObjectInputStream objectInputStream = new CompilerObjectInputStream(inputStream);
     CompilerState compilerState =
         runInCompilerThread(
@@ -28,6 +28,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** Run the compiler in a separate thread with a larger stack */
 class CompilerExecutor {
@@ -69,6 +70,26 @@ class CompilerExecutor {
     });
   }
 
+  /**
+   * Returns a factory of daemon threads with as much stack as the compiler thread, for the pools
+   * that run parts of a compilation in parallel. The threads are named {@code namePrefix} followed
+   * by their number, starting at 1.
+   */
+  @GwtIncompatible("java.util.concurrent.ThreadFactory")
+  static ThreadFactory newDaemonThreadFactory(final String namePrefix) {
+    return new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(
+            null, r, namePrefix + count.incrementAndGet(), COMPILER_STACK_SIZE);
+        t.setDaemon(true);  // Do not prevent the JVM from exiting.
+        return t;
+      }
+    };
+  }
+
   void disableThreads() {
     useThreads = false;
   }
@@ -232,6 +232,18 @@ public class CompilerOptions implements Serializable {
    */
   boolean reportOTIErrorsUnderNTI = false;
 
+  /**
+   * The number of results of each kind of type operation (subtyping, join, meet) that NTI
+   * remembers once the types of the program are known, or 0 to recompute them every time.
+   */
+  int typeOperationCacheSize = 1 << 16;
+
+  /**
+   * The number of union types that NTI keeps a canonical instance of, or 0 to create a new
+   * instance every time.
+   */
+  int typeInternerSize = 1 << 16;
+
   /**
    * Run type checking natively on the subset of ES6 features that we are able to typecheck
    * natively, and then transpile them after NTI.
@@ -406,6 +418,18 @@ public class CompilerOptions implements Serializable {
     numParallelThreads = parallelism;
   }
 
+  /** Directory in which parsed ASTs are kept between compilations, or null to always parse. */
+  String astCacheDirectory = null;
+
+  /**
+   * Sets a directory in which to cache the ASTs of parsed inputs, keyed by a digest of their
+   * contents and of the parser configuration. Inputs that are unchanged since a previous
+   * compilation using the same directory are read back from the cache instead of being parsed.
+   */
+  public void setAstCacheDirectory(String directory) {
+    astCacheDirectory = directory;
+  }
+
   //--------------------------------
   // Optimizations
   //--------------------------------
@@ -464,6 +488,9 @@ public class CompilerOptions implements Serializable {
   /** Merge two variables together as one. */
   public boolean coalesceVariableNames;
 
+  /** Functions with this many variables or more are skipped by coalesceVariableNames. */
+  int coalesceVariableNamesMaxVariables;
+
   /** Move methods to a deeper module */
   public boolean crossModuleMethodMotion;
 
@@ -580,6 +607,15 @@ public class CompilerOptions implements Serializable {
    */
   int optimizationLoopMaxIterations;
 
+  /**
+   * If positive, a pass of the optimization loop whose last two runs each removed fewer AST nodes
+   * per millisecond than this is not run again in that loop. The runs are measured by the
+   * performance tracker, so this needs a {@link TracerMode} that tracks AST sizes. Runs that grow
+   * the AST do not count against a pass. This trades some code size for a faster build, and the
+   * output then depends on how fast the passes run.
+   */
+  double optimizationLoopMinYield;
+
   //--------------------------------
   // Renaming
   //--------------------------------
@@ -695,6 +731,9 @@ public class CompilerOptions implements Serializable {
    */
   VariableMap inputVariableMap;
 
+  /** What variable renaming found in each script of the previous compilation. */
+  RenameVarsCache renameVarsCache;
+
   /** Input property renaming map. */
   VariableMap inputPropertyMap;
 
@@ -1240,6 +1279,7 @@ public class CompilerOptions implements Serializable {
     // Optimizations
     foldConstants = false;
     coalesceVariableNames = false;
+    coalesceVariableNamesMaxVariables = LiveVariablesAnalysisEs6.MAX_VARIABLES_TO_ANALYZE;
     deadAssignmentElimination = false;
     inlineConstantVars = false;
     inlineFunctions = false;
@@ -2014,6 +2054,22 @@ public class CompilerOptions implements Serializable {
     this.useNewTypeInference = enable;
   }
 
+  /**
+   * Sets how many results of subtyping, join and meet NTI remembers for each kind of operation.
+   * Use 0 to turn the cache off.
+   */
+  public void setTypeOperationCacheSize(int typeOperationCacheSize) {
+    this.typeOperationCacheSize = typeOperationCacheSize;
+  }
+
+  /**
+   * Sets how many union types NTI keeps a canonical instance of, so that the types built from the
+   * same parts are shared. Use 0 to turn interning off.
+   */
+  public void setTypeInternerSize(int typeInternerSize) {
+    this.typeInternerSize = typeInternerSize;
+  }
+
   /**
    * @return true if either typechecker is ON.
    */
@@ -2237,6 +2293,15 @@ public class CompilerOptions implements Serializable {
     this.coalesceVariableNames = coalesceVariableNames;
   }
 
+  /**
+   * Sets the number of variables from which a function is too large for its variables to be
+   * coalesced. The cost of coalescing grows with the square of the number of variables.
+   */
+  public void setCoalesceVariableNamesMaxVariables(int maxVariables) {
+    checkArgument(maxVariables > 0);
+    this.coalesceVariableNamesMaxVariables = maxVariables;
+  }
+
   public void setCrossModuleMethodMotion(boolean crossModuleMethodMotion) {
     this.crossModuleMethodMotion = crossModuleMethodMotion;
   }
@@ -2316,6 +2381,10 @@ public class CompilerOptions implements Serializable {
     this.convertToDottedProperties = convertToDottedProperties;
   }
 
+  public void setOptimizationLoopMinYield(double optimizationLoopMinYield) {
+    this.optimizationLoopMinYield = optimizationLoopMinYield;
+  }
+
   public void setUseTypesForLocalOptimization(boolean useTypesForLocalOptimization) {
     this.useTypesForLocalOptimization = useTypesForLocalOptimization;
   }
@@ -2446,6 +2515,14 @@ public class CompilerOptions implements Serializable {
     this.inputVariableMap = inputVariableMap;
   }
 
+  /**
+   * Sets a cache that lets variable renaming skip the scripts that did not change since the
+   * previous compilation that used it.
+   */
+  public void setRenameVarsCache(RenameVarsCache renameVarsCache) {
+    this.renameVarsCache = renameVarsCache;
+  }
+
   public void setInputPropertyMap(VariableMap inputPropertyMap) {
     this.inputPropertyMap = inputPropertyMap;
   }
@@ -2859,6 +2936,7 @@ public class CompilerOptions implements Serializable {
             .add("checkTypes", checkTypes)
             .add("closurePass", closurePass)
             .add("coalesceVariableNames", coalesceVariableNames)
+            .add("coalesceVariableNamesMaxVariables", coalesceVariableNamesMaxVariables)
             .add("codingConvention", getCodingConvention())
             .add("collapseAnonymousFunctions", collapseAnonymousFunctions)
             .add("collapseObjectLiterals", collapseObjectLiterals)
@@ -2942,6 +3020,7 @@ public class CompilerOptions implements Serializable {
             .add("modulesToPrintAfterEachPassRegexList", modulesToPrintAfterEachPassRegexList)
             .add("moveFunctionDeclarations", moveFunctionDeclarations)
             .add("nameGenerator", nameGenerator)
+            .add("optimizationLoopMinYield", optimizationLoopMinYield)
             .add("optimizeArgumentsArray", optimizeArgumentsArray)
             .add("optimizeCalls", optimizeCalls)
             .add("outputCharset", outputCharset)
@@ -2988,6 +3067,7 @@ public class CompilerOptions implements Serializable {
                 renamePrefixNamespaceAssumeCrossModuleNames)
             .add("renamePrefixNamespace", renamePrefixNamespace)
             .add("renamePrefix", renamePrefix)
+            .add("renameVarsCache", renameVarsCache)
             .add("replaceIdGenerators", replaceIdGenerators)
             .add("replaceMessagesWithChromeI18n", replaceMessagesWithChromeI18n)
             .add("replaceStringsFunctionDescriptions", replaceStringsFunctionDescriptions)
@@ -3021,6 +3101,8 @@ public class CompilerOptions implements Serializable {
             .add("trustedStrings", trustedStrings)
             .add("tweakProcessing", getTweakProcessing())
             .add("tweakReplacements", getTweakReplacements())
+            .add("typeInternerSize", typeInternerSize)
+            .add("typeOperationCacheSize", typeOperationCacheSize)
             .add("useDebugLog", useDebugLog)
             .add("useNewTypeInference", getNewTypeInference())
             .add("emitUseStrict", emitUseStrict)
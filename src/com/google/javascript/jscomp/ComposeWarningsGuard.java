@@ -17,6 +17,8 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -26,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WarningsGuard that represents just a chain of other guards. For example we
@@ -74,6 +77,11 @@ public class ComposeWarningsGuard extends WarningsGuard {
   // The order that the guards are applied in.
   private final TreeSet<WarningsGuard> guards = new TreeSet<>(guardComparator);
 
+  // The guards in the order they are applied in, with each run of guards that only depend on the
+  // file and type of the errors replaced by one guard that caches their result. Built when first
+  // needed after a guard is added.
+  private transient volatile List<WarningsGuard> cachingGuards;
+
   public ComposeWarningsGuard(List<WarningsGuard> guards) {
     addGuards(guards);
   }
@@ -97,6 +105,7 @@ public class ComposeWarningsGuard extends WarningsGuard {
       guards.remove(guard);
       guards.add(guard);
     }
+    cachingGuards = null;
   }
 
   private void addGuards(Iterable<WarningsGuard> guards) {
@@ -107,7 +116,7 @@ public class ComposeWarningsGuard extends WarningsGuard {
 
   @Override
   public CheckLevel level(JSError error) {
-    for (WarningsGuard guard : guards) {
+    for (WarningsGuard guard : getCachingGuards()) {
       CheckLevel newLevel = guard.level(error);
       if (newLevel != null) {
         if (demoteErrors && newLevel == CheckLevel.ERROR) {
@@ -119,6 +128,40 @@ public class ComposeWarningsGuard extends WarningsGuard {
     return null;
   }
 
+  @Override
+  protected boolean dependsOnlyOnFileAndType() {
+    for (WarningsGuard guard : guards) {
+      if (!guard.dependsOnlyOnFileAndType()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private List<WarningsGuard> getCachingGuards() {
+    List<WarningsGuard> result = cachingGuards;
+    if (result == null) {
+      result = new ArrayList<>();
+      List<WarningsGuard> run = new ArrayList<>();
+      for (WarningsGuard guard : guards) {
+        if (guard.dependsOnlyOnFileAndType()) {
+          run.add(guard);
+        } else {
+          if (!run.isEmpty()) {
+            result.add(new CachingGuard(run));
+            run = new ArrayList<>();
+          }
+          result.add(guard);
+        }
+      }
+      if (!run.isEmpty()) {
+        result.add(new CachingGuard(run));
+      }
+      cachingGuards = result;
+    }
+    return result;
+  }
+
   @Override
   public boolean disables(DiagnosticGroup group) {
     nextSingleton:
@@ -203,4 +246,67 @@ public class ComposeWarningsGuard extends WarningsGuard {
   public String toString() {
     return Joiner.on(", ").join(guards);
   }
+
+  /**
+   * Applies a run of guards that only depend on the file and type of the errors, and remembers
+   * their result for each file and type, as most warnings of a large compilation are suppressed by
+   * path or by group. It can be used from several threads at once.
+   */
+  private static final class CachingGuard extends WarningsGuard {
+    private static final long serialVersionUID = 1L;
+
+    private final List<WarningsGuard> guards;
+    private final ConcurrentHashMap<CacheKey, Optional<CheckLevel>> levels =
+        new ConcurrentHashMap<>();
+
+    CachingGuard(List<WarningsGuard> guards) {
+      this.guards = guards;
+    }
+
+    @Override
+    public CheckLevel level(JSError error) {
+      CacheKey key = new CacheKey(error);
+      Optional<CheckLevel> level = levels.get(key);
+      if (level == null) {
+        level = Optional.absent();
+        for (WarningsGuard guard : guards) {
+          CheckLevel newLevel = guard.level(error);
+          if (newLevel != null) {
+            level = Optional.of(newLevel);
+            break;
+          }
+        }
+        levels.put(key, level);
+      }
+      return level.orNull();
+    }
+  }
+
+  private static final class CacheKey {
+    private final String sourceName;
+    private final DiagnosticType type;
+    private final CheckLevel defaultLevel;
+
+    CacheKey(JSError error) {
+      this.sourceName = error.sourceName;
+      this.type = error.getType();
+      this.defaultLevel = error.getDefaultLevel();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey other = (CacheKey) o;
+      return Objects.equal(sourceName, other.sourceName)
+          && type.equals(other.type)
+          && defaultLevel == other.defaultLevel;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(sourceName, type, defaultLevel);
+    }
+  }
 }
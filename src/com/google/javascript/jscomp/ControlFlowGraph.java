@@ -39,6 +39,11 @@ public class ControlFlowGraph<N> extends
 
   private final DiGraphNode<N, ControlFlowGraph.Branch> entry;
 
+  // The indexed forms of this graph in the node order of forward and of
+  // backward analyses, built on first use and dropped when the graph changes.
+  private IndexedControlFlowGraph<N> forwardIndex;
+  private IndexedControlFlowGraph<N> backwardIndex;
+
   /**
    * Constructor.
    */
@@ -49,6 +54,57 @@ public class ControlFlowGraph<N> extends
     this.entry = createDirectedGraphNode(entry);
   }
 
+  /**
+   * Returns the indexed form of this graph, with the nodes numbered in the
+   * order of {@link #getOptionalNodeComparator}. It is built once and shared
+   * by all the analyses of the graph in the same direction, until the graph
+   * is changed through {@link #connect} or {@link #disconnectInDirection}, or
+   * a node is added to it.
+   */
+  IndexedControlFlowGraph<N> getIndexedGraph(boolean isForward) {
+    if (isForward) {
+      if (forwardIndex == null) {
+        forwardIndex = IndexedControlFlowGraph.create(this, getOptionalNodeComparator(true));
+      }
+      return forwardIndex;
+    } else {
+      if (backwardIndex == null) {
+        backwardIndex = IndexedControlFlowGraph.create(this, getOptionalNodeComparator(false));
+      }
+      return backwardIndex;
+    }
+  }
+
+  private void dropIndexedGraphs() {
+    forwardIndex = null;
+    backwardIndex = null;
+  }
+
+  @Override
+  public LinkedDirectedGraphNode<N, Branch> createDirectedGraphNode(N nodeValue) {
+    dropIndexedGraphs();
+    return super.createDirectedGraphNode(nodeValue);
+  }
+
+  @Override
+  public void connect(N srcValue, Branch edgeValue, N destValue) {
+    dropIndexedGraphs();
+    super.connect(srcValue, edgeValue, destValue);
+  }
+
+  @Override
+  public void connect(
+      DiGraphNode<N, Branch> src, Branch edgeValue, DiGraphNode<N, Branch> dest) {
+    dropIndexedGraphs();
+    super.connect(src, edgeValue, dest);
+  }
+
+  @Override
+  public void disconnectInDirection(N srcValue, N destValue) {
+    dropIndexedGraphs();
+    super.disconnectInDirection(srcValue, destValue);
+  }
+
   /**
    * Gets the implicit return node.
    *
@@ -29,14 +29,12 @@ import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * A framework to help writing static program analysis. A subclass of
@@ -90,7 +88,14 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
 
   private final ControlFlowGraph<N> cfg;
   final JoinOp<L> joinOp;
-  protected final Set<DiGraphNode<N, Branch>> orderedWorkSet;
+
+  // The graph being analyzed, with its nodes numbered in the order in which
+  // they should be visited. Shared with the other analyses of the graph in
+  // the same direction.
+  private IndexedControlFlowGraph<N> indexedCfg;
+
+  // The ids of the nodes to visit; the lowest id is visited first.
+  private final BitSet workSet = new BitSet();
 
   /*
    * Feel free to increase this to a reasonable number if you are finding that
@@ -124,12 +129,6 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
   DataFlowAnalysis(ControlFlowGraph<N> targetCfg, JoinOp<L> joinOp) {
     this.cfg = targetCfg;
     this.joinOp = joinOp;
-    Comparator<DiGraphNode<N, Branch>> nodeComparator = cfg.getOptionalNodeComparator(isForward());
-    if (nodeComparator != null) {
-      this.orderedWorkSet = new TreeSet<>(nodeComparator);
-    } else {
-      this.orderedWorkSet = new LinkedHashSet<>();
-    }
   }
 
   /**
@@ -142,6 +141,14 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     return cfg;
   }
 
+  /**
+   * Returns the indexed form of the control flow graph used by the last call
+   * to {@link #analyze()}.
+   */
+  final IndexedControlFlowGraph<N> getIndexedCfg() {
+    return indexedCfg;
+  }
+
   /**
    * Returns the lattice element at the exit point.
    */
@@ -203,32 +210,48 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    */
   final void analyze(int maxSteps) {
     initialize();
+    solve(maxSteps);
+    if (isForward()) {
+      joinInputs(indexedCfg.getImplicitReturn());
+    }
+  }
+
+  /**
+   * Runs the work list set up by {@link #initialize()} until no flow state
+   * changes anymore.
+   *
+   * @param maxSteps Max number of nodes to visit.
+   */
+  protected void solve(int maxSteps) {
+    IndexedControlFlowGraph<N> graph = indexedCfg;
+    int implicitReturn = graph.getImplicitReturn();
     int step = 0;
-    while (!orderedWorkSet.isEmpty()) {
+    for (int curNode = workSet.nextSetBit(0); curNode >= 0;
+         curNode = workSet.nextSetBit(0)) {
       if (step > maxSteps) {
         throw new MaxIterationsExceededException(
             "Analysis did not terminate after " + maxSteps + " iterations");
       }
-      DiGraphNode<N, Branch> curNode = orderedWorkSet.iterator().next();
-      orderedWorkSet.remove(curNode);
+      workSet.clear(curNode);
       joinInputs(curNode);
       if (flow(curNode)) {
-        // If there is a change in the current node, we want to grab the list
-        // of nodes that this node affects.
-        List<DiGraphNode<N, Branch>> nextNodes = isForward() ?
-            cfg.getDirectedSuccNodes(curNode) :
-            cfg.getDirectedPredNodes(curNode);
-        for (DiGraphNode<N, Branch> nextNode : nextNodes) {
-          if (nextNode != cfg.getImplicitReturn()) {
-            orderedWorkSet.add(nextNode);
+        // If there is a change in the current node, we want to revisit the
+        // nodes that this node affects.
+        if (isForward()) {
+          for (int pos = graph.getSuccStart(curNode);
+               pos < graph.getSuccStart(curNode + 1); pos++) {
+            workSet.set(graph.getSucc(pos));
+          }
+        } else {
+          for (int pos = graph.getPredStart(curNode);
+               pos < graph.getPredStart(curNode + 1); pos++) {
+            workSet.set(graph.getPred(pos));
           }
         }
+        workSet.clear(implicitReturn);
       }
       step++;
     }
-    if (isForward()) {
-      joinInputs(getCfg().getImplicitReturn());
-    }
   }
 
   /**
@@ -245,29 +268,35 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    */
   abstract L createEntryLattice();
 
+  /**
+   * Gets the indexed form of the control flow graph and fills the work list
+   * with all its nodes except the implicit return.
+   */
+  final void initializeWorkSet() {
+    indexedCfg = cfg.getIndexedGraph(isForward());
+    workSet.clear();
+    workSet.set(0, indexedCfg.getImplicitReturn());
+  }
+
   /**
    * Initializes the work list and the control flow graph.
    */
   protected void initialize() {
-    // TODO(user): Calling clear doesn't deallocate the memory in a
-    // LinkedHashSet. Consider creating a new work set if we plan to repeatedly
-    // call analyze.
-    orderedWorkSet.clear();
+    initializeWorkSet();
     for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
       node.setAnnotation(new FlowState<>(createInitialEstimateLattice(),
           createInitialEstimateLattice()));
-      if (node != cfg.getImplicitReturn()) {
-        orderedWorkSet.add(node);
-      }
     }
   }
 
   /**
    * Performs a single flow through a node.
    *
+   * @param id The id of the node in {@link #getIndexedCfg()}.
    * @return {@code true} if the flow state differs from the previous state.
    */
-  protected boolean flow(DiGraphNode<N, Branch> node) {
+  protected boolean flow(int id) {
+    DiGraphNode<N, Branch> node = indexedCfg.getNode(id);
     FlowState<L> state = node.getAnnotation();
     if (isForward()) {
       L outBefore = state.out;
@@ -284,41 +313,44 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
    * Computes the new flow state at a given node's entry by merging the
    * output (input) lattice of the node's predecessor (successor).
    *
-   * @param node Node to compute new join.
+   * @param id The id of the node in {@link #getIndexedCfg()}.
    */
-  protected void joinInputs(DiGraphNode<N, Branch> node) {
-    FlowState<L> state = node.getAnnotation();
+  protected void joinInputs(int id) {
+    IndexedControlFlowGraph<N> graph = indexedCfg;
+    FlowState<L> state = graph.getNode(id).getAnnotation();
     if (isForward()) {
-      if (cfg.getEntry() == node) {
+      if (graph.getEntry() == id) {
         state.setIn(createEntryLattice());
       } else {
-        List<DiGraphNode<N, Branch>> inNodes = cfg.getDirectedPredNodes(node);
-        if (inNodes.size() == 1) {
-          FlowState<L> inNodeState = inNodes.get(0).getAnnotation();
+        int start = graph.getPredStart(id);
+        int end = graph.getPredStart(id + 1);
+        if (end - start == 1) {
+          FlowState<L> inNodeState = graph.getNode(graph.getPred(start)).getAnnotation();
           state.setIn(inNodeState.getOut());
-        } else if (inNodes.size() > 1) {
-          List<L> values = new ArrayList<>(inNodes.size());
-          for (DiGraphNode<N, Branch> currentNode : inNodes) {
-            FlowState<L> currentNodeState = currentNode.getAnnotation();
+        } else if (end - start > 1) {
+          List<L> values = new ArrayList<>(end - start);
+          for (int pos = start; pos < end; pos++) {
+            FlowState<L> currentNodeState = graph.getNode(graph.getPred(pos)).getAnnotation();
             values.add(currentNodeState.getOut());
           }
           state.setIn(joinOp.apply(values));
         }
       }
     } else {
-      List<DiGraphNode<N, Branch>> inNodes = cfg.getDirectedSuccNodes(node);
-      if (inNodes.size() == 1) {
-        DiGraphNode<N, Branch> inNode = inNodes.get(0);
-        if (inNode == cfg.getImplicitReturn()) {
+      int start = graph.getSuccStart(id);
+      int end = graph.getSuccStart(id + 1);
+      if (end - start == 1) {
+        int inNode = graph.getSucc(start);
+        if (inNode == graph.getImplicitReturn()) {
           state.setOut(createEntryLattice());
         } else {
-          FlowState<L> inNodeState = inNode.getAnnotation();
+          FlowState<L> inNodeState = graph.getNode(inNode).getAnnotation();
           state.setOut(inNodeState.getIn());
         }
-      } else if (inNodes.size() > 1) {
-        List<L> values = new ArrayList<>(inNodes.size());
-        for (DiGraphNode<N, Branch> currentNode : inNodes) {
-          FlowState<L> currentNodeState = currentNode.getAnnotation();
+      } else if (end - start > 1) {
+        List<L> values = new ArrayList<>(end - start);
+        for (int pos = start; pos < end; pos++) {
+          FlowState<L> currentNodeState = graph.getNode(graph.getSucc(pos)).getAnnotation();
           values.add(currentNodeState.getIn());
         }
         state.setOut(joinOp.apply(values));
@@ -402,19 +434,26 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
   abstract static class BranchedForwardDataFlowAnalysis
       <N, L extends LatticeElement> extends DataFlowAnalysis<N, L> {
 
+    // For each in edge of the indexed graph, the index of the corresponding
+    // output lattice of its source.
+    private int[] predOutIndices;
+
     @Override
     protected void initialize() {
-      orderedWorkSet.clear();
-      for (DiGraphNode<N, Branch> node : getCfg().getDirectedGraphNodes()) {
-        int outEdgeCount = getCfg().getOutEdges(node.getValue()).size();
-        List<L> outLattices = new ArrayList<>();
+      initializeWorkSet();
+      IndexedControlFlowGraph<N> graph = getIndexedCfg();
+      int nodeCount = graph.getNodeCount();
+      predOutIndices = new int[graph.getPredStart(nodeCount)];
+      for (int id = 0; id < nodeCount; id++) {
+        int outEdgeCount = graph.getSuccCount(id);
+        List<L> outLattices = new ArrayList<>(outEdgeCount);
         for (int i = 0; i < outEdgeCount; i++) {
           outLattices.add(createInitialEstimateLattice());
         }
-        node.setAnnotation(new BranchedFlowState<>(
+        graph.getNode(id).setAnnotation(new BranchedFlowState<>(
             createInitialEstimateLattice(), outLattices));
-        if (node != getCfg().getImplicitReturn()) {
-          orderedWorkSet.add(node);
+        for (int pos = graph.getPredStart(id); pos < graph.getPredStart(id + 1); pos++) {
+          predOutIndices[pos] = graph.getSuccIndex(graph.getPred(pos), id);
         }
       }
     }
@@ -453,7 +492,8 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     abstract List<L> branchedFlowThrough(N node, L input);
 
     @Override
-    protected final boolean flow(DiGraphNode<N, Branch> node) {
+    protected final boolean flow(int id) {
+      DiGraphNode<N, Branch> node = getIndexedCfg().getNode(id);
       BranchedFlowState<L> state = node.getAnnotation();
       List<L> outBefore = state.out;
       state.out = branchedFlowThrough(node.getValue(), state.in);
@@ -467,21 +507,21 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     }
 
     @Override
-    protected void joinInputs(DiGraphNode<N, Branch> node) {
-      BranchedFlowState<L> state = node.getAnnotation();
-      List<DiGraphNode<N, Branch>> predNodes =
-          getCfg().getDirectedPredNodes(node);
-      List<L> values = new ArrayList<>(predNodes.size());
+    protected void joinInputs(int id) {
+      IndexedControlFlowGraph<N> graph = getIndexedCfg();
+      BranchedFlowState<L> state = graph.getNode(id).getAnnotation();
+      int start = graph.getPredStart(id);
+      int end = graph.getPredStart(id + 1);
+      List<L> values = new ArrayList<>(end - start);
 
-      for (DiGraphNode<N, Branch> predNode : predNodes) {
-        BranchedFlowState<L> predNodeState = predNode.getAnnotation();
+      for (int pos = start; pos < end; pos++) {
+        BranchedFlowState<L> predNodeState = graph.getNode(graph.getPred(pos)).getAnnotation();
 
-        L in = predNodeState.out.get(
-            getCfg().getDirectedSuccNodes(predNode).indexOf(node));
+        L in = predNodeState.out.get(predOutIndices[pos]);
 
         values.add(in);
       }
-      if (getCfg().getEntry() == node) {
+      if (graph.getEntry() == id) {
         state.setIn(createEntryLattice());
       } else if (!values.isEmpty()) {
         state.setIn(joinOp.apply(values));
@@ -489,6 +529,138 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     }
   }
 
+  /**
+   * A data flow analysis whose lattice elements are sets of bits joined by
+   * union, and whose flow function is {@code (input - kill) + gen} for GEN and
+   * KILL sets that only depend on the node, like liveness or reaching
+   * definitions.
+   *
+   * <p>Such problems are solved without creating lattice elements: the GEN and
+   * KILL sets of every node are computed once, and the bits of the flow states
+   * are updated in place, visiting the nodes in reverse postorder of the flow
+   * direction so that most nodes only need to be visited once per loop around
+   * them.
+   *
+   * <p>The initial estimate must be the empty set.
+   */
+  abstract static class GenKillDataFlowAnalysis<N, L extends LatticeElement>
+      extends DataFlowAnalysis<N, L> {
+
+    GenKillDataFlowAnalysis(ControlFlowGraph<N> targetCfg, JoinOp<L> joinOp) {
+      super(targetCfg, joinOp);
+    }
+
+    /**
+     * Returns the bits of a lattice element. The analysis updates the bits of
+     * the flow states in place.
+     */
+    abstract BitSet getBits(L lattice);
+
+    /**
+     * Adds the bits generated by the given node to {@code gen} and the bits it
+     * kills to {@code kill}.
+     */
+    abstract void computeGenKill(N node, BitSet gen, BitSet kill);
+
+    @Override
+    final L flowThrough(N node, L input) {
+      BitSet gen = new BitSet();
+      BitSet kill = new BitSet();
+      computeGenKill(node, gen, kill);
+      L result = createInitialEstimateLattice();
+      BitSet bits = getBits(result);
+      bits.or(getBits(input));
+      bits.andNot(kill);
+      bits.or(gen);
+      return result;
+    }
+
+    @Override
+    protected void solve(int maxSteps) {
+      IndexedControlFlowGraph<N> graph = getIndexedCfg();
+      boolean forward = isForward();
+      int nodeCount = graph.getNodeCount();
+      int implicitReturn = graph.getImplicitReturn();
+
+      // The bits that flow into and out of each node, in the direction of the
+      // analysis, and the GEN and KILL sets of each node.
+      BitSet[] inputs = new BitSet[nodeCount];
+      BitSet[] outputs = new BitSet[nodeCount];
+      BitSet[] gens = new BitSet[nodeCount];
+      BitSet[] kills = new BitSet[nodeCount];
+      for (int id = 0; id < nodeCount; id++) {
+        FlowState<L> state = graph.getNode(id).getAnnotation();
+        inputs[id] = getBits(forward ? state.getIn() : state.getOut());
+        outputs[id] = getBits(forward ? state.getOut() : state.getIn());
+        if (id != implicitReturn) {
+          gens[id] = new BitSet();
+          kills[id] = new BitSet();
+          computeGenKill(graph.getNode(id).getValue(), gens[id], kills[id]);
+        }
+      }
+      BitSet entryBits = getBits(createEntryLattice());
+      if (!forward) {
+        // The exit state of the function flows backward from the implicit
+        // return.
+        outputs[implicitReturn].or(entryBits);
+      }
+
+      int[] order = graph.getReversePostOrder(forward);
+      int[] ranks = new int[nodeCount];
+      for (int rank = 0; rank < nodeCount; rank++) {
+        ranks[order[rank]] = rank;
+      }
+      BitSet workSet = new BitSet(nodeCount);
+      workSet.set(0, nodeCount);
+      workSet.clear(ranks[implicitReturn]);
+
+      BitSet newOutput = new BitSet();
+      int step = 0;
+      for (int rank = workSet.nextSetBit(0); rank >= 0;
+           rank = workSet.nextSetBit(0)) {
+        if (step > maxSteps) {
+          throw new MaxIterationsExceededException(
+              "Analysis did not terminate after " + maxSteps + " iterations");
+        }
+        workSet.clear(rank);
+        int id = order[rank];
+
+        // Join the outputs of the nodes that flow into this one.
+        BitSet input = inputs[id];
+        int start = forward ? graph.getPredStart(id) : graph.getSuccStart(id);
+        int end = forward ? graph.getPredStart(id + 1) : graph.getSuccStart(id + 1);
+        if (forward && id == graph.getEntry()) {
+          input.clear();
+          input.or(entryBits);
+        } else if (end > start) {
+          input.clear();
+          for (int pos = start; pos < end; pos++) {
+            input.or(outputs[forward ? graph.getPred(pos) : graph.getSucc(pos)]);
+          }
+        }
+
+        newOutput.clear();
+        newOutput.or(input);
+        newOutput.andNot(kills[id]);
+        newOutput.or(gens[id]);
+        BitSet output = outputs[id];
+        if (!newOutput.equals(output)) {
+          output.clear();
+          output.or(newOutput);
+          start = forward ? graph.getSuccStart(id) : graph.getPredStart(id);
+          end = forward ? graph.getSuccStart(id + 1) : graph.getPredStart(id + 1);
+          for (int pos = start; pos < end; pos++) {
+            int next = forward ? graph.getSucc(pos) : graph.getPred(pos);
+            if (next != implicitReturn) {
+              workSet.set(ranks[next]);
+            }
+          }
+        }
+        step++;
+      }
+    }
+  }
+
   /**
    * The in and out states of a node.
    *
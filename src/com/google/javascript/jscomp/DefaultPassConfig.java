@@ -2840,7 +2840,8 @@ public final class DefaultPassConfig extends PassConfig {
       new PassFactory(PassNames.COALESCE_VARIABLE_NAMES, true) {
         @Override
         protected CompilerPass create(AbstractCompiler compiler) {
-          return new CoalesceVariableNames(compiler, options.generatePseudoNames);
+          return new CoalesceVariableNames(
+              compiler, options.generatePseudoNames, options.coalesceVariableNamesMaxVariables);
         }
 
         @Override
@@ -3147,6 +3148,7 @@ public final class DefaultPassConfig extends PassConfig {
         reservedChars,
         reservedNames,
         options.nameGenerator);
+    rn.setCache(options.renameVarsCache);
     rn.process(externs, root);
     return rn.getVariableMap();
   }
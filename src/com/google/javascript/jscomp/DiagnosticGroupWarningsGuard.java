@@ -37,6 +37,12 @@ public class DiagnosticGroupWarningsGuard extends WarningsGuard {
     return group.matches(error) ? level : null;
   }
 
+  @Override
+  protected boolean dependsOnlyOnFileAndType() {
+    // Subclasses may override level() to look at more than the group of the error.
+    return getClass() == DiagnosticGroupWarningsGuard.class;
+  }
+
   @Override
   public boolean disables(DiagnosticGroup otherGroup) {
     return !level.isOn() && group.isSubGroup(otherGroup);
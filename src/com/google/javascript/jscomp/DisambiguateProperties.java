@@ -25,8 +25,10 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
+import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.NodeTraversal.AbstractScopedCallback;
 import com.google.javascript.jscomp.graph.StandardUnionFind;
 import com.google.javascript.jscomp.graph.UnionFind;
@@ -45,6 +47,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -133,25 +136,43 @@ class DisambiguateProperties implements CompilerPass {
    */
   private final Map<String, CheckLevel> propertiesToErrorFor;
 
+  // The scripts are searched in parallel. Looking a type up can initialize parts
+  // of it lazily, like the prototype of a function type and the subtypes of its
+  // superclass, so the searches walk the prototype chains and subtypes of types,
+  // and fill the caches below, while holding this lock.
+  private final Object typeLock = new Object();
+
   // Use this cache to call FunctionTypeI#getImplementedInterfaces
   // or FunctionTypeI#getExtendedInterfaces only once per constructor.
+  // Guarded by typeLock.
   private Map<FunctionTypeI, Iterable<ObjectTypeI>> ancestorInterfaces;
 
-  // Cache calls to getTypeWithProperty.
-  private Map<String, IdentityHashMap<TypeI, ObjectTypeI>> gtwpCache;
+  // Cache calls to getTypeWithProperty. Read without typeLock, so each map of
+  // types is also guarded by itself.
+  private ConcurrentHashMap<String, IdentityHashMap<TypeI, ObjectTypeI>> gtwpCache;
 
   private ObjectTypeI gtwpCacheGet(String field, TypeI type) {
     IdentityHashMap<TypeI, ObjectTypeI> m = gtwpCache.get(field);
-    return m == null ? null : m.get(type);
+    if (m == null) {
+      return null;
+    }
+    synchronized (m) {
+      return m.get(type);
+    }
   }
 
   private void gtwpCachePut(String field, TypeI type, ObjectTypeI top) {
     IdentityHashMap<TypeI, ObjectTypeI> m = gtwpCache.get(field);
     if (m == null) {
       m = new IdentityHashMap<>();
-      gtwpCache.put(field, m);
+      IdentityHashMap<TypeI, ObjectTypeI> existing = gtwpCache.putIfAbsent(field, m);
+      if (existing != null) {
+        m = existing;
+      }
+    }
+    synchronized (m) {
+      checkState(null == m.put(type, top));
     }
-    checkState(null == m.put(type, top));
   }
 
   private class Property {
@@ -321,6 +342,36 @@ class DisambiguateProperties implements CompilerPass {
       }
       return true;
     }
+
+    /**
+     * Adds what the search of one script found about this property. The
+     * equivalence classes do not depend on the order of the unions, so merging
+     * the scripts in order gives the classes of a single traversal.
+     */
+    void addScriptProperty(Property scriptProperty) {
+      if (skipRenaming) {
+        return;
+      }
+      if (scriptProperty.skipRenaming) {
+        invalidate();
+        return;
+      }
+      if (scriptProperty.types != null) {
+        for (Set<TypeI> equivalenceClass : scriptProperty.types.allEquivalenceClasses()) {
+          TypeI first = null;
+          for (TypeI type : equivalenceClass) {
+            if (first == null) {
+              first = type;
+              getTypes().add(type);
+            } else {
+              getTypes().union(first, type);
+            }
+          }
+        }
+      }
+      typesToSkip.addAll(scriptProperty.typesToSkip);
+      rootTypesByNode.putAll(scriptProperty.rootTypesByNode);
+    }
   }
 
   private final Map<String, Property> properties = new HashMap<>();
@@ -351,12 +402,21 @@ class DisambiguateProperties implements CompilerPass {
   public void process(Node externs, Node root) {
     checkState(compiler.getLifeCycleStage() == LifeCycleStage.NORMALIZED);
     this.ancestorInterfaces = new HashMap<>();
-    this.gtwpCache = new HashMap<>();
+    this.gtwpCache = new ConcurrentHashMap<>();
     // Gather names of properties in externs; these properties can't be renamed.
     NodeTraversal.traverseEs6(compiler, externs, new FindExternProperties());
     // Look at each unquoted property access and decide if that property will
-    // be renamed.
-    NodeTraversal.traverseEs6(compiler, root, new FindRenameableProperties());
+    // be renamed. The scripts are searched in parallel, each into its own
+    // properties, which are then merged in the order of the scripts.
+    List<FindRenameableProperties> scriptSearches = new ArrayList<>(root.getChildCount());
+    for (int i = 0; i < root.getChildCount(); i++) {
+      scriptSearches.add(new FindRenameableProperties());
+    }
+    ParallelScriptTraversal.traverse(
+        compiler, root, compiler.getOptions().numParallelThreads, scriptSearches);
+    for (FindRenameableProperties scriptSearch : scriptSearches) {
+      scriptSearch.mergeIntoProperties();
+    }
     // Do the actual renaming.
     renameProperties();
   }
@@ -406,10 +466,59 @@ class DisambiguateProperties implements CompilerPass {
   }
 
   /**
-   * Traverses the tree, building a map from field names to Nodes for all
-   * fields that can be renamed.
+   * Traverses a script, building a map from field names to Nodes for all
+   * fields that can be renamed. The map starts out empty, except that the
+   * fields invalidated by the externs stay invalidated, and is merged into
+   * the properties of the pass once all the scripts have been searched.
    */
-  private class FindRenameableProperties extends AbstractScopedCallback {
+  private class FindRenameableProperties extends AbstractPostOrderCallback {
+    /** The properties referenced from this script. */
+    private final Map<String, Property> scriptProperties = new HashMap<>();
+
+    /**
+     * The errors found in this script, in traversal order. Errors about the
+     * invalidation of a property are keyed by the name of the property.
+     */
+    private final List<Map.Entry<String, JSError>> scriptErrors = new ArrayList<>();
+
+    private Property getScriptProperty(String name) {
+      Property prop = scriptProperties.get(name);
+      if (prop == null) {
+        prop = new Property(name);
+        Property externProp = properties.get(name);
+        if (externProp != null && externProp.skipRenaming) {
+          prop.invalidate();
+        }
+        scriptProperties.put(name, prop);
+      }
+      return prop;
+    }
+
+    private void report(JSError error) {
+      scriptErrors.add(Maps.<String, JSError>immutableEntry(null, error));
+    }
+
+    private void reportInvalidation(String name, JSError error) {
+      scriptErrors.add(Maps.immutableEntry(name, error));
+    }
+
+    /**
+     * Reports the errors of this script and adds its properties to those of
+     * the pass. This must run on the compiler thread, after the searches of the
+     * previous scripts have been merged: a property invalidated by a previous
+     * script is not reported again, as in a single traversal.
+     */
+    void mergeIntoProperties() {
+      for (Map.Entry<String, JSError> error : scriptErrors) {
+        if (error.getKey() == null || !getProperty(error.getKey()).skipRenaming) {
+          compiler.report(error.getValue());
+        }
+      }
+      for (Property scriptProperty : scriptProperties.values()) {
+        getProperty(scriptProperty.name).addScriptProperty(scriptProperty);
+      }
+    }
+
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
       if (n.isGetProp()) {
@@ -424,7 +533,7 @@ class DisambiguateProperties implements CompilerPass {
     private void handleGetProp(NodeTraversal t, Node n) {
       String name = n.getLastChild().getString();
       TypeI type = getType(n.getFirstChild());
-      Property prop = getProperty(name);
+      Property prop = getScriptProperty(name);
       if (!prop.scheduleRenaming(n.getLastChild(), processProperty(t, prop, type, null))
           && propertiesToErrorFor.containsKey(name)) {
         String suggestion = "";
@@ -443,7 +552,7 @@ class DisambiguateProperties implements CompilerPass {
             suggestion += Joiner.on("\n").join(errors);
           }
         }
-        compiler.report(JSError.make(n, propertiesToErrorFor.get(name),
+        reportInvalidation(name, JSError.make(n, propertiesToErrorFor.get(name),
                 Warnings.INVALIDATION, name, String.valueOf(type), n.toString(),
                 suggestion));
       }
@@ -466,12 +575,12 @@ class DisambiguateProperties implements CompilerPass {
         // We should never see a mix of numbers and strings.
         String name = child.getString();
         TypeI objlitType = getType(n);
-        Property prop = getProperty(name);
+        Property prop = getScriptProperty(name);
         if (!prop.scheduleRenaming(child, processProperty(t, prop, objlitType, null))) {
           // TODO(user): It doesn't look like the user can do much in this
           // case right now.
           if (propertiesToErrorFor.containsKey(name)) {
-            compiler.report(JSError.make(child, propertiesToErrorFor.get(name),
+            reportInvalidation(name, JSError.make(child, propertiesToErrorFor.get(name),
                 Warnings.INVALIDATION, name, String.valueOf(objlitType), n.toString(), ""));
           }
         }
@@ -497,7 +606,7 @@ class DisambiguateProperties implements CompilerPass {
         NodeTraversal t, Node call, String renameFunctionName) {
       int childCount = call.getChildCount();
       if (childCount != 2 && childCount != 3) {
-        compiler.report(
+        report(
             JSError.make(
                 call,
                 Warnings.INVALID_RENAME_FUNCTION,
@@ -507,7 +616,7 @@ class DisambiguateProperties implements CompilerPass {
       }
 
       if (!call.getSecondChild().isString()) {
-        compiler.report(
+        report(
             JSError.make(
                 call,
                 Warnings.INVALID_RENAME_FUNCTION,
@@ -519,7 +628,7 @@ class DisambiguateProperties implements CompilerPass {
       String propName = call.getSecondChild().getString();
 
       if (propName.contains(".")) {
-        compiler.report(
+        report(
             JSError.make(
                 call,
                 Warnings.INVALID_RENAME_FUNCTION,
@@ -530,7 +639,7 @@ class DisambiguateProperties implements CompilerPass {
 
       Node obj = call.getChildAtIndex(2);
       TypeI type = getType(obj);
-      Property prop = getProperty(propName);
+      Property prop = getScriptProperty(propName);
       if (!prop.scheduleRenaming(call.getSecondChild(), processProperty(t, prop, type, null))
           && propertiesToErrorFor.containsKey(propName)) {
         String suggestion = "";
@@ -550,7 +659,8 @@ class DisambiguateProperties implements CompilerPass {
           }
         }
 
-        compiler.report(
+        reportInvalidation(
+            propName,
             JSError.make(
                 call,
                 propertiesToErrorFor.get(propName),
@@ -576,7 +686,7 @@ class DisambiguateProperties implements CompilerPass {
         }
 
         String propName = key.getString();
-        Property prop = getProperty(propName);
+        Property prop = getScriptProperty(propName);
         prop.scheduleRenaming(key, processProperty(t, prop, type, null));
       }
     }
@@ -775,13 +885,15 @@ class DisambiguateProperties implements CompilerPass {
   private Set<TypeI> getTypesToSkipForTypeNonUnion(TypeI type) {
     Set<TypeI> types = new HashSet<>();
     TypeI skipType = type;
-    while (skipType != null) {
-      types.add(skipType);
-      ObjectTypeI objSkipType = skipType.toMaybeObjectType();
-      if (objSkipType != null) {
-        skipType = objSkipType.getPrototypeObject();
-      } else {
-        break;
+    synchronized (typeLock) {
+      while (skipType != null) {
+        types.add(skipType);
+        ObjectTypeI objSkipType = skipType.toMaybeObjectType();
+        if (objSkipType != null) {
+          skipType = objSkipType.getPrototypeObject();
+        } else {
+          break;
+        }
       }
     }
     return types;
@@ -808,8 +920,10 @@ class DisambiguateProperties implements CompilerPass {
       FunctionTypeI constructor = objType != null ? objType.getConstructor() : null;
       if (constructor != null && constructor.isInterface()) {
         List<TypeI> list = new ArrayList<>();
-        for (FunctionTypeI impl : constructor.getDirectSubTypes()) {
-          list.add(impl.getInstanceType());
+        synchronized (typeLock) {
+          for (FunctionTypeI impl : constructor.getDirectSubTypes()) {
+            list.add(impl.getInstanceType());
+          }
         }
         return list.isEmpty() ? null : list;
       } else {
@@ -833,29 +947,39 @@ class DisambiguateProperties implements CompilerPass {
       return foundType.equals(BOTTOM_OBJECT) ? null : foundType;
     }
 
-    if (type.isEnumElement()) {
-      foundType = getTypeWithProperty(field, type.getEnumeratedTypeOfEnumElement());
+    synchronized (typeLock) {
+      // Another script may have looked the type up while this one waited.
+      foundType = gtwpCacheGet(field, type);
+      if (foundType != null) {
+        return foundType.equals(BOTTOM_OBJECT) ? null : foundType;
+      }
+      foundType = findTypeWithProperty(field, type);
       gtwpCachePut(field, type, foundType == null ? BOTTOM_OBJECT : foundType);
       return foundType;
     }
+  }
+
+  /** Computes getTypeWithProperty. The caller must hold typeLock. */
+  private ObjectTypeI findTypeWithProperty(String field, TypeI type) {
+    if (type.isEnumElement()) {
+      return getTypeWithProperty(field, type.getEnumeratedTypeOfEnumElement());
+    }
 
     if (!type.isObjectType()) {
       if (type.isBoxableScalar()) {
-        foundType = getTypeWithProperty(field, type.autobox());
-        gtwpCachePut(field, type, foundType == null ? BOTTOM_OBJECT : foundType);
-        return foundType;
+        return getTypeWithProperty(field, type.autobox());
       } else {
-        gtwpCachePut(field, type, BOTTOM_OBJECT);
         return null;
       }
     }
 
     // Ignore the prototype itself at all times.
     if ("prototype".equals(field)) {
-      gtwpCachePut(field, type, BOTTOM_OBJECT);
       return null;
     }
 
+    ObjectTypeI foundType = null;
+
     // We look up the prototype chain to find the highest place (if any) that
     // this appears.  This will make references to overridden properties look
     // like references to the initial property, so they are renamed alike.
@@ -900,7 +1024,6 @@ class DisambiguateProperties implements CompilerPass {
       foundType = foundType.getLegacyResolvedType().toMaybeObjectType();
     }
 
-    gtwpCachePut(field, type, foundType == null ? BOTTOM_OBJECT : foundType);
     return foundType;
   }
 
@@ -925,10 +1048,13 @@ class DisambiguateProperties implements CompilerPass {
    * And it made the code harder to understand, so we don't do it.
    */
   private void recordInterfaces(FunctionTypeI constructor, TypeI relatedType, Property p) {
-    Iterable<ObjectTypeI> interfaces = ancestorInterfaces.get(constructor);
-    if (interfaces == null) {
-      interfaces = constructor.getAncestorInterfaces();
-      ancestorInterfaces.put(constructor, interfaces);
+    Iterable<ObjectTypeI> interfaces;
+    synchronized (typeLock) {
+      interfaces = ancestorInterfaces.get(constructor);
+      if (interfaces == null) {
+        interfaces = constructor.getAncestorInterfaces();
+        ancestorInterfaces.put(constructor, interfaces);
+      }
     }
     for (ObjectTypeI itype : interfaces) {
       TypeI top = getTypeWithProperty(p.name, itype);
@@ -97,6 +97,9 @@ public class GlobalTypeInfo implements TypeIRegistry {
     this.allPropertyNames.add("prototype");
     this.unknownTypeNames = unknownTypeNames;
     this.commonTypes = JSTypes.init(inCompatibilityMode);
+    if (compiler.getOptions().typeInternerSize > 0) {
+      this.commonTypes.startInterningTypes(compiler.getOptions().typeInternerSize);
+    }
     this.typeParser = new JSTypeCreatorFromJSDoc(
         this.getCommonTypes(),
         compiler.getCodingConvention(),
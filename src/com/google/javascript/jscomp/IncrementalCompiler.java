@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.javascript.rhino.InputId;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a checks-only compilation in memory and brings it up to date when inputs change, for
+ * tools such as IDEs and file watchers that need the diagnostics of an edit quickly.
+ *
+ * <p>After an initial full compilation, {@link #update} only parses the inputs that changed and
+ * reruns the checks on them through the hot-swap passes ({@link Compiler#replaceScript}). The
+ * checks are also rerun on the inputs that {@code goog.require} a namespace that a changed input
+ * provides or used to provide, directly or transitively, since their diagnostics can depend on
+ * it. The inputs are rechecked in the order of the module graph, so that an input is rechecked
+ * after the inputs it depends on. The ASTs, scopes and types of all the other inputs are reused.
+ *
+ * <p>This class is thread-safe: updates are serialized.
+ */
+public final class IncrementalCompiler {
+  private final CompilerOptions options;
+  private final Compiler compiler;
+
+  // The current version of every input, by name.
+  private final Map<String, SourceFile> sources = new LinkedHashMap<>();
+
+  private boolean compiled = false;
+
+  /**
+   * @param options the options of the compilation, which must be checks-only and allow
+   *     hot-swapping inputs
+   */
+  public IncrementalCompiler(CompilerOptions options) {
+    checkArgument(options.checksOnly, "Incremental compilations must be checks-only");
+    checkArgument(
+        options.allowsHotswapReplaceScript(),
+        "Incremental compilations must allow the hot-swapping of inputs");
+    this.options = options;
+    this.compiler = new Compiler();
+  }
+
+  /** Returns the compiler holding the current state of the compilation. */
+  public Compiler getCompiler() {
+    return compiler;
+  }
+
+  /** Runs the initial compilation of the given inputs. */
+  public synchronized Result compile(List<SourceFile> externs, List<SourceFile> inputs) {
+    checkState(!compiled, "The initial compilation has already been run");
+    compiled = true;
+    for (SourceFile input : inputs) {
+      sources.put(input.getName(), input);
+    }
+    return compiler.compile(externs, inputs, options);
+  }
+
+  /** Runs the initial compilation of the given modules. */
+  public synchronized Result compileModules(List<SourceFile> externs, List<JSModule> modules) {
+    checkState(!compiled, "The initial compilation has already been run");
+    compiled = true;
+    for (JSModule module : modules) {
+      for (CompilerInput input : module.getInputs()) {
+        sources.put(input.getName(), input.getSourceFile());
+      }
+    }
+    return compiler.compileModules(externs, modules, options);
+  }
+
+  /**
+   * Brings the compilation up to date with new versions of some inputs, and returns the
+   * diagnostics reported while rechecking them and the inputs that depend on them.
+   *
+   * <p>Inputs that were not part of the compilation yet are added to it; with several modules they
+   * must be added to a module before the initial compilation instead. An input is removed by
+   * passing an empty version of it.
+   */
+  public synchronized Result update(Collection<SourceFile> changedFiles) {
+    checkState(compiled, "The initial compilation has not been run");
+
+    // Only report the diagnostics and the metrics of this update.
+    compiler.setErrorManager(new CollectingErrorManager());
+    compiler.resetTracker();
+
+    // Namespaces whose definitions changed: those the new versions provide, and those the old
+    // versions used to.
+    Set<String> changedProvides = new HashSet<>();
+    Map<String, JsAst> changedAsts = new HashMap<>();
+    List<SourceFile> addedFiles = new ArrayList<>();
+    for (SourceFile file : changedFiles) {
+      String name = file.getName();
+      CompilerInput oldInput = compiler.getInput(new InputId(name));
+      if (oldInput == null) {
+        addedFiles.add(file);
+      } else {
+        changedProvides.addAll(oldInput.getProvides());
+        // The new version is parsed once here for its provides, and its AST is reused when the
+        // input is replaced below.
+        JsAst newAst = new JsAst(file);
+        CompilerInput newInput = new CompilerInput(newAst);
+        newInput.setCompiler(compiler);
+        changedProvides.addAll(newInput.getProvides());
+        changedAsts.put(name, newAst);
+      }
+      sources.put(name, file);
+    }
+
+    for (SourceFile file : addedFiles) {
+      compiler.addNewScript(new JsAst(file));
+      changedProvides.addAll(compiler.getInput(new InputId(file.getName())).getProvides());
+    }
+
+    for (CompilerInput input : getAffectedInputs(changedAsts.keySet(), changedProvides)) {
+      // The checks rewrite the ASTs (for instance the Closure primitives), so the inputs that did
+      // not change are parsed again as well before they are rechecked.
+      JsAst ast = changedAsts.get(input.getName());
+      compiler.replaceScript(
+          ast != null ? ast : new JsAst(checkNotNull(sources.get(input.getName()))));
+    }
+    return compiler.getResult();
+  }
+
+  /**
+   * Writes the per-pass metrics of the initial compilation, or of the last update if there was
+   * one. The tracer must be on in the options of the compilation.
+   */
+  public synchronized void outputMetrics(Appendable out, PerformanceTracker.MetricsFormat format)
+      throws IOException {
+    checkState(compiler.tracker != null, "The tracer is off");
+    compiler.tracker.outputMetrics(out, format);
+  }
+
+  /**
+   * Returns the inputs to recheck, in the order of the module graph: the changed inputs, and those
+   * that require a changed namespace, directly or through other inputs.
+   */
+  private List<CompilerInput> getAffectedInputs(
+      Set<String> changedNames, Set<String> changedProvides) {
+    List<CompilerInput> inputsInOrder = new ArrayList<>();
+    SetMultimap<String, CompilerInput> inputsByRequire = LinkedHashMultimap.create();
+    for (JSModule module : compiler.getModules()) {
+      for (CompilerInput input : module.getInputs()) {
+        inputsInOrder.add(input);
+        for (String require : input.getRequires()) {
+          inputsByRequire.put(require, input);
+        }
+      }
+    }
+
+    Set<String> affectedNames = new HashSet<>(changedNames);
+    Deque<String> namespaces = new ArrayDeque<>(changedProvides);
+    Set<String> seenNamespaces = new HashSet<>(changedProvides);
+    while (!namespaces.isEmpty()) {
+      for (CompilerInput input : inputsByRequire.get(namespaces.removeFirst())) {
+        if (affectedNames.add(input.getName())) {
+          for (String provide : input.getProvides()) {
+            if (seenNamespaces.add(provide)) {
+              namespaces.addLast(provide);
+            }
+          }
+        }
+      }
+    }
+
+    List<CompilerInput> affected = new ArrayList<>();
+    for (CompilerInput input : inputsInOrder) {
+      if (affectedNames.contains(input.getName())) {
+        affected.add(input);
+      }
+    }
+    return affected;
+  }
+
+  /** Keeps the diagnostics of an update for its result, without printing them. */
+  private static final class CollectingErrorManager extends BasicErrorManager {
+    @Override
+    public void println(CheckLevel level, JSError error) {}
+
+    @Override
+    protected void printSummary() {}
+  }
+}
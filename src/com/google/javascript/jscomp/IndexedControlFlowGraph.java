@@ -0,0 +1,260 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A compact, read-only snapshot of a {@link ControlFlowGraph}, for analyses that walk the graph
+ * many times, like {@link DataFlowAnalysis}.
+ *
+ * <p>The nodes are numbered densely from 0, in the order of the given comparator when there is
+ * one, and in the order of the graph otherwise; the implicit return always comes last. The
+ * successors and predecessors of the nodes are kept in compressed sparse row form: the successors
+ * of node {@code i} are the ids at positions {@code getSuccStart(i)} to
+ * {@code getSuccStart(i + 1) - 1} of a single array, in the order of the node's out edges, and the
+ * branch of each edge is kept in a parallel byte array. Walking the graph this way needs no map
+ * lookups and allocates nothing.
+ *
+ * <p>The snapshot does not follow later changes to the graph. It is a copy of the linked graph, so
+ * {@link ControlFlowGraph#getIndexedGraph} makes it once for each direction and keeps it until the
+ * graph changes.
+ *
+ * @param <N> The instruction type of the control flow graph.
+ */
+final class IndexedControlFlowGraph<N> {
+  private static final Branch[] BRANCHES = Branch.values();
+
+  private final ControlFlowGraph<N> cfg;
+  private final List<DiGraphNode<N, Branch>> nodes;
+  private final int entry;
+  private final int implicitReturn;
+
+  private final int[] succStart;
+  private final int[] succs;
+  private final byte[] succBranches;
+  private final int[] predStart;
+  private final int[] preds;
+  private final byte[] predBranches;
+
+  /**
+   * Indexes the given graph.
+   *
+   * @param order The order in which to number the nodes other than the implicit return, or null
+   *     to number them in the order of the graph.
+   */
+  static <N> IndexedControlFlowGraph<N> create(
+      ControlFlowGraph<N> cfg, @Nullable Comparator<DiGraphNode<N, Branch>> order) {
+    return new IndexedControlFlowGraph<>(cfg, order);
+  }
+
+  private IndexedControlFlowGraph(
+      ControlFlowGraph<N> cfg, @Nullable Comparator<DiGraphNode<N, Branch>> order) {
+    this.cfg = cfg;
+    DiGraphNode<N, Branch> implicitReturnNode = cfg.getImplicitReturn();
+    List<DiGraphNode<N, Branch>> nodes = new ArrayList<>();
+    for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
+      if (node != implicitReturnNode) {
+        nodes.add(node);
+      }
+    }
+    if (order != null) {
+      Collections.sort(nodes, order);
+    }
+    nodes.add(implicitReturnNode);
+    this.nodes = nodes;
+
+    int nodeCount = nodes.size();
+    Map<DiGraphNode<N, Branch>, Integer> ids = new IdentityHashMap<>(nodeCount);
+    int succCount = 0;
+    int predCount = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      DiGraphNode<N, Branch> node = nodes.get(i);
+      ids.put(node, i);
+      succCount += node.getOutEdges().size();
+      predCount += node.getInEdges().size();
+    }
+    this.entry = ids.get(cfg.getEntry());
+    this.implicitReturn = nodeCount - 1;
+
+    this.succStart = new int[nodeCount + 1];
+    this.succs = new int[succCount];
+    this.succBranches = new byte[succCount];
+    this.predStart = new int[nodeCount + 1];
+    this.preds = new int[predCount];
+    this.predBranches = new byte[predCount];
+    int succPos = 0;
+    int predPos = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      DiGraphNode<N, Branch> node = nodes.get(i);
+      succStart[i] = succPos;
+      for (DiGraphEdge<N, Branch> edge : node.getOutEdges()) {
+        succs[succPos] = ids.get(edge.getDestination());
+        succBranches[succPos] = (byte) checkNotNull(edge.getValue()).ordinal();
+        succPos++;
+      }
+      predStart[i] = predPos;
+      for (DiGraphEdge<N, Branch> edge : node.getInEdges()) {
+        preds[predPos] = ids.get(edge.getSource());
+        predBranches[predPos] = (byte) checkNotNull(edge.getValue()).ordinal();
+        predPos++;
+      }
+    }
+    succStart[nodeCount] = succPos;
+    predStart[nodeCount] = predPos;
+  }
+
+  /** Returns the graph that this is a snapshot of. */
+  ControlFlowGraph<N> getCfg() {
+    return cfg;
+  }
+
+  int getNodeCount() {
+    return nodes.size();
+  }
+
+  DiGraphNode<N, Branch> getNode(int id) {
+    return nodes.get(id);
+  }
+
+  /** Returns the id of the entry node. */
+  int getEntry() {
+    return entry;
+  }
+
+  /** Returns the id of the implicit return node, which is the last id. */
+  int getImplicitReturn() {
+    return implicitReturn;
+  }
+
+  /**
+   * Returns the position of the first successor of the given node in the successor arrays; the
+   * successors of node {@code id} end right before {@code getSuccStart(id + 1)}.
+   */
+  int getSuccStart(int id) {
+    return succStart[id];
+  }
+
+  /** Returns the id of the successor at the given position. */
+  int getSucc(int pos) {
+    return succs[pos];
+  }
+
+  /** Returns the branch of the out edge at the given position. */
+  Branch getSuccBranch(int pos) {
+    return BRANCHES[succBranches[pos]];
+  }
+
+  /**
+   * Returns the position of the first predecessor of the given node in the predecessor arrays; the
+   * predecessors of node {@code id} end right before {@code getPredStart(id + 1)}.
+   */
+  int getPredStart(int id) {
+    return predStart[id];
+  }
+
+  /** Returns the id of the predecessor at the given position. */
+  int getPred(int pos) {
+    return preds[pos];
+  }
+
+  /** Returns the branch of the in edge at the given position. */
+  Branch getPredBranch(int pos) {
+    return BRANCHES[predBranches[pos]];
+  }
+
+  int getSuccCount(int id) {
+    return succStart[id + 1] - succStart[id];
+  }
+
+  int getPredCount(int id) {
+    return predStart[id + 1] - predStart[id];
+  }
+
+  /**
+   * Returns the ids of the nodes in reverse postorder of a depth-first search that starts at the
+   * entry and follows the edges forward, or that starts at the implicit return and follows them
+   * backward. The nodes that this search does not reach come after the others, in the reverse
+   * postorder of searches started at each of them in id order.
+   */
+  int[] getReversePostOrder(boolean forward) {
+    int nodeCount = getNodeCount();
+    int[] edgeStart = forward ? succStart : predStart;
+    int[] edgeTargets = forward ? succs : preds;
+    int[] order = new int[nodeCount];
+    boolean[] visited = new boolean[nodeCount];
+    // The path of the search, and the position of the next edge to follow from each of its nodes.
+    int[] path = new int[nodeCount];
+    int[] nextEdge = new int[nodeCount];
+    int[] postorder = new int[nodeCount];
+    int orderSize = 0;
+    for (int i = -1; i < nodeCount; i++) {
+      int root = i == -1 ? (forward ? entry : implicitReturn) : i;
+      if (visited[root]) {
+        continue;
+      }
+      int postorderSize = 0;
+      int depth = 0;
+      visited[root] = true;
+      path[0] = root;
+      nextEdge[0] = edgeStart[root];
+      while (depth >= 0) {
+        int node = path[depth];
+        if (nextEdge[depth] < edgeStart[node + 1]) {
+          int target = edgeTargets[nextEdge[depth]++];
+          if (!visited[target]) {
+            visited[target] = true;
+            depth++;
+            path[depth] = target;
+            nextEdge[depth] = edgeStart[target];
+          }
+        } else {
+          postorder[postorderSize++] = node;
+          depth--;
+        }
+      }
+      while (postorderSize > 0) {
+        order[orderSize++] = postorder[--postorderSize];
+      }
+    }
+    return order;
+  }
+
+  /**
+   * Returns the index of the first out edge of {@code source} that goes to {@code dest}, among
+   * the out edges of {@code source}, or -1 if there is none.
+   */
+  int getSuccIndex(int source, int dest) {
+    for (int pos = succStart[source]; pos < succStart[source + 1]; pos++) {
+      if (succs[pos] == dest) {
+        return pos - succStart[source];
+      }
+    }
+    return -1;
+  }
+}
@@ -63,6 +63,9 @@ class InlineObjectLiterals implements CompilerPass {
   public void process(Node externs, Node root) {
     ReferenceCollectingCallback callback = new ReferenceCollectingCallback(
         compiler, new InliningBehavior(), new Es6SyntacticScopeCreator(compiler));
+    // Only locals are inlined, and those of the functions that did not change since the last run
+    // have nothing left to inline.
+    callback.skipUnchangedGlobalFunctions("InlineObjectLiterals");
     callback.process(externs, root);
   }
 
@@ -85,6 +85,11 @@ class InlineVariables implements CompilerPass {
             new InliningBehavior(),
             new Es6SyntacticScopeCreator(compiler),
             getFilterForMode());
+    if (mode == Mode.LOCALS_ONLY) {
+      // The locals of the functions that did not change since the last run have nothing left
+      // to inline.
+      callback.skipUnchangedGlobalFunctions("InlineVariables");
+    }
     callback.process(externs, root);
   }
 
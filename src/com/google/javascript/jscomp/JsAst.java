@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.parsing.Config;
 import com.google.javascript.jscomp.parsing.ParserRunner;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import com.google.javascript.rhino.ErrorReporter;
@@ -49,8 +50,10 @@ public class JsAst implements SourceAst {
     this.fileName = sourceFile.getName();
   }
 
+  // Synchronized so that an input which is being parsed in the background by PrebuildAst is not
+  // parsed a second time by the compiler thread.
   @Override
-  public Node getAstRoot(AbstractCompiler compiler) {
+  public synchronized Node getAstRoot(AbstractCompiler compiler) {
     if (!isParsed()) {
       parse(compiler);
       root.setInputId(inputId);
@@ -149,13 +152,29 @@ public class JsAst implements SourceAst {
         compiler.getDefaultErrorReporter());
 
     try {
-      ParserRunner.ParseResult result = ParserRunner.parse(
-          sourceFile,
-          sourceFile.getCode(),
-          compiler.getParserConfig(sourceFile.isExtern()
-              ? AbstractCompiler.ConfigContext.EXTERNS
-              : AbstractCompiler.ConfigContext.DEFAULT),
-          reporter);
+      String code = sourceFile.getCode();
+      Config config = compiler.getParserConfig(sourceFile.isExtern()
+          ? AbstractCompiler.ConfigContext.EXTERNS
+          : AbstractCompiler.ConfigContext.DEFAULT);
+      // Comments are not cached, so don't use the cache when they are needed.
+      AstCache astCache = compiler.getOptions().preservesDetailedSourceInfo()
+          ? null
+          : compiler.getAstCache();
+      String cacheKey = null;
+      ParserRunner.ParseResult result = null;
+      if (astCache != null) {
+        cacheKey = astCache.getKey(sourceFile, code, config);
+        result = astCache.get(cacheKey, sourceFile);
+      }
+      if (result == null) {
+        result = ParserRunner.parse(sourceFile, code, config, reporter);
+        if (astCache != null
+            && result.ast != null
+            && reporter.errors.isEmpty()
+            && reporter.warnings.isEmpty()) {
+          astCache.put(cacheKey, sourceFile, result);
+        }
+      }
       root = result.ast;
       features = result.features;
 
@@ -25,6 +25,7 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
 import java.util.List;
 import java.util.StringTokenizer;
 
@@ -79,6 +80,34 @@ class JvmMetrics {
     }
   }
 
+  /**
+   * Returns the CPU time used by the current thread in nanoseconds, or -1 if the JVM does not
+   * measure it.
+   */
+  public static long getCurrentThreadCpuTime() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!bean.isCurrentThreadCpuTimeSupported() || !bean.isThreadCpuTimeEnabled()) {
+      return -1;
+    }
+    return bean.getCurrentThreadCpuTime();
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread so far, or -1 if the JVM does not
+   * measure it.
+   */
+  public static long getCurrentThreadAllocatedBytes() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+    if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
   private static void writeMetrics(
       PrintStream out, String type, boolean verbose, boolean pretty) {
 
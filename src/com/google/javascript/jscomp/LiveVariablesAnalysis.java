@@ -45,7 +45,7 @@ import java.util.Set;
  *
  */
 class LiveVariablesAnalysis extends
-    DataFlowAnalysis<Node, LiveVariablesAnalysis.LiveVariableLattice> {
+    DataFlowAnalysis.GenKillDataFlowAnalysis<Node, LiveVariablesAnalysis.LiveVariableLattice> {
 
   // 100 = ((# of original Power Rangers) ^
   //        (# years of Warren Harding in office)) *
@@ -152,10 +152,12 @@ class LiveVariablesAnalysis extends
   }
 
   @Override
-  LiveVariableLattice flowThrough(Node node, LiveVariableLattice input) {
-    final BitSet gen = new BitSet(input.liveSet.size());
-    final BitSet kill = new BitSet(input.liveSet.size());
+  BitSet getBits(LiveVariableLattice lattice) {
+    return lattice.liveSet;
+  }
 
+  @Override
+  void computeGenKill(Node node, BitSet gen, BitSet kill) {
     // Make kills conditional if the node can end abruptly by an exception.
     boolean conditional = false;
     List<DiGraphEdge<Node, Branch>> edgeList = getCfg().getOutEdges(node);
@@ -165,11 +167,6 @@ class LiveVariablesAnalysis extends
       }
     }
     computeGenKill(node, gen, kill, conditional);
-    LiveVariableLattice result = new LiveVariableLattice(input);
-    // L_in = L_out - Kill + Gen
-    result.liveSet.andNot(kill);
-    result.liveSet.or(gen);
-    return result;
   }
 
   /**
@@ -46,7 +46,8 @@ import javax.annotation.Nullable;
  * @author simranarora@google.com (Simran Arora)
  */
 class LiveVariablesAnalysisEs6
-    extends DataFlowAnalysis<Node, LiveVariablesAnalysisEs6.LiveVariableLattice> {
+    extends DataFlowAnalysis.GenKillDataFlowAnalysis<
+        Node, LiveVariablesAnalysisEs6.LiveVariableLattice> {
 
   static final int MAX_VARIABLES_TO_ANALYZE = 100;
 
@@ -206,10 +207,12 @@ class LiveVariablesAnalysisEs6
   }
 
   @Override
-  LiveVariableLattice flowThrough(Node node, LiveVariableLattice input) {
-    final BitSet gen = new BitSet(input.liveSet.size());
-    final BitSet kill = new BitSet(input.liveSet.size());
+  BitSet getBits(LiveVariableLattice lattice) {
+    return lattice.liveSet;
+  }
 
+  @Override
+  void computeGenKill(Node node, BitSet gen, BitSet kill) {
     // Make kills conditional if the node can end abruptly by an exception.
     boolean conditional = false;
     List<DiGraphEdge<Node, Branch>> edgeList = getCfg().getOutEdges(node);
@@ -219,11 +222,6 @@ class LiveVariablesAnalysisEs6
       }
     }
     computeGenKill(node, gen, kill, conditional);
-    LiveVariableLattice result = new LiveVariableLattice(input);
-    // L_in = L_out - Kill + Gen
-    result.liveSet.andNot(kill);
-    result.liveSet.or(gen);
-    return result;
   }
 
   /**
@@ -56,6 +56,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * New type inference algorithm.
@@ -72,6 +75,7 @@ import java.util.Set;
  *
  */
 final class NewTypeInference implements CompilerPass {
+  private static final Logger logger = Logger.getLogger(NewTypeInference.class.getName());
 
   static final DiagnosticType MISTYPED_ASSIGN_RHS = DiagnosticType.warning(
       "JSC_NTI_MISTYPED_ASSIGN_RHS",
@@ -434,8 +438,9 @@ final class NewTypeInference implements CompilerPass {
   private final CodingConvention convention;
   private TypeTransformation ttlObj;
   private final Map<DiGraphEdge<Node, ControlFlowGraph.Branch>, TypeEnv> envs;
+  // Shared by the instances that analyze functions in parallel.
   private final Map<NTIScope, JSType> summaries;
-  private final Map<Node, DeferredCheck> deferredChecks;
+  private Map<Node, DeferredCheck> deferredChecks;
   private ControlFlowGraph<Node> cfg;
   private NTIScope currentScope;
   // This TypeEnv should be computed once per scope
@@ -501,11 +506,15 @@ final class NewTypeInference implements CompilerPass {
   private JSType UNKNOWN;
 
   NewTypeInference(AbstractCompiler compiler) {
+    this(compiler, new ConcurrentHashMap<NTIScope, JSType>());
+  }
+
+  private NewTypeInference(AbstractCompiler compiler, Map<NTIScope, JSType> summaries) {
     this.warnings = new WarningReporter(compiler);
     this.compiler = compiler;
     this.convention = compiler.getCodingConvention();
     this.envs = new LinkedHashMap<>();
-    this.summaries = new LinkedHashMap<>();
+    this.summaries = summaries;
     this.deferredChecks = new LinkedHashMap<>();
     this.ABSTRACT_METHOD_NAME = convention.getAbstractMethodName();
     this.reportUnknownTypes =
@@ -535,30 +544,21 @@ final class NewTypeInference implements CompilerPass {
   @Override
   public void process(Node externs, Node root) {
     try {
-      this.symbolTable = (GlobalTypeInfo) compiler.getGlobalTypeInfo();
-      this.commonTypes = this.symbolTable.getCommonTypes();
-      this.ttlObj = new TypeTransformation(compiler, this.symbolTable.getGlobalScope());
-      this.mismatches = symbolTable.getMismatches();
-      this.implicitInterfaceUses = symbolTable.getImplicitInterfaceUses();
-
-      this.BOOLEAN = this.commonTypes.BOOLEAN;
-      this.BOTTOM = this.commonTypes.BOTTOM;
-      this.FALSE_TYPE = this.commonTypes.FALSE_TYPE;
-      this.FALSY = this.commonTypes.FALSY;
-      this.NULL = this.commonTypes.NULL;
-      this.NULL_OR_UNDEFINED = this.commonTypes.NULL_OR_UNDEFINED;
-      this.NUMBER = this.commonTypes.NUMBER;
-      this.NUMBER_OR_STRING = this.commonTypes.NUMBER_OR_STRING;
-      this.STRING = this.commonTypes.STRING;
-      this.TOP_OBJECT = this.commonTypes.getTopObject();
-      this.TRUE_TYPE = this.commonTypes.TRUE_TYPE;
-      this.TRUTHY = this.commonTypes.TRUTHY;
-      this.UNDEFINED = this.commonTypes.UNDEFINED;
-      this.UNKNOWN = this.commonTypes.UNKNOWN;
-
-      for (NTIScope scope : symbolTable.getScopes()) {
-        analyzeFunction(scope);
-        envs.clear();
+      initFromGlobalTypeInfo();
+      // The types of the program are frozen by now, so the results of type operations are final.
+      int typeOperationCacheSize = compiler.getOptions().typeOperationCacheSize;
+      if (typeOperationCacheSize > 0) {
+        this.commonTypes.startCachingTypeOperations(typeOperationCacheSize);
+      }
+      List<NTIScope> scopes = symbolTable.getScopes();
+      int numThreads = Math.min(compiler.getOptions().numParallelThreads, scopes.size());
+      if (numThreads > 1) {
+        analyzeFunctionsInParallel(scopes, numThreads);
+      } else {
+        for (NTIScope scope : scopes) {
+          analyzeFunction(scope);
+          envs.clear();
+        }
       }
       for (DeferredCheck check : deferredChecks.values()) {
         check.runCheck(summaries, warnings);
@@ -566,15 +566,116 @@ final class NewTypeInference implements CompilerPass {
       if (measureMem) {
         System.out.println("Peak mem: " + peakMem + "MB");
       }
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Type operation cache: " + this.commonTypes.getTypeOperationCache());
+        logger.fine("Interned types: " + this.commonTypes.getTypeInternerStatistics());
+      }
     } catch (Exception unexpectedException) {
       String message = unexpectedException.getMessage();
       if (currentScope != null) {
         message += "\nIn scope: " + currentScope;
       }
       this.compiler.throwInternalError(message, unexpectedException);
+    } finally {
+      if (this.commonTypes != null) {
+        this.commonTypes.stopCachingTypeOperations();
+        this.commonTypes.stopInterningTypes();
+      }
     }
   }
 
+  private void initFromGlobalTypeInfo() {
+    this.symbolTable = (GlobalTypeInfo) compiler.getGlobalTypeInfo();
+    this.commonTypes = this.symbolTable.getCommonTypes();
+    this.ttlObj = new TypeTransformation(compiler, this.symbolTable.getGlobalScope());
+    this.mismatches = symbolTable.getMismatches();
+    this.implicitInterfaceUses = symbolTable.getImplicitInterfaceUses();
+
+    this.BOOLEAN = this.commonTypes.BOOLEAN;
+    this.BOTTOM = this.commonTypes.BOTTOM;
+    this.FALSE_TYPE = this.commonTypes.FALSE_TYPE;
+    this.FALSY = this.commonTypes.FALSY;
+    this.NULL = this.commonTypes.NULL;
+    this.NULL_OR_UNDEFINED = this.commonTypes.NULL_OR_UNDEFINED;
+    this.NUMBER = this.commonTypes.NUMBER;
+    this.NUMBER_OR_STRING = this.commonTypes.NUMBER_OR_STRING;
+    this.STRING = this.commonTypes.STRING;
+    this.TOP_OBJECT = this.commonTypes.getTopObject();
+    this.TRUE_TYPE = this.commonTypes.TRUE_TYPE;
+    this.TRUTHY = this.commonTypes.TRUTHY;
+    this.UNDEFINED = this.commonTypes.UNDEFINED;
+    this.UNKNOWN = this.commonTypes.UNKNOWN;
+  }
+
+  /**
+   * Analyzes the scopes on {@code numThreads} threads, each with its own instance of this class.
+   * A scope is analyzed after the scopes whose summaries it uses, so the summaries are the same as
+   * when the scopes are analyzed one by one. The deferred checks and type mismatches of each scope
+   * are kept apart and added in the order of the scopes afterwards.
+   */
+  private void analyzeFunctionsInParallel(List<NTIScope> scopes, int numThreads) {
+    final Map<NTIScope, ScopeResults> results = new LinkedHashMap<>();
+    for (NTIScope scope : scopes) {
+      results.put(scope, new ScopeResults());
+    }
+    List<NewTypeInference> analyzers = new ArrayList<>(numThreads);
+    List<TaskGraphExecutor.Worker<NTIScope>> workers = new ArrayList<>(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      final NewTypeInference analyzer = new NewTypeInference(this.compiler, this.summaries);
+      analyzer.initFromGlobalTypeInfo();
+      analyzers.add(analyzer);
+      workers.add(new TaskGraphExecutor.Worker<NTIScope>() {
+        @Override
+        public void run(NTIScope scope) {
+          ScopeResults scopeResults = results.get(scope);
+          analyzer.deferredChecks = scopeResults.deferredChecks;
+          analyzer.mismatches = scopeResults.mismatches;
+          analyzer.implicitInterfaceUses = scopeResults.implicitInterfaceUses;
+          try {
+            analyzer.analyzeFunction(scope);
+          } catch (RuntimeException e) {
+            throw new RuntimeException(e.getMessage() + "\nIn scope: " + scope, e);
+          }
+          analyzer.envs.clear();
+        }
+      });
+    }
+    TaskGraphExecutor.execute(scopes, getScopeDependencies(scopes), workers);
+
+    for (ScopeResults scopeResults : results.values()) {
+      this.deferredChecks.putAll(scopeResults.deferredChecks);
+      this.mismatches.addAll(scopeResults.mismatches);
+      this.implicitInterfaceUses.addAll(scopeResults.implicitInterfaceUses);
+    }
+    // The deferred checks belong to the analyzers, and record what they find through them.
+    for (NewTypeInference analyzer : analyzers) {
+      analyzer.mismatches = this.mismatches;
+      analyzer.implicitInterfaceUses = this.implicitInterfaceUses;
+    }
+  }
+
+  /**
+   * Returns the scopes that each scope must be analyzed after. A scope uses the summaries of the
+   * functions defined directly in it, so it waits for them, except for unannotated callbacks,
+   * which are analyzed after the scope that contains them (see
+   * GlobalTypeInfoCollector#reorderScopesForNTI).
+   */
+  private static Multimap<NTIScope, NTIScope> getScopeDependencies(List<NTIScope> scopes) {
+    Multimap<NTIScope, NTIScope> dependencies = LinkedHashMultimap.create();
+    for (NTIScope scope : scopes) {
+      NTIScope parent = scope.getParent();
+      if (parent == null) {
+        continue;
+      }
+      if (NodeUtil.isUnannotatedCallback(scope.getRoot())) {
+        dependencies.put(scope, parent);
+      } else {
+        dependencies.put(parent, scope);
+      }
+    }
+    return dependencies;
+  }
+
   static void updatePeakMem() {
     Runtime rt = Runtime.getRuntime();
     long currentUsedMem = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
@@ -4891,6 +4992,13 @@ final class NewTypeInference implements CompilerPass {
     return t1;
   }
 
+  /** What the analysis of one scope found, when the scopes are analyzed in parallel. */
+  private static final class ScopeResults {
+    final Map<Node, DeferredCheck> deferredChecks = new LinkedHashMap<>();
+    final List<TypeMismatch> mismatches = new ArrayList<>();
+    final List<TypeMismatch> implicitInterfaceUses = new ArrayList<>();
+  }
+
   private class DeferredCheck {
     final Node callSite;
     final NTIScope callerScope;
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.javascript.jscomp.NodeTraversal.Callback;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Traverses the scripts of a program with one callback per script, spread over a pool of threads.
+ *
+ * <p>This is meant for the collection phase of whole program passes: each callback must only read
+ * the AST, keep what it finds in its own fields, and report diagnostics through the compiler. The
+ * caller merges the results of the callbacks, in the order of the scripts, once they are all done.
+ * The threads come from a pool shared by all traversals, so the callbacks must not start
+ * traversals of their own.
+ */
+class ParallelScriptTraversal {
+  // How long the threads of the shared pool wait for more work before stopping.
+  private static final long KEEP_ALIVE_SECONDS = 30;
+
+  // Shared by all traversals, so that passes that run one after the other reuse its threads.
+  private static ThreadPoolExecutor poolExecutor = null;
+
+  private ParallelScriptTraversal() {}
+
+  /**
+   * Traverses each script under {@code root} with the callback at the same position in
+   * {@code callbacks}, on up to {@code numParallelThreads} threads.
+   */
+  static void traverse(
+      AbstractCompiler compiler,
+      Node root,
+      int numParallelThreads,
+      List<? extends Callback> callbacks) {
+    List<Node> scripts = new ArrayList<>(root.getChildCount());
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      scripts.add(script);
+    }
+    traverse(compiler, scripts, numParallelThreads, callbacks, false);
+  }
+
+  /**
+   * Traverses each of the {@code roots} with the callback at the same position in
+   * {@code callbacks}, with typed scopes, on up to {@code numParallelThreads} threads.
+   */
+  static void traverseTyped(
+      AbstractCompiler compiler,
+      List<Node> roots,
+      int numParallelThreads,
+      List<? extends Callback> callbacks) {
+    traverse(compiler, roots, numParallelThreads, callbacks, true);
+  }
+
+  private static void traverse(
+      final AbstractCompiler compiler,
+      final List<Node> roots,
+      int numParallelThreads,
+      final List<? extends Callback> callbacks,
+      final boolean typed) {
+    checkArgument(roots.size() == callbacks.size());
+    // Initialize the lazily created state of the compiler that the callbacks may read.
+    compiler.getTypeIRegistry();
+    int numThreads = Math.min(numParallelThreads, callbacks.size());
+    if (numThreads <= 1) {
+      for (int i = 0; i < roots.size(); i++) {
+        traverse(compiler, roots.get(i), callbacks.get(i), typed);
+      }
+      return;
+    }
+
+    // Each of the numThreads workers takes the next root until there are none left, so that this
+    // traversal uses at most numThreads threads of the shared pool.
+    final AtomicInteger nextRoot = new AtomicInteger();
+    Runnable worker = new Runnable() {
+      @Override
+      public void run() {
+        for (int i = nextRoot.getAndIncrement(); i < roots.size(); i = nextRoot.getAndIncrement()) {
+          traverse(compiler, roots.get(i), callbacks.get(i), typed);
+        }
+      }
+    };
+    ThreadPoolExecutor executor = getExecutor(numThreads);
+    List<Future<?>> futures = new ArrayList<>(numThreads);
+    try {
+      for (int i = 0; i < numThreads; i++) {
+        futures.add(executor.submit(worker));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } finally {
+      // Stop the other workers early when one fails.
+      nextRoot.set(roots.size());
+      for (Future<?> future : futures) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  private static void traverse(
+      AbstractCompiler compiler, Node root, Callback callback, boolean typed) {
+    if (typed) {
+      NodeTraversal.traverseTyped(compiler, root, callback);
+    } else {
+      NodeTraversal.traverseEs6(compiler, root, callback);
+    }
+  }
+
+  /** Returns the shared pool, with at least {@code numThreads} threads. */
+  private static synchronized ThreadPoolExecutor getExecutor(int numThreads) {
+    if (poolExecutor == null) {
+      poolExecutor = new ThreadPoolExecutor(
+          numThreads,
+          numThreads,
+          KEEP_ALIVE_SECONDS,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          CompilerExecutor.newDaemonThreadFactory("jscompiler-ScriptTraversal-"));
+      poolExecutor.allowCoreThreadTimeOut(true);
+    } else if (numThreads > poolExecutor.getMaximumPoolSize()) {
+      poolExecutor.setMaximumPoolSize(numThreads);
+      poolExecutor.setCorePoolSize(numThreads);
+    }
+    return poolExecutor;
+  }
+}
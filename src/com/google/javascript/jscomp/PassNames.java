@@ -27,6 +27,7 @@ public final class PassNames {
   public static final String ANALYZER_CHECKS = "analyzerChecks";
   public static final String ANALYZER_CHECKS_INTERNAL = "analyzerChecksInternal";
   public static final String ANGULAR_PASS = "angularPass";
+  public static final String AWAIT_PARSED_INPUTS = "awaitParsedInputs";
   public static final String BEFORE_STANDARD_OPTIMIZATIONS = "beforeStandardOptimizations";
   public static final String BEFORE_MAIN_OPTIMIZATIONS = "beforeMainOptimizations";
   public static final String BEFORE_TYPE_CHECKING = "beforeTypeChecking";
@@ -75,6 +76,7 @@ public final class PassNames {
   public static final String NORMALIZE = "normalize";
   public static final String OPTIMIZE_ARGUMENTS_ARRAY = "optimizeArgumentsArray";
   public static final String OPTIMIZE_CALLS = "optimizeCalls";
+  public static final String ORDER_INPUTS = "orderInputs";
   public static final String PARSE_INPUTS = "parseInputs";
   public static final String PEEPHOLE_OPTIMIZATIONS = "peepholeOptimizations";
   public static final String REWRITE_COMMON_JS_MODULES = "rewriteCommonJsModules";
@@ -17,10 +17,12 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.rhino.Node;
 import java.util.Arrays;
 import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  * A compiler pass to run various peephole optimizations (e.g. constant folding,
@@ -28,12 +30,15 @@ import java.util.List;
  *
  * @author dcc@google.com (Devin Coughlin)
  */
-class PeepholeOptimizationsPass implements CompilerPass {
+class PeepholeOptimizationsPass implements ChangeScopeRootPass {
 
   private final AbstractCompiler compiler;
   private final String passName;
   private final List<AbstractPeepholeOptimization> peepholeOptimizations;
   private boolean retraverseOnChange;
+  // Whether the pass is running, that is, whether getNextChangeScopeRoots has returned the roots of
+  // a round and not the end of the pass yet.
+  private boolean started;
 
   /** Creates a peephole optimization pass that runs the given optimizations. */
   PeepholeOptimizationsPass(
@@ -58,20 +63,37 @@ class PeepholeOptimizationsPass implements CompilerPass {
 
   @Override
   public void process(Node externs, Node root) {
-    beginTraversal();
-
     // Repeat to an internal fixed point.
-    for (List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(passName);
+    for (List<Node> changedScopeNodes = getNextChangeScopeRoots();
         changedScopeNodes == null || !changedScopeNodes.isEmpty();
-        changedScopeNodes = compiler.getChangedScopeNodesForPass(passName)) {
+        changedScopeNodes = getNextChangeScopeRoots()) {
       NodeTraversal.traverseEs6ScopeRoots(
           compiler, root, changedScopeNodes, new PeepCallback(), false);
+    }
+  }
 
+  @Override
+  @Nullable
+  public List<Node> getNextChangeScopeRoots() {
+    List<Node> changedScopeNodes;
+    if (started && !retraverseOnChange) {
       // Cancel the fixed point if requested.
-      if (!retraverseOnChange) {
-        break;
+      changedScopeNodes = ImmutableList.of();
+    } else {
+      if (!started) {
+        beginTraversal();
       }
+      changedScopeNodes = compiler.getChangedScopeNodesForPass(passName);
     }
+    started = changedScopeNodes == null || !changedScopeNodes.isEmpty();
+    return changedScopeNodes;
+  }
+
+  /** Runs the optimizations on a single change scope root, which may happen in parallel. */
+  @Override
+  public void enterChangeScopeRoot(AbstractCompiler compiler, Node root) {
+    NodeTraversal.traverseEs6ScopeRoots(
+        compiler, null, ImmutableList.of(root), new PeepCallback(), false);
   }
 
   private class PeepCallback extends AbstractPostOrderCallback {
@@ -34,7 +34,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map.Entry;
 
@@ -46,6 +46,17 @@ import java.util.Map.Entry;
 public final class PerformanceTracker {
   private static final int DEFAULT_WHEN_SIZE_UNTRACKED = -1;
 
+  // The value of the CPU time and allocation metrics when the JVM does not measure them.
+  private static final long DEFAULT_WHEN_UNMEASURED = -1;
+
+  /** The machine-readable formats in which the metrics can be written out. */
+  public enum MetricsFormat {
+    /** A JSON object with the totals, the summary of each pass and the log of each run. */
+    JSON,
+    /** A JSON file in the Chrome trace-event format, with one complete event per run. */
+    CHROME_TRACE
+  }
+
   private final PrintStream output;
 
   private final Node externsRoot;
@@ -63,6 +74,8 @@ public final class PerformanceTracker {
   private int initGzCodeSize = DEFAULT_WHEN_SIZE_UNTRACKED;
 
   private final long startTime;
+  // The value of System.nanoTime() when the tracker was created, for the microsecond timestamps.
+  private final long startNanos;
   private long endTime;
   private int passesRuntime = 0;
   private int maxMem = 0;
@@ -98,6 +111,7 @@ public final class PerformanceTracker {
   PerformanceTracker(Node externsRoot, Node jsRoot, TracerMode mode, PrintStream printStream) {
     checkArgument(mode != TracerMode.OFF, "PerformanceTracker can't work without tracer data.");
     this.startTime = System.currentTimeMillis();
+    this.startNanos = System.nanoTime();
     this.externsRoot = externsRoot;
     this.jsRoot = jsRoot;
     this.output = printStream == null ? System.out : printStream;
@@ -109,7 +123,13 @@ public final class PerformanceTracker {
   }
 
   void recordPassStart(String passName, boolean isOneTime) {
-    this.currentPass.push(new Stats(passName, isOneTime));
+    Stats logStats = new Stats(passName, isOneTime);
+    logStats.startTime = System.currentTimeMillis();
+    logStats.startNanos = System.nanoTime();
+    logStats.startCpuTime = JvmMetrics.getCurrentThreadCpuTime();
+    logStats.startAllocBytes = JvmMetrics.getCurrentThreadAllocatedBytes();
+    logStats.changeScopeRoots = DEFAULT_WHEN_UNMEASURED;
+    this.currentPass.push(logStats);
     // In Compiler, toSource may be called after every pass X. We don't want it
     // to reset the handler, because recordPassStop for pass X has not been
     // called, so we are falsely logging that pass X didn't make changes.
@@ -118,6 +138,26 @@ public final class PerformanceTracker {
     }
   }
 
+  /**
+   * Records the number of change scope roots (scripts and functions) that the running pass looked
+   * at. {@link PhaseOptimizer} measures it for the passes of its loops.
+   */
+  void recordChangeScopeRoots(String passName, int changeScopeRoots) {
+    Stats logStats = this.currentPass.peek();
+    checkState(passName.equals(logStats.pass));
+    logStats.changeScopeRoots = changeScopeRoots;
+  }
+
+  /**
+   * Returns how many AST nodes the last run of a pass removed, which is only measured when {@link
+   * #tracksAstSize} is true. The run must have finished.
+   */
+  int getLastAstDiff(String passName) {
+    Stats logStats = this.log.get(this.log.size() - 1);
+    checkState(passName.equals(logStats.pass));
+    return logStats.astDiff;
+  }
+
   /**
    * Updates the saved jsRoot and resets the size tracking fields accordingly.
    * @param jsRoot
@@ -148,6 +188,9 @@ public final class PerformanceTracker {
    * @param runtime execution time in milliseconds
    */
   void recordPassStop(String passName, long runtime) {
+    long stopNanos = System.nanoTime();
+    long cpuTime = JvmMetrics.getCurrentThreadCpuTime();
+    long allocBytes = JvmMetrics.getCurrentThreadAllocatedBytes();
     int allocMem = getAllocatedMegabytes();
     Stats logStats = this.currentPass.pop();
     checkState(passName.equals(logStats.pass));
@@ -155,6 +198,13 @@ public final class PerformanceTracker {
 
     // Update fields that aren't related to code size
     logStats.runtime = runtime;
+    logStats.durationMicros = (stopNanos - logStats.startNanos) / 1000;
+    logStats.cpuTime = cpuTime < 0 || logStats.startCpuTime < 0
+        ? DEFAULT_WHEN_UNMEASURED
+        : (cpuTime - logStats.startCpuTime) / 1000000;
+    logStats.allocBytes = allocBytes < 0 || logStats.startAllocBytes < 0
+        ? DEFAULT_WHEN_UNMEASURED
+        : allocBytes - logStats.startAllocBytes;
     logStats.allocMem = allocMem;
     logStats.runs = 1;
     if (this.codeChange.hasCodeChanged()) {
@@ -203,6 +253,16 @@ public final class PerformanceTracker {
     }
   }
 
+  /**
+   * Measures the AST before passes run on it outside of a full compilation, as when scripts are
+   * hot-swapped, so that the size changes of those passes are known.
+   */
+  void recordInitialAstSize() {
+    if (tracksAstSize()) {
+      this.initAstSize = this.astSize = NodeUtil.countAstSize(jsRoot);
+    }
+  }
+
   private void recordInputCount() {
     for (Node n : this.externsRoot.children()) {
       this.externSources += 1;
@@ -323,7 +383,8 @@ public final class PerformanceTracker {
   }
 
   private void populateSummary() {
-    HashMap<String, Stats> tmpSummary = new HashMap<>();
+    // Keep the passes in the order in which they first ran.
+    LinkedHashMap<String, Stats> tmpSummary = new LinkedHashMap<>();
 
     for (Stats logStat : this.log) {
       String passName = logStat.pass;
@@ -333,6 +394,9 @@ public final class PerformanceTracker {
         tmpSummary.put(passName, entry);
       }
       entry.runtime += logStat.runtime;
+      entry.cpuTime = addMeasurement(entry.cpuTime, logStat.cpuTime);
+      entry.allocBytes = addMeasurement(entry.allocBytes, logStat.allocBytes);
+      entry.changeScopeRoots = addMeasurement(entry.changeScopeRoots, logStat.changeScopeRoots);
       entry.allocMem = Math.max(entry.allocMem, logStat.allocMem);
       entry.runs++;
       entry.changes += logStat.changes;
@@ -347,6 +411,12 @@ public final class PerformanceTracker {
     this.summary = ImmutableMap.copyOf(tmpSummary);
   }
 
+  private static long addMeasurement(long total, long value) {
+    return total == DEFAULT_WHEN_UNMEASURED || value == DEFAULT_WHEN_UNMEASURED
+        ? DEFAULT_WHEN_UNMEASURED
+        : total + value;
+  }
+
   /**
    * Prints a summary, which contains aggregate stats for all runs of each pass
    * and a log, which contains stats for each individual run.
@@ -421,6 +491,107 @@ public final class PerformanceTracker {
     }
   }
 
+  /**
+   * Writes the totals, the summary of each pass and the log of each run in the given
+   * machine-readable format, for tools that track the performance of many compilations.
+   */
+  public void outputMetrics(Appendable out, MetricsFormat format) throws IOException {
+    calcTotalStats();
+    switch (format) {
+      case JSON:
+        outputJsonMetrics(out);
+        break;
+      case CHROME_TRACE:
+        outputChromeTrace(out);
+        break;
+    }
+  }
+
+  private void outputJsonMetrics(Appendable out) throws IOException {
+    out.append("{");
+    out.append(SimpleFormat.format(
+        "\"startTime\":%d,\"endTime\":%d,\"wallTime\":%d,\"passesRuntime\":%d,"
+            + "\"maxMem\":%d,\"runs\":%d,\"changes\":%d,\"loopRuns\":%d,\"loopChanges\":%d,"
+            + "\"astReduction\":%d,\"reduction\":%d,\"gzReduction\":%d,"
+            + "\"astSize\":%d,\"size\":%d,\"gzSize\":%d,",
+        this.startTime, this.endTime, this.endTime - this.startTime, this.passesRuntime,
+        this.maxMem, this.runs, this.changes, this.loopRuns, this.loopChanges,
+        this.astDiff, this.diff, this.gzDiff, this.astSize, this.codeSize, this.gzCodeSize));
+    out.append(SimpleFormat.format(
+        "\"inputs\":{\"jsLines\":%d,\"jsSources\":%d,\"externLines\":%d,\"externSources\":%d},",
+        this.jsLines, this.jsSources, this.externLines, this.externSources));
+
+    out.append("\"summary\":[");
+    String separator = "";
+    for (Stats stats : this.summary.values()) {
+      out.append(separator).append("{\"pass\":");
+      appendJsonString(out, stats.pass);
+      out.append(SimpleFormat.format(
+          ",\"oneTime\":%b,\"runtime\":%d,\"cpuTime\":%d,\"allocBytes\":%d,\"allocMem\":%d,"
+              + "\"runs\":%d,\"changes\":%d,\"changeScopeRoots\":%d,\"astReduction\":%d,"
+              + "\"reduction\":%d,\"gzReduction\":%d}",
+          stats.isOneTime, stats.runtime, stats.cpuTime, stats.allocBytes, stats.allocMem,
+          stats.runs, stats.changes, stats.changeScopeRoots, stats.astDiff, stats.diff,
+          stats.gzDiff));
+      separator = ",";
+    }
+    out.append("],");
+
+    out.append("\"log\":[");
+    separator = "";
+    for (Stats stats : this.log) {
+      out.append(separator).append("{\"pass\":");
+      appendJsonString(out, stats.pass);
+      out.append(SimpleFormat.format(
+          ",\"oneTime\":%b,\"startTime\":%d,\"runtime\":%d,\"cpuTime\":%d,\"allocBytes\":%d,"
+              + "\"allocMem\":%d,\"codeChanged\":%b,\"changeScopeRoots\":%d,"
+              + "\"astReduction\":%d,\"reduction\":%d,\"gzReduction\":%d,\"astSize\":%d,"
+              + "\"size\":%d,\"gzSize\":%d}",
+          stats.isOneTime, stats.startTime, stats.runtime, stats.cpuTime, stats.allocBytes,
+          stats.allocMem, stats.changes == 1, stats.changeScopeRoots, stats.astDiff, stats.diff,
+          stats.gzDiff, stats.astSize, stats.size, stats.gzSize));
+      separator = ",";
+    }
+    out.append("]}\n");
+  }
+
+  /**
+   * Writes each run as a complete event of the trace-event format, which chrome://tracing and
+   * similar viewers load. Timestamps are in microseconds since the tracker was created.
+   */
+  private void outputChromeTrace(Appendable out) throws IOException {
+    out.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+    String separator = "";
+    for (Stats stats : this.log) {
+      out.append(separator).append("{\"name\":");
+      appendJsonString(out, stats.pass);
+      out.append(SimpleFormat.format(
+          ",\"cat\":\"%s\",\"ph\":\"X\",\"ts\":%d,\"dur\":%d,\"pid\":1,\"tid\":1,"
+              + "\"args\":{\"cpuTime\":%d,\"allocBytes\":%d,\"codeChanged\":%b,"
+              + "\"astReduction\":%d,\"astSize\":%d}}",
+          stats.isOneTime ? "oneTime" : "loopable",
+          (stats.startNanos - this.startNanos) / 1000, stats.durationMicros,
+          stats.cpuTime, stats.allocBytes, stats.changes == 1, stats.astDiff, stats.astSize));
+      separator = ",";
+    }
+    out.append("]}\n");
+  }
+
+  private static void appendJsonString(Appendable out, String s) throws IOException {
+    out.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c < 0x20) {
+        out.append(SimpleFormat.format("\\u%04x", (int) c));
+      } else {
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
+
   /**
    * A Stats object contains statistics about a pass run, such as running time,
    * size changes, etc
@@ -433,8 +604,19 @@ public final class PerformanceTracker {
     public final String pass;
     public final boolean isOneTime;
     public long runtime = 0;
+    /** The wall time of the run in microseconds. Only set in the log, not in the summary. */
+    long durationMicros = 0;
+    /** The CPU time of the compiler thread in milliseconds, or -1 if it is not measured. */
+    public long cpuTime = 0;
+    /** The bytes allocated by the compiler thread, or -1 if they are not measured. */
+    public long allocBytes = 0;
     public int allocMem = 0;
     public int runs = 0;
+    /**
+     * The number of scripts and functions the pass looked at, or -1 if it is not measured. Only
+     * the runs of the passes in a fixed point loop are measured.
+     */
+    public long changeScopeRoots = 0;
     public int changes = 0;
     public int diff = 0;
     public int gzDiff = 0;
@@ -442,5 +624,12 @@ public final class PerformanceTracker {
     public int gzSize = 0;
     public int astDiff = 0;
     public int astSize = 0;
+
+    // When the run started, in milliseconds since the epoch and as System.nanoTime(), and the CPU
+    // time and allocated bytes of the compiler thread at that time.
+    long startTime = 0;
+    long startNanos = 0;
+    long startCpuTime = 0;
+    long startAllocBytes = 0;
   }
 }
@@ -28,7 +28,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * An object that optimizes the order of compiler passes.
@@ -67,6 +70,16 @@ class PhaseOptimizer implements CompilerPass {
   // Checks that passes have reported code changes correctly.
   private ChangeVerifier changeVerifier;
 
+  // Runs the change scope roots of function-scoped passes in parallel, or null if the compilation
+  // runs on a single thread. Only set while the passes run.
+  private ChangeScopeRootExecutor changeScopeRootExecutor;
+
+  // The change scope roots that the running pass of a loop looked at, when it only looked at those
+  // that changed. See hasScopeChanged and recordChangedScopeNodes.
+  private final AtomicInteger changedScopesVisited = new AtomicInteger();
+  private volatile boolean visitedChangedScopesOnly;
+  private volatile boolean visitedAllScopes;
+
   /**
    * When processing loopable passes in order, the PhaseOptimizer can be in one
    * of these two states.
@@ -111,6 +124,9 @@ class PhaseOptimizer implements CompilerPass {
   /** @see CompilerOptions#optimizationLoopMaxIterations */
   private final int optimizationLoopMaxIterations;
 
+  /** @see CompilerOptions#optimizationLoopMinYield */
+  private final double optimizationLoopMinYield;
+
   /**
    * @param comp the compiler that owns/creates this.
    * @param tracker an optional performance tracker
@@ -124,6 +140,7 @@ class PhaseOptimizer implements CompilerPass {
     this.lastChange = START_TIME;
     this.useSizeHeuristicToStopOptimizationLoop =
         comp.getOptions().useSizeHeuristicToStopOptimizationLoop;
+    this.optimizationLoopMinYield = comp.getOptions().optimizationLoopMinYield;
     int maxIterations = comp.getOptions().optimizationLoopMaxIterations;
     if (maxIterations > 0 && maxIterations <= MAX_LOOPS) {
       this.optimizationLoopMaxIterations = maxIterations;
@@ -226,10 +243,21 @@ class PhaseOptimizer implements CompilerPass {
     // NamedPass#process, the actual pass is created and immediately executed, and no
     // reference to it is retained in PhaseOptimizer:
     //   factory.create(compiler).process(externs, root);
-    for (CompilerPass pass : passes) {
-      pass.process(externs, root);
-      if (hasHaltingErrors()) {
-        return;
+    int numParallelThreads = compiler.getOptions().numParallelThreads;
+    if (numParallelThreads > 1) {
+      changeScopeRootExecutor = new ChangeScopeRootExecutor(compiler, numParallelThreads);
+    }
+    try {
+      for (CompilerPass pass : passes) {
+        pass.process(externs, root);
+        if (hasHaltingErrors()) {
+          return;
+        }
+      }
+    } finally {
+      if (changeScopeRootExecutor != null) {
+        changeScopeRootExecutor.shutdown();
+        changeScopeRootExecutor = null;
       }
     }
   }
@@ -270,11 +298,46 @@ class PhaseOptimizer implements CompilerPass {
     private final PassFactory factory;
     private Tracer tracer;
 
+    // Statistics of this pass in the current loop.
+    private int runsInLoop;
+    private int skipsInLoop;
+    private int changeScopeRootsInLoop;
+    // The runs in a row that removed fewer AST nodes per millisecond than optimizationLoopMinYield,
+    // and whether the pass is no longer run in the current loop because of them.
+    private int lowYieldRunsInLoop;
+    private boolean stoppedYielding;
+
     NamedPass(PassFactory factory) {
       this.name = factory.getName();
       this.factory = factory;
     }
 
+    private void recordChangeScopeRoots(int changeScopeRoots) {
+      changeScopeRootsInLoop += changeScopeRoots;
+      if (tracker != null) {
+        tracker.recordChangeScopeRoots(name, changeScopeRoots);
+      }
+    }
+
+    /**
+     * Records how many AST nodes this run removed per millisecond. After two runs in a row below
+     * optimizationLoopMinYield, the pass is not run again in the current loop. Runs that grow the
+     * AST are not held against the pass: passes like inlineFunctions grow it so that the passes
+     * after them can remove more.
+     */
+    private void recordYield(int astReduction, long runtime) {
+      if (astReduction >= 0 && astReduction < optimizationLoopMinYield * Math.max(runtime, 1)) {
+        lowYieldRunsInLoop++;
+      } else {
+        lowYieldRunsInLoop = 0;
+      }
+      if (lowYieldRunsInLoop >= 2) {
+        stoppedYielding = true;
+        logger.fine("Not running pass " + name + " again in this loop, its last run removed "
+            + astReduction + " AST nodes in " + runtime + "ms");
+      }
+    }
+
     @Override
     public void process(Node externs, Node root) {
       if (!factory.featureSet().contains(compiler.getFeatureSet())) {
@@ -301,10 +364,31 @@ class PhaseOptimizer implements CompilerPass {
       // Delay the creation of the actual pass until *after* all previous passes
       // have been processed.
       // Some precondition checks rely on this, eg, in CoalesceVariableNames.
-      factory.create(compiler).process(externs, root);
+      CompilerPass pass = factory.create(compiler);
+      changedScopesVisited.set(0);
+      visitedChangedScopesOnly = false;
+      visitedAllScopes = false;
+      if (changeScopeRootExecutor != null && pass instanceof ChangeScopeRootPass) {
+        changeScopeRootExecutor.process((ChangeScopeRootPass) pass, root);
+      } else {
+        pass.process(externs, root);
+      }
 
       compiler.afterPass(name);
 
+      if (inLoop) {
+        runsInLoop++;
+        if (visitedChangedScopesOnly && !visitedAllScopes) {
+          recordChangeScopeRoots(changedScopesVisited.get());
+        } else if ((tracker != null && tracker.tracksAstSize())
+            || logger.isLoggable(Level.FINE)) {
+          // The pass looked at the whole AST. Counting its change scope roots takes another walk
+          // over the AST, which is only worth it when the tracker already walks it after every
+          // pass to measure its size, or when debugging.
+          recordChangeScopeRoots(countChangeScopeRoots(root));
+        }
+      }
+
       try {
         if (progressRange == null) {
           compiler.setProgress(-1, name);
@@ -318,6 +402,11 @@ class PhaseOptimizer implements CompilerPass {
         long traceRuntime = tracer.stop();
         if (tracker != null) {
           tracker.recordPassStop(name, traceRuntime);
+          // The tracker measures the AST after each pass that changed it, so the yield of a pass
+          // comes for free when it tracks AST sizes.
+          if (inLoop && optimizationLoopMinYield > 0 && tracker.tracksAstSize()) {
+            recordYield(tracker.getLastAstDiff(name), traceRuntime);
+          }
         }
         maybePrintAstHashcodes(name, root);
         maybeRunValidityCheck(name, externs, root);
@@ -339,10 +428,45 @@ class PhaseOptimizer implements CompilerPass {
     if (!inLoop) {
       return true;
     }
+    visitedChangedScopesOnly = true;
     int timeOfLastRun = lastRuns.get(currentPass);
     // A pass looks at all functions when it first runs
-    return timeOfLastRun == START_TIME
-        || n.getChangeTime() > timeOfLastRun;
+    if (timeOfLastRun == START_TIME || n.getChangeTime() > timeOfLastRun) {
+      changedScopesVisited.incrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Records the change scope roots that the running pass got from
+   * {@link Compiler#getChangedScopeNodesForPass}, null meaning all of them.
+   */
+  void recordChangedScopeNodes(@Nullable List<Node> changedScopeNodes) {
+    if (!inLoop) {
+      return;
+    }
+    visitedChangedScopesOnly = true;
+    if (changedScopeNodes == null) {
+      visitedAllScopes = true;
+    } else {
+      changedScopesVisited.addAndGet(changedScopeNodes.size());
+    }
+  }
+
+  private static int countChangeScopeRoots(Node root) {
+    final int[] count = {0};
+    NodeUtil.visitPreOrder(
+        root,
+        new NodeUtil.Visitor() {
+          @Override
+          public void visit(Node n) {
+            if (NodeUtil.isChangeScopeRoot(n)) {
+              count[0]++;
+            }
+          }
+        });
+    return count[0];
   }
 
   /**
@@ -408,6 +532,11 @@ class PhaseOptimizer implements CompilerPass {
       lastRuns = new HashMap<>();
       for (NamedPass pass : myPasses) {
         lastRuns.put(pass, START_TIME);
+        pass.runsInLoop = 0;
+        pass.skipsInLoop = 0;
+        pass.changeScopeRootsInLoop = 0;
+        pass.lowYieldRunsInLoop = 0;
+        pass.stoppedYielding = false;
       }
       // Contains a pass iff it made changes the last time it was run.
       Set<NamedPass> madeChanges = new HashSet<>();
@@ -444,6 +573,18 @@ class PhaseOptimizer implements CompilerPass {
                     && !runInPrevIter.contains(pass))
                 || (state == State.RUN_PASSES_THAT_CHANGED_STH_IN_PREV_ITER
                         && madeChanges.contains(pass))) {
+              if (pass.stoppedYielding) {
+                // Its last runs cost more time than the code they removed was worth.
+                pass.skipsInLoop++;
+                madeChanges.remove(pass);
+                continue;
+              }
+              if (isUpToDate(pass, madeChanges)) {
+                // Running it again would not change anything.
+                pass.skipsInLoop++;
+                runInPrevIter.add(pass);
+                continue;
+              }
               compiler.incrementChangeStamp();
               currentPass = pass;
               pass.process(externs, root);
@@ -480,7 +621,37 @@ class PhaseOptimizer implements CompilerPass {
       } finally {
         inLoop = false;
         compiler.removeChangeHandler(scopeHandler);
+        logStatistics(count - 1);
+      }
+    }
+
+    /**
+     * Returns whether the pass made no changes the last time it ran in this loop, and the code
+     * did not change since then, so it is still at its fixed point.
+     */
+    private boolean isUpToDate(NamedPass pass, Set<NamedPass> madeChanges) {
+      int timeOfLastRun = lastRuns.get(pass);
+      return timeOfLastRun != START_TIME
+          && !madeChanges.contains(pass)
+          && lastChange < timeOfLastRun;
+    }
+
+    private void logStatistics(int iterations) {
+      if (!logger.isLoggable(Level.FINE)) {
+        return;
+      }
+      StringBuilder sb = new StringBuilder();
+      sb.append("Loop finished after ").append(iterations).append(" iterations");
+      for (NamedPass pass : myPasses) {
+        sb.append("\n  ").append(pass.name)
+            .append(": ").append(pass.runsInLoop).append(" runs, ")
+            .append(pass.skipsInLoop).append(" skipped runs, ")
+            .append(pass.changeScopeRootsInLoop).append(" change scope roots visited");
+        if (pass.stoppedYielding) {
+          sb.append(", stopped for low yield");
+        }
       }
+      logger.fine(sb.toString());
     }
 
     /**
@@ -16,67 +16,179 @@
 
 package com.google.javascript.jscomp;
 
-import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 
 /**
  * A helper class to prebuild ASTs from a list of {@link CompilerInput}. Inputs are parsed into ASTs
  * the first time we try to get them. Get them all now using multiple threads, so they'll be parsed
  * in parallel and already available during the rest of the compilation.
+ *
+ * <p>One instance is kept per compilation so that its thread pool is reused for the externs, the
+ * inputs and any module inputs. Inputs are scheduled largest first so that a single big file does
+ * not end up as the tail of the parse phase. Parsing can be started with {@link #start} and waited
+ * upon later, so that the caller can keep working (e.g. ordering the inputs) while the ASTs are
+ * being built; {@link JsAst#getAstRoot} blocks on an input that is still being parsed.
  */
 class PrebuildAst {
+  // Idle workers are released after this many seconds, so a compiler that is kept around does not
+  // pin its parse threads.
+  private static final long KEEP_ALIVE_SECONDS = 30;
+
   private final AbstractCompiler compiler;
   private final int numParallelThreads;
+  private ThreadPoolExecutor poolExecutor;
 
   PrebuildAst(AbstractCompiler compiler, int numParalleThreads) {
     this.compiler = compiler;
     this.numParallelThreads = numParalleThreads;
   }
 
+  /** Parses all the given inputs and waits for them to finish. */
   void prebuild(List<CompilerInput> inputList) {
-    ThreadFactory threadFactory = new ThreadFactory() {
-        @Override
-        public Thread newThread(Runnable r) {
-          Thread t =
-              new Thread(null, r, "jscompiler-PrebuildAst", CompilerExecutor.COMPILER_STACK_SIZE);
-          t.setDaemon(true);  // Do not prevent the JVM from exiting.
-          return t;
-        }
-    };
-    ThreadPoolExecutor poolExecutor = new ThreadPoolExecutor(
-        numParallelThreads,
-        numParallelThreads,
-        Integer.MAX_VALUE,
-        TimeUnit.SECONDS,
-        new LinkedBlockingQueue<Runnable>(),
-        threadFactory);
-    ListeningExecutorService executorService = MoreExecutors.listeningDecorator(poolExecutor);
-    List<ListenableFuture<?>> futureList = new ArrayList<>(inputList.size());
-    // TODO(moz): Support canceling all parsing on the first halting error
-    for (final CompilerInput input : inputList) {
-      futureList.add(executorService.submit(new Runnable() {
+    start(inputList).await();
+  }
+
+  /**
+   * Starts parsing the given inputs on the worker pool and returns immediately. The returned
+   * batch must be either awaited or cancelled.
+   */
+  ParseBatch start(List<CompilerInput> inputList) {
+    // Look the sizes up once; for files on disk this is a filesystem call.
+    final Map<CompilerInput, Long> sizes = new HashMap<>();
+    for (CompilerInput input : inputList) {
+      sizes.put(input, input.getSourceFile().getSizeEstimate());
+    }
+    List<CompilerInput> schedule = new ArrayList<>(inputList);
+    Collections.sort(schedule, new Comparator<CompilerInput>() {
+      @Override
+      public int compare(CompilerInput a, CompilerInput b) {
+        return Long.compare(sizes.get(b), sizes.get(a));
+      }
+    });
+    ParseBatch batch = new ParseBatch(schedule.size());
+    ThreadPoolExecutor executor = getExecutor();
+    for (final CompilerInput input : schedule) {
+      batch.futures.add(executor.submit(batch.newTask(input)));
+    }
+    return batch;
+  }
+
+  private synchronized ThreadPoolExecutor getExecutor() {
+    if (poolExecutor == null) {
+      poolExecutor = new ThreadPoolExecutor(
+          numParallelThreads,
+          numParallelThreads,
+          KEEP_ALIVE_SECONDS,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          CompilerExecutor.newDaemonThreadFactory("jscompiler-PrebuildAst-"));
+      poolExecutor.allowCoreThreadTimeOut(true);
+    }
+    return poolExecutor;
+  }
+
+  /**
+   * A set of inputs being parsed in the background. Outstanding work is dropped as soon as any
+   * input reports a halting error.
+   */
+  final class ParseBatch {
+    private final List<Future<?>> futures;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicInteger parsedCount = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+
+    private ParseBatch(int size) {
+      this.futures = new ArrayList<>(size);
+    }
+
+    private Runnable newTask(final CompilerInput input) {
+      return new Runnable() {
         @Override
         public void run() {
+          if (cancelled.get()) {
+            return;
+          }
+          long start = System.nanoTime();
           input.getAstRoot(compiler);
+          parseNanos.addAndGet(System.nanoTime() - start);
+          parsedCount.incrementAndGet();
+          if (compiler.hasHaltingErrors()) {
+            // Tasks that have not started yet will see this and return immediately.
+            cancelled.set(true);
+          }
         }
-      }));
+      };
     }
 
-    poolExecutor.shutdown();
-    try {
-      Futures.allAsList(futureList).get();
-    } catch (InterruptedException | ExecutionException e) {
-      throw new RuntimeException(e);
+    /**
+     * Drops all inputs that have not started parsing yet, and waits for the ones being parsed, so
+     * that no input reports errors to the compiler after this returns. Must be called on the
+     * caller's thread.
+     */
+    void cancel() {
+      cancelled.set(true);
+      for (Future<?> future : futures) {
+        future.cancel(false);
+      }
+      for (Future<?> future : futures) {
+        try {
+          Uninterruptibles.getUninterruptibly(future);
+        } catch (CancellationException | ExecutionException e) {
+          // Never started, or already failed; either way it is no longer running.
+        }
+      }
     }
-  }
 
+    /**
+     * Waits for every input in the batch to be parsed, or for the batch to be cancelled.
+     *
+     * @return whether all the inputs were parsed
+     */
+    boolean await() {
+      long awaitStart = System.nanoTime();
+      try {
+        for (Future<?> future : futures) {
+          try {
+            future.get();
+          } catch (CancellationException e) {
+            // Dropped because of a halting error in another input.
+          }
+        }
+      } catch (InterruptedException e) {
+        cancel();
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        cancel();
+        throw new RuntimeException(e);
+      }
+      long end = System.nanoTime();
+      if (Compiler.logger.isLoggable(Level.FINE)) {
+        Compiler.logger.fine(
+            "Parsed " + parsedCount.get() + " of " + futures.size() + " inputs on "
+                + numParallelThreads + " threads: wall "
+                + TimeUnit.NANOSECONDS.toMillis(end - startNanos) + "ms, parse "
+                + TimeUnit.NANOSECONDS.toMillis(parseNanos.get()) + "ms, blocked "
+                + TimeUnit.NANOSECONDS.toMillis(end - awaitStart) + "ms");
+      }
+      return !cancelled.get();
+    }
+  }
 }
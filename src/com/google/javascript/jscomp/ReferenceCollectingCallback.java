@@ -31,6 +31,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * A helper class for passes that want to access all information about where a variable is
@@ -81,6 +82,12 @@ public final class ReferenceCollectingCallback
   private final Set<Var> finishedFunctionTraverse = new HashSet<>();
   private Scope narrowScope;
 
+  /**
+   * The functions of the global scope to traverse, or null to traverse them all. See
+   * {@link #skipUnchangedGlobalFunctions}.
+   */
+  @Nullable private Set<Node> changedGlobalFunctions;
+
   /**
    * Constructor initializes block stack.
    */
@@ -118,6 +125,37 @@ public final class ReferenceCollectingCallback
     t.traverse(root);
   }
 
+  /**
+   * Makes the next traversal skip the functions of the global scope that did not change, and do not
+   * contain a function that changed, since the last call with the same key. The references to the
+   * global variables are then incomplete, so this is only for behaviors that ignore them.
+   */
+  void skipUnchangedGlobalFunctions(String passName) {
+    List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(passName);
+    if (changedScopeNodes == null) {
+      changedGlobalFunctions = null;
+      return;
+    }
+    changedGlobalFunctions = new HashSet<>();
+    for (Node n : changedScopeNodes) {
+      Node outermostFunction = null;
+      for (Node ancestor = n; ancestor != null; ancestor = ancestor.getParent()) {
+        if (ancestor.isFunction()) {
+          outermostFunction = ancestor;
+        }
+      }
+      if (outermostFunction != null) {
+        changedGlobalFunctions.add(outermostFunction);
+      }
+    }
+  }
+
+  private boolean isSkippedFunction(Node fnNode, Scope containingScope) {
+    return changedGlobalFunctions != null
+        && containingScope.isGlobal()
+        && !changedGlobalFunctions.contains(fnNode);
+  }
+
   /**
    * Targets reference collection to a particular scope.
    */
@@ -192,7 +230,7 @@ public final class ReferenceCollectingCallback
   }
 
   private void outOfBandTraversal(Var v) {
-    if (startedFunctionTraverse.contains(v)) {
+    if (startedFunctionTraverse.contains(v) || isSkippedFunction(v.getParentNode(), v.getScope())) {
       return;
     }
     startedFunctionTraverse.add(v);
@@ -267,6 +305,9 @@ public final class ReferenceCollectingCallback
     //
     // TODO(nicksantos): Maybe generalize this to a continuation mechanism
     // like in RemoveUnusedVars.
+    if (n.isFunction() && isSkippedFunction(n, nodeTraversal.getScope())) {
+      return false;
+    }
     if (NodeUtil.isHoistedFunctionDeclaration(n)) {
       Node nameNode = n.getFirstChild();
       Var functionVar = nodeTraversal.getScope().getVar(nameNode.getString());
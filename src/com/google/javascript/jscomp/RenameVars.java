@@ -23,7 +23,6 @@ import static com.google.common.base.Strings.nullToEmpty;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ListMultimap;
-import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.NodeTraversal.ScopedCallback;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
@@ -148,6 +147,30 @@ final class RenameVars implements CompilerPass {
   // Shared name generator
   private final NameGenerator nameGenerator;
 
+  /** Keeps what this pass finds in each script across compilations, or null. */
+  @Nullable private RenameVarsCache cache;
+
+  /** The cache entries of the scripts of this compilation, by script name. */
+  private Map<String, RenameVarsCache.ScriptEntry> cacheEntries;
+
+  // What ProcessVars does with a name, see applyAction. These are kept in the
+  // cache entries, with the resolution of the name in the high bits.
+  private static final int IGNORE = 0;
+  private static final int RESERVE = 1;
+  private static final int RESTORE_ORIGINAL_NAME = 2;
+  private static final int RENAME_LOCAL = 3;
+  private static final int RENAME = 4;
+  private static final int RECORD_PSEUDO_NAME = 5;
+  private static final int ACTION_MASK = 0x0F;
+
+  // Whether a name refers to a variable of its script (or does not depend on
+  // the scope at all), to a global, or to no variable. Only the last two can
+  // change when the other scripts change.
+  private static final int RESOLVED_LOCAL = 0x00;
+  private static final int RESOLVED_GLOBAL = 0x10;
+  private static final int UNRESOLVED = 0x20;
+  private static final int RESOLUTION_MASK = 0x30;
+
   /*
    * nameGenerator is a shared NameGenerator that this instance can use;
    * the instance may reset or reconfigure it, so the caller should
@@ -181,6 +204,14 @@ final class RenameVars implements CompilerPass {
     this.nameGenerator = nameGenerator;
   }
 
+  /**
+   * Sets a cache of what this pass finds in each script, to only look up the
+   * variables of the scripts that changed since the previous compilation.
+   */
+  void setCache(@Nullable RenameVarsCache cache) {
+    this.cache = cache;
+  }
+
   /**
    * Iterate through the nodes, collect all the NAME nodes that need to be
    * renamed, and count how many times each variable name is referenced.
@@ -201,7 +232,34 @@ final class RenameVars implements CompilerPass {
    * function x(a,b) { ... }
    * function y(a,b,c) { ... }
    */
-  class ProcessVars extends AbstractPostOrderCallback implements ScopedCallback {
+  class ProcessVars implements ScopedCallback {
+    /** Records the names of the current script for the cache, or null. */
+    private RenameVarsCache.ScriptEntryBuilder scriptEntry;
+
+    @Override
+    public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
+      if (cache == null || !n.isScript() || n.getSourceFileName() == null) {
+        return true;
+      }
+      String scriptName = n.getSourceFileName();
+      List<Node> names = new ArrayList<>();
+      long fingerprint = fingerprint(n, FINGERPRINT_SEED, names);
+      RenameVarsCache.ScriptEntry entry = cache.get(scriptName, fingerprint);
+      if (entry != null && isStillResolvedTheSameWay(entry, names, t.getScope())) {
+        cache.recordHit();
+        cacheEntries.put(scriptName, entry);
+        int local = 0;
+        for (int i = 0; i < names.size(); i++) {
+          int action = entry.getAction(i) & ACTION_MASK;
+          int localIndex = action == RENAME_LOCAL ? entry.getLocalIndex(local++) : -1;
+          applyAction(names.get(i), action, localIndex);
+        }
+        return false;
+      }
+      cache.recordMiss();
+      scriptEntry = new RenameVarsCache.ScriptEntryBuilder(fingerprint);
+      return true;
+    }
 
     @Override
     public void enterScope(NodeTraversal t) {
@@ -223,20 +281,22 @@ final class RenameVars implements CompilerPass {
 
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
-      if (!(n.isName() || n.isImportStar())) {
+      if (n.isScript() && scriptEntry != null) {
+        cacheEntries.put(n.getSourceFileName(), scriptEntry.build());
+        scriptEntry = null;
         return;
       }
 
-      String name = n.getString();
-
-      // Ignore anonymous functions and classes.
-      if (name.isEmpty()) {
+      if (!isVisitedName(n)) {
         return;
       }
 
+      String name = n.getString();
+
       // "import {x as y} from 'm';"
       // Skip x because it's not a variable in this scope.
       if (parent.isImportSpec() && parent.hasTwoChildren() && parent.getFirstChild() == n) {
+        record(IGNORE | RESOLVED_LOCAL, -1);
         return;
       }
 
@@ -249,69 +309,159 @@ final class RenameVars implements CompilerPass {
           var != null
               && var.isLocal()
               && (var.scope.getParent().isLocal() || !var.isBleedingFunction());
+      int resolution =
+          var == null ? UNRESOLVED : (var.isLocal() ? RESOLVED_LOCAL : RESOLVED_GLOBAL);
 
-      // Never rename references to the arguments array
+      int action;
+      int localIndex = -1;
       if (var != null && var.isArguments()) {
-        reservedNames.add(name);
-        return;
+        // Never rename references to the arguments array
+        action = RESERVE;
+      } else if (!local && localRenamingOnly) {
+        // Are we renaming global variables?
+        action = RESERVE;
+      } else if (preserveFunctionExpressionNames && var != null
+          && NodeUtil.isFunctionExpression(var.getParentNode())) {
+        // Are we renaming function expression names?
+        action = RESERVE;
+      } else if (!okToRenameVar(name, local)) {
+        // Check if we can rename this.
+        action = local ? RESTORE_ORIGINAL_NAME : IGNORE;
+      } else if (local && shouldTemporarilyRenameLocalsInScope(var.getScope())) {
+        action = RENAME_LOCAL;
+        localIndex = getLocalVarIndex(var);
+      } else if (var != null) { // Not an extern
+        action = RENAME;
+      } else {
+        action = RECORD_PSEUDO_NAME;
       }
+      record(action | resolution, localIndex);
+      applyAction(n, action, localIndex);
+    }
 
-      // Are we renaming global variables?
-      if (!local && localRenamingOnly) {
-        reservedNames.add(name);
-        return;
+    private void record(int action, int localIndex) {
+      if (scriptEntry != null) {
+        scriptEntry.addAction(action);
+        if (localIndex >= 0) {
+          scriptEntry.addLocalIndex(localIndex);
+        }
       }
+    }
+  }
 
-      // Are we renaming function expression names?
-      if (preserveFunctionExpressionNames && var != null
-          && NodeUtil.isFunctionExpression(var.getParentNode())) {
+  /** Returns whether ProcessVars looks at the given node. */
+  private static boolean isVisitedName(Node n) {
+    // Ignore anonymous functions and classes.
+    return (n.isName() || n.isImportStar()) && !n.getString().isEmpty();
+  }
+
+  /**
+   * Counts a name and gives it a temporary name, or reserves it, as decided by
+   * ProcessVars.
+   *
+   * @param localIndex the index of the variable within the scope stack, for
+   *     {@code RENAME_LOCAL}
+   */
+  private void applyAction(Node n, int action, int localIndex) {
+    String name = n.getString();
+    switch (action) {
+      case IGNORE:
+        return;
+      case RESERVE:
         reservedNames.add(name);
         return;
-      }
-
-      // Check if we can rename this.
-      if (!okToRenameVar(name, local)) {
-        if (local) {
-          // Blindly de-uniquify for the Prototype library for
-          // http://blickly.github.io/closure-compiler-issues/#103
-          String newName = MakeDeclaredNamesUnique.ContextualRenameInverter.getOriginalName(name);
-          if (!newName.equals(name)) {
-            n.setString(newName);
-          }
+      case RESTORE_ORIGINAL_NAME:
+        // Blindly de-uniquify for the Prototype library for
+        // http://blickly.github.io/closure-compiler-issues/#103
+        String newName = MakeDeclaredNamesUnique.ContextualRenameInverter.getOriginalName(name);
+        if (!newName.equals(name)) {
+          n.setString(newName);
         }
         return;
-      }
+      default:
+        break;
+    }
 
-      if (pseudoNameMap != null) {
-        recordPseudoName(n);
-      }
+    if (pseudoNameMap != null) {
+      recordPseudoName(n);
+    }
 
-      if (local && shouldTemporarilyRenameLocalsInScope(var.getScope())) {
-        // Give local variables a temporary name based on the
-        // variable's index in the scope to enable name reuse across
-        // locals in independent scopes.
-        String tempName = LOCAL_VAR_PREFIX + getLocalVarIndex(var);
-        incCount(tempName);
-        localNameNodes.add(n);
-        // Remember the original string in a name before it's temporarily filled with an "L".
-        originalNameByNode.put(n, n.getString());
-        n.setString(tempName);
-      } else if (var != null) { // Not an extern
-        // If it's global, increment global count
-        incCount(name);
-        globalNameNodes.add(n);
+    if (action == RENAME_LOCAL) {
+      // Give local variables a temporary name based on the
+      // variable's index in the scope to enable name reuse across
+      // locals in independent scopes.
+      String tempName = LOCAL_VAR_PREFIX + localIndex;
+      incCount(tempName);
+      localNameNodes.add(n);
+      // Remember the original string in a name before it's temporarily filled with an "L".
+      originalNameByNode.put(n, name);
+      n.setString(tempName);
+    } else if (action == RENAME) {
+      // If it's global, increment global count
+      incCount(name);
+      globalNameNodes.add(n);
+    }
+  }
+
+  // Increment count of an assignment
+  private void incCount(String name) {
+    Assignment s = assignments.get(name);
+    if (s == null) {
+      s = new Assignment(name);
+      assignments.put(name, s);
+    }
+    s.count++;
+  }
+
+  /**
+   * Returns whether the names of a cached script that referred to a global,
+   * or to no variable, still do.
+   */
+  private static boolean isStillResolvedTheSameWay(
+      RenameVarsCache.ScriptEntry entry, List<Node> names, Scope globalScope) {
+    if (entry.getNameCount() != names.size()) {
+      return false;
+    }
+    for (int i = 0; i < names.size(); i++) {
+      int resolution = entry.getAction(i) & RESOLUTION_MASK;
+      if (resolution != RESOLVED_LOCAL) {
+        Var var = globalScope.getVar(names.get(i).getString());
+        if ((var != null) != (resolution == RESOLVED_GLOBAL)) {
+          return false;
+        }
       }
     }
+    return true;
+  }
 
-    // Increment count of an assignment
-    void incCount(String name) {
-      Assignment s = assignments.get(name);
-      if (s == null) {
-        s = new Assignment(name);
-        assignments.put(name, s);
+  private static final long FINGERPRINT_SEED = 0xcbf29ce484222325L;
+
+  /**
+   * Computes a fingerprint of the tokens, the shape and the variable names of
+   * a tree, which is all that decides how ProcessVars treats its names, and
+   * adds the names that ProcessVars looks at to {@code names}, in the order
+   * in which it visits them.
+   */
+  private static long fingerprint(Node n, long fingerprint, List<Node> names) {
+    long result = mix(fingerprint, n.getToken().ordinal());
+    for (Node child = n.getFirstChild(); child != null; child = child.getNext()) {
+      result = fingerprint(child, result, names);
+    }
+    if (n.isName() || n.isImportStar()) {
+      String name = n.getString();
+      for (int i = 0; i < name.length(); i++) {
+        result = mix(result, name.charAt(i));
+      }
+      if (isVisitedName(n)) {
+        names.add(n);
       }
-      s.count++;
     }
+    // Marks the end of the children.
+    return mix(result, -1);
+  }
+
+  private static long mix(long fingerprint, int value) {
+    return (fingerprint ^ value) * 0x100000001b3L;
   }
 
   /**
@@ -351,7 +501,15 @@ final class RenameVars implements CompilerPass {
     assignmentLog = new StringBuilder();
 
     // Do variable reference counting.
+    if (cache != null) {
+      cache.start(getCacheConfiguration());
+      cacheEntries = new HashMap<>();
+    }
     NodeTraversal.traverseEs6(compiler, root, new ProcessVars());
+    if (cache != null) {
+      cache.finish(cacheEntries);
+      cacheEntries = null;
+    }
 
     // Make sure that new names don't overlap with extern names.
     reservedNames.addAll(externNames);
@@ -571,6 +729,12 @@ final class RenameVars implements CompilerPass {
     return new VariableMap(ImmutableMap.copyOf(renameMap));
   }
 
+  /** Returns the options on which the decisions kept in the cache depend. */
+  private String getCacheConfiguration() {
+    return localRenamingOnly + "," + preserveFunctionExpressionNames + ","
+        + preferStableNames + "," + compiler.getCodingConvention().getClass().getName();
+  }
+
   /**
    * Determines whether a variable name is okay to rename.
    */
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps what {@link RenameVars} found in each script of a compilation, so that the next
+ * compilation of the same project only needs to look up the variables of the scripts that
+ * changed.
+ *
+ * <p>An entry holds a fingerprint of the script as it was when RenameVars ran, and what the pass
+ * did with each of its names, in traversal order: give a local its temporary name, count a global,
+ * reserve a name, and so on. When a script has the same fingerprint in a later compilation, its
+ * names are counted and renamed from the entry, without creating the scopes of its functions. The
+ * name assignment is then computed from the counts of all the scripts, as usual. An entry is only
+ * used if the names that referred to a global, or to no variable at all, still do.
+ *
+ * <p>Keep one instance across the compilations of a project and pass it to each of them with
+ * {@link CompilerOptions#setRenameVarsCache}. The cache can be serialized to keep it between runs
+ * of the compiler. It is not thread-safe.
+ */
+public final class RenameVarsCache implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  // The options of RenameVars that the entries depend on.
+  private String configuration = null;
+
+  private Map<String, ScriptEntry> entries = new HashMap<>();
+
+  private transient int hits;
+  private transient int misses;
+
+  public RenameVarsCache() {}
+
+  /**
+   * Starts a compilation with the given options of RenameVars, dropping the entries recorded
+   * with different options.
+   */
+  void start(String configuration) {
+    if (!configuration.equals(this.configuration)) {
+      this.configuration = configuration;
+      entries = new HashMap<>();
+    }
+  }
+
+  /** Returns the entry of a script with the given fingerprint, or null if there is none. */
+  @Nullable
+  ScriptEntry get(String scriptName, long fingerprint) {
+    ScriptEntry entry = entries.get(scriptName);
+    if (entry != null && entry.fingerprint == fingerprint) {
+      return entry;
+    }
+    return null;
+  }
+
+  void recordHit() {
+    hits++;
+  }
+
+  void recordMiss() {
+    misses++;
+  }
+
+  /** Replaces the entries with those of the scripts of the compilation that just ran. */
+  void finish(Map<String, ScriptEntry> scriptEntries) {
+    entries = scriptEntries;
+  }
+
+  /** Returns the number of scripts whose names were taken from the cache. */
+  public int getHitCount() {
+    return hits;
+  }
+
+  /** Returns the number of scripts whose names had to be looked up. */
+  public int getMissCount() {
+    return misses;
+  }
+
+  /** What RenameVars did with the names of one script. */
+  static final class ScriptEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final long fingerprint;
+    // One action per name, in traversal order.
+    private final byte[] actions;
+    // The index of each local given a temporary name, in traversal order.
+    private final int[] localIndices;
+
+    private ScriptEntry(long fingerprint, byte[] actions, int[] localIndices) {
+      this.fingerprint = fingerprint;
+      this.actions = actions;
+      this.localIndices = localIndices;
+    }
+
+    int getNameCount() {
+      return actions.length;
+    }
+
+    int getAction(int name) {
+      return actions[name];
+    }
+
+    int getLocalIndex(int local) {
+      return localIndices[local];
+    }
+  }
+
+  /** Records the actions of a script as RenameVars visits its names. */
+  static final class ScriptEntryBuilder {
+    private final long fingerprint;
+    private byte[] actions = new byte[64];
+    private int actionCount = 0;
+    private int[] localIndices = new int[16];
+    private int localCount = 0;
+
+    ScriptEntryBuilder(long fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    void addAction(int action) {
+      if (actionCount == actions.length) {
+        actions = Arrays.copyOf(actions, actionCount * 2);
+      }
+      actions[actionCount++] = (byte) action;
+    }
+
+    void addLocalIndex(int localIndex) {
+      if (localCount == localIndices.length) {
+        localIndices = Arrays.copyOf(localIndices, localCount * 2);
+      }
+      localIndices[localCount++] = localIndex;
+    }
+
+    ScriptEntry build() {
+      return new ScriptEntry(
+          fingerprint,
+          Arrays.copyOf(actions, actionCount),
+          Arrays.copyOf(localIndices, localCount));
+    }
+  }
+}
@@ -210,6 +210,14 @@ public class SourceFile implements StaticSourceFile, Serializable {
     return code != null;
   }
 
+  /**
+   * Returns an estimate of the size of this source, without loading it if that can be avoided.
+   * Used to schedule the largest inputs first when parsing in parallel.
+   */
+  long getSizeEstimate() {
+    return code != null ? code.length() : 0;
+  }
+
   /** Returns a unique name for the source file. */
   @Override
   public String getName() {
@@ -642,6 +650,18 @@ public class SourceFile implements StaticSourceFile, Serializable {
       }
     }
 
+    @Override
+    long getSizeEstimate() {
+      if (hasSourceInMemory() || path == null) {
+        return super.getSizeEstimate();
+      }
+      try {
+        return Files.size(path);
+      } catch (IOException e) {
+        return 0;
+      }
+    }
+
     // Flush the cached code after the compile; we can read it off disk
     // if we need it again.
     @Override
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.common.collect.Multimap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs tasks that depend on each other on a pool of threads. A task starts once all the tasks it
+ * depends on are done, and sees everything they did.
+ *
+ * <p>Each thread runs its tasks with its own {@link Worker}, so a worker can keep state that is
+ * not thread safe from one task to the next.
+ */
+class TaskGraphExecutor {
+  /** Runs the tasks given to one thread. */
+  interface Worker<T> {
+    void run(T task);
+  }
+
+  // Tells a thread that there are no more tasks to run.
+  private static final int NO_MORE_TASKS = -1;
+
+  private TaskGraphExecutor() {}
+
+  /**
+   * Runs all the {@code tasks}, each after the tasks it depends on in {@code dependencies}, with
+   * one thread per worker. The tasks must be listed in an order that respects their dependencies;
+   * it is the order in which they run when there is only one worker. Dependencies on tasks that
+   * are not listed are ignored.
+   */
+  static <T> void execute(
+      final List<T> tasks,
+      Multimap<T, T> dependencies,
+      List<? extends Worker<? super T>> workers) {
+    checkArgument(!workers.isEmpty());
+    int numTasks = tasks.size();
+    Map<T, Integer> indices = new HashMap<>();
+    for (int i = 0; i < numTasks; i++) {
+      indices.put(tasks.get(i), i);
+    }
+    final AtomicIntegerArray waitingFor = new AtomicIntegerArray(numTasks);
+    final List<List<Integer>> dependents = new ArrayList<>(numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      dependents.add(new ArrayList<Integer>());
+    }
+    for (Map.Entry<T, T> dependency : dependencies.entries()) {
+      Integer task = indices.get(dependency.getKey());
+      Integer dependsOn = indices.get(dependency.getValue());
+      if (task != null && dependsOn != null) {
+        checkArgument(
+            dependsOn < task,
+            "%s must be listed before %s",
+            dependency.getValue(),
+            dependency.getKey());
+        waitingFor.incrementAndGet(task);
+        dependents.get(dependsOn).add(task);
+      }
+    }
+
+    final int numThreads = Math.min(workers.size(), numTasks);
+    if (numThreads <= 1) {
+      for (T task : tasks) {
+        workers.get(0).run(task);
+      }
+      return;
+    }
+
+    final BlockingQueue<Integer> ready = new LinkedBlockingQueue<>();
+    for (int i = 0; i < numTasks; i++) {
+      if (waitingFor.get(i) == 0) {
+        ready.add(i);
+      }
+    }
+    final AtomicInteger remaining = new AtomicInteger(numTasks);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>(numThreads);
+    ThreadFactory threadFactory = CompilerExecutor.newDaemonThreadFactory("jscompiler-TaskGraph-");
+    for (int i = 0; i < numThreads; i++) {
+      final Worker<? super T> worker = workers.get(i);
+      Runnable runTasks = new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int task = ready.take(); task != NO_MORE_TASKS; task = ready.take()) {
+              worker.run(tasks.get(task));
+              for (int dependent : dependents.get(task)) {
+                if (waitingFor.decrementAndGet(dependent) == 0) {
+                  ready.add(dependent);
+                }
+              }
+              if (remaining.decrementAndGet() == 0) {
+                stopAll(ready, numThreads);
+              }
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+            stopAll(ready, numThreads);
+          }
+        }
+      };
+      Thread thread = threadFactory.newThread(runTasks);
+      threads.add(thread);
+      thread.start();
+    }
+
+    try {
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      for (Thread thread : threads) {
+        thread.interrupt();
+      }
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    Throwable t = failure.get();
+    if (t != null) {
+      throwIfUnchecked(t);
+      throw new RuntimeException(t);
+    }
+  }
+
+  private static void stopAll(BlockingQueue<Integer> ready, int numThreads) {
+    for (int i = 0; i < numThreads; i++) {
+      ready.add(NO_MORE_TASKS);
+    }
+  }
+}
@@ -16,44 +16,110 @@
 
 package com.google.javascript.jscomp;
 
+import com.google.javascript.jscomp.BasicErrorManager.ErrorWithLevel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 /**
- * A simple delegating {@link ErrorManager} that provides a thread-safe wrapper
- * for the one being delegated.
+ * A delegating {@link ErrorManager} that can be reported to from several threads at once.
+ *
+ * <p>Reports are queued without locking, and passed on to the delegated error manager before
+ * anything is read from it. Each batch of queued reports is sorted first, so that their order
+ * does not depend on the scheduling of the threads.
  */
 public class ThreadSafeDelegatingErrorManager implements ErrorManager {
+  /** Orders reports by source name, line, column, type, description and level. */
+  private static final Comparator<ErrorWithLevel> REPORT_ORDER =
+      new Comparator<ErrorWithLevel>() {
+        @Override
+        public int compare(ErrorWithLevel e1, ErrorWithLevel e2) {
+          JSError a = e1.error;
+          JSError b = e2.error;
+          int result = compareNullable(a.sourceName, b.sourceName);
+          if (result == 0) {
+            result = Integer.compare(a.lineNumber, b.lineNumber);
+          }
+          if (result == 0) {
+            result = Integer.compare(a.getCharno(), b.getCharno());
+          }
+          if (result == 0) {
+            result = a.getType().key.compareTo(b.getType().key);
+          }
+          if (result == 0) {
+            result = compareNullable(a.description, b.description);
+          }
+          if (result == 0) {
+            result = compareNullable(e1.level, e2.level);
+          }
+          return result;
+        }
+
+        private <T extends Comparable<T>> int compareNullable(T a, T b) {
+          if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+          }
+          return a.compareTo(b);
+        }
+      };
+
   private final ErrorManager delegated;
 
+  private final ConcurrentLinkedQueue<ErrorWithLevel> pending = new ConcurrentLinkedQueue<>();
+
   public ThreadSafeDelegatingErrorManager(ErrorManager delegated) {
     this.delegated = delegated;
   }
 
   @Override
-  public synchronized void report(CheckLevel level, JSError error) {
-    delegated.report(level, error);
+  public void report(CheckLevel level, JSError error) {
+    pending.add(new ErrorWithLevel(error, level));
+  }
+
+  /** Passes the queued reports on to the delegated error manager. */
+  private void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    List<ErrorWithLevel> reports = new ArrayList<>();
+    for (ErrorWithLevel report = pending.poll(); report != null; report = pending.poll()) {
+      reports.add(report);
+    }
+    Collections.sort(reports, REPORT_ORDER);
+    for (ErrorWithLevel report : reports) {
+      delegated.report(report.level, report.error);
+    }
   }
 
   @Override
   public synchronized void generateReport() {
+    flush();
     delegated.generateReport();
   }
 
   @Override
   public synchronized int getErrorCount() {
+    flush();
     return delegated.getErrorCount();
   }
 
   @Override
   public synchronized int getWarningCount() {
+    flush();
     return delegated.getWarningCount();
   }
 
   @Override
   public synchronized JSError[] getErrors() {
+    flush();
     return delegated.getErrors();
   }
 
   @Override
   public synchronized JSError[] getWarnings() {
+    flush();
     return delegated.getWarnings();
   }
 
@@ -66,5 +132,4 @@ public class ThreadSafeDelegatingErrorManager implements ErrorManager {
   public synchronized double getTypedPercent() {
     return delegated.getTypedPercent();
   }
-
 }
@@ -237,8 +237,7 @@ final class TypedScopeCreator implements ScopeCreator {
       root.getLastChild().setJSType(globalThis);
 
       // Run a first-order analysis over the syntax tree.
-      (new FirstOrderFunctionAnalyzer(compiler, functionAnalysisResults))
-          .process(root.getFirstChild(), root.getLastChild());
+      analyzeFunctions(root);
 
       // Find all the classes in the global scope.
       newScope = createInitialScope(root);
@@ -324,15 +323,63 @@ final class TypedScopeCreator implements ScopeCreator {
     NodeTraversal.traverseTyped(compiler, scriptRoot, scopeBuilder);
   }
 
+  /**
+   * Returns the roots that the declarations are collected from, each on its own: the scripts, when
+   * {@code root} is the root of the externs and of the sources, and {@code root} itself otherwise.
+   */
+  private static List<Node> getInputRoots(Node root) {
+    if (!root.isRoot() || !root.hasTwoChildren() || !root.getFirstChild().isRoot()) {
+      return ImmutableList.of(root);
+    }
+    List<Node> scripts = new ArrayList<>();
+    for (Node scriptsRoot : root.children()) {
+      for (Node script : scriptsRoot.children()) {
+        scripts.add(script);
+      }
+    }
+    return scripts;
+  }
+
+  /**
+   * Runs the first-order function analysis over each input on its own, on several threads, and
+   * keeps the results in the order of the inputs. An input does not see the local variables of
+   * another, so the results are those of one traversal of the whole program.
+   */
+  private void analyzeFunctions(Node root) {
+    List<Node> inputs = getInputRoots(root);
+    List<FirstOrderFunctionAnalyzer> analyzers = new ArrayList<>(inputs.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      analyzers.add(
+          new FirstOrderFunctionAnalyzer(
+              compiler, new LinkedHashMap<Node, AstFunctionContents>()));
+    }
+    ParallelScriptTraversal.traverseTyped(
+        compiler, inputs, compiler.getOptions().numParallelThreads, analyzers);
+    for (FirstOrderFunctionAnalyzer analyzer : analyzers) {
+      functionAnalysisResults.putAll(analyzer.data);
+    }
+  }
+
   /**
    * Create the outermost scope. This scope contains native binding such as
    * {@code Object}, {@code Date}, etc.
    */
   @VisibleForTesting
   TypedScope createInitialScope(Node root) {
-
-    NodeTraversal.traverseTyped(
-        compiler, root, new DiscoverEnumsAndTypedefs(typeRegistry));
+    // Find the enums and typedefs of each input on several threads, then tell the registry about
+    // them in the order of the inputs, from this thread.
+    List<Node> inputs = getInputRoots(root);
+    List<DiscoverEnumsAndTypedefs> discoveries = new ArrayList<>(inputs.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      discoveries.add(new DiscoverEnumsAndTypedefs());
+    }
+    ParallelScriptTraversal.traverseTyped(
+        compiler, inputs, compiler.getOptions().numParallelThreads, discoveries);
+    for (DiscoverEnumsAndTypedefs discovery : discoveries) {
+      for (String name : discovery.nonNullableNames) {
+        typeRegistry.identifyNonNullableName(name);
+      }
+    }
 
     TypedScope s = TypedScope.createGlobalScope(root);
     declareNativeFunctionType(s, ARRAY_FUNCTION_TYPE);
@@ -378,11 +425,8 @@ final class TypedScopeCreator implements ScopeCreator {
 
   private static class DiscoverEnumsAndTypedefs
       extends AbstractShallowStatementCallback {
-    private final JSTypeRegistry registry;
-
-    DiscoverEnumsAndTypedefs(JSTypeRegistry registry) {
-      this.registry = registry;
-    }
+    // The names of the enums and typedefs, in the order of their declarations.
+    private final List<String> nonNullableNames = new ArrayList<>();
 
     @Override
     public void visit(NodeTraversal t, Node node, Node parent) {
@@ -413,9 +457,9 @@ final class TypedScopeCreator implements ScopeCreator {
         Node nameNode, JSDocInfo info) {
       if (info != null && nameNode.isQualifiedName()) {
         if (info.hasEnumParameterType()) {
-          registry.identifyNonNullableName(nameNode.getQualifiedName());
+          nonNullableNames.add(nameNode.getQualifiedName());
         } else if (info.hasTypedefType()) {
-          registry.identifyNonNullableName(nameNode.getQualifiedName());
+          nonNullableNames.add(nameNode.getQualifiedName());
         }
       }
     }
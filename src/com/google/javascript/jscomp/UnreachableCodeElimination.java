@@ -18,6 +18,7 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.NodeTraversal.AbstractShallowCallback;
 import com.google.javascript.jscomp.NodeTraversal.ChangeScopeRootCallback;
@@ -25,6 +26,7 @@ import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
 import com.google.javascript.jscomp.graph.GraphReachability;
 import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -47,11 +49,12 @@ import java.util.logging.Logger;
 // These things don't require reachability info, consider making them their own
 // pass or putting them in some other, more related pass.
 
-class UnreachableCodeElimination implements CompilerPass {
+class UnreachableCodeElimination implements ChangeScopeRootPass {
   private static final Logger logger =
     Logger.getLogger(UnreachableCodeElimination.class.getName());
   private final AbstractCompiler compiler;
-  private boolean codeChanged;
+  // Whether getNextChangeScopeRoots has returned the changed functions already.
+  private boolean collected;
 
   UnreachableCodeElimination(AbstractCompiler compiler) {
     this.compiler = compiler;
@@ -59,29 +62,49 @@ class UnreachableCodeElimination implements CompilerPass {
 
   @Override
   public void process(Node externs, Node toplevel) {
+    NodeTraversal.traverseChangedFunctions(compiler, this);
+  }
+
+  @Override
+  public List<Node> getNextChangeScopeRoots() {
+    if (collected) {
+      collected = false;
+      return ImmutableList.of();
+    }
+    final List<Node> changedScopeNodes = new ArrayList<>();
     NodeTraversal.traverseChangedFunctions(compiler, new ChangeScopeRootCallback() {
         @Override
         public void enterChangeScopeRoot(AbstractCompiler compiler, Node root) {
-          // Computes the control flow graph.
-          ControlFlowAnalysis cfa =
-              new ControlFlowAnalysis(compiler, false, false);
-          cfa.process(null, root);
-          ControlFlowGraph<Node> cfg = cfa.getCfg();
-          new GraphReachability<>(cfg)
-              .compute(cfg.getEntry().getValue());
-          if (root.isFunction()) {
-            root = root.getLastChild();
-          }
-          do {
-            codeChanged = false;
-            NodeTraversal.traverseEs6(compiler, root, new EliminationPass(cfg));
-          } while (codeChanged);
+          changedScopeNodes.add(root);
         }
       });
+    collected = !changedScopeNodes.isEmpty();
+    return changedScopeNodes;
+  }
+
+  @Override
+  public void enterChangeScopeRoot(AbstractCompiler compiler, Node root) {
+    // Computes the control flow graph.
+    ControlFlowAnalysis cfa =
+        new ControlFlowAnalysis(compiler, false, false);
+    cfa.process(null, root);
+    ControlFlowGraph<Node> cfg = cfa.getCfg();
+    new GraphReachability<>(cfg)
+        .compute(cfg.getEntry().getValue());
+    if (root.isFunction()) {
+      root = root.getLastChild();
+    }
+    EliminationPass pass = new EliminationPass(cfg);
+    do {
+      pass.codeChanged = false;
+      NodeTraversal.traverseEs6(compiler, root, pass);
+    } while (pass.codeChanged);
   }
 
   private class EliminationPass extends AbstractShallowCallback {
     private final ControlFlowGraph<Node> cfg;
+    private boolean codeChanged;
+
     private EliminationPass(ControlFlowGraph<Node> cfg) {
       this.cfg = cfg;
     }
@@ -75,6 +75,15 @@ public abstract class WarningsGuard implements Serializable {
    */
   public abstract CheckLevel level(JSError error);
 
+  /**
+   * Returns whether {@link #level} only depends on the source name, the type and the default level
+   * of the error, so that {@link ComposeWarningsGuard} can cache its result for each source file
+   * and type.
+   */
+  protected boolean dependsOnlyOnFileAndType() {
+    return false;
+  }
+
   /**
    * The priority in which warnings guards are applied. Lower means the
    * guard will be applied sooner. Expressed on a scale of 1 to 100.
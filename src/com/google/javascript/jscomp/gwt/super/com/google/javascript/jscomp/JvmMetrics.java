@@ -22,4 +22,12 @@ import java.io.PrintStream;
 class JvmMetrics {
   public static void maybeWriteJvmMetrics(PrintStream out, String options) {
   }
+
+  public static long getCurrentThreadCpuTime() {
+    return -1;
+  }
+
+  public static long getCurrentThreadAllocatedBytes() {
+    return -1;
+  }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.NodeTraversal.Callback;
+import com.google.javascript.rhino.Node;
+import java.util.List;
+
+/** GWT compatible version of {@code ParallelScriptTraversal}, which uses one thread. */
+class ParallelScriptTraversal {
+  private ParallelScriptTraversal() {}
+
+  static void traverse(
+      AbstractCompiler compiler,
+      Node root,
+      int numParallelThreads,
+      List<? extends Callback> callbacks) {
+    int i = 0;
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      NodeTraversal.traverseEs6(compiler, script, callbacks.get(i++));
+    }
+  }
+
+  static void traverseTyped(
+      AbstractCompiler compiler,
+      List<Node> roots,
+      int numParallelThreads,
+      List<? extends Callback> callbacks) {
+    for (int i = 0; i < roots.size(); i++) {
+      NodeTraversal.traverseTyped(compiler, roots.get(i), callbacks.get(i));
+    }
+  }
+}
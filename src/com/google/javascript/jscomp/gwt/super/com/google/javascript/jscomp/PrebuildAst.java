@@ -26,4 +26,16 @@ class PrebuildAst {
   }
 
   void prebuild(List<CompilerInput> inputList) {}
+
+  ParseBatch start(List<CompilerInput> inputList) {
+    return new ParseBatch();
+  }
+
+  final class ParseBatch {
+    void cancel() {}
+
+    boolean await() {
+      return true;
+    }
+  }
 }
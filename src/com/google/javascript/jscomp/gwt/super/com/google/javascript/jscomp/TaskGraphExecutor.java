@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.Multimap;
+import java.util.List;
+
+/** GWT compatible version of {@code TaskGraphExecutor}, which runs the tasks in order. */
+class TaskGraphExecutor {
+  interface Worker<T> {
+    void run(T task);
+  }
+
+  private TaskGraphExecutor() {}
+
+  static <T> void execute(
+      List<T> tasks,
+      Multimap<T, T> dependencies,
+      List<? extends Worker<? super T>> workers) {
+    for (T task : tasks) {
+      workers.get(0).run(task);
+    }
+  }
+}
@@ -22,16 +22,63 @@ import java.util.AbstractMap;
 abstract class PersistentMap<K, V> extends AbstractMap<K, V> {
   private static final PersistentMap EMPTY = NaivePersistentMap.create();
 
+  private static final PersistentMap EMPTY_FOR_UPDATES = ChampPersistentMap.create();
+
   public abstract PersistentMap<K, V> with(K key, V value);
 
   public abstract PersistentMap<K, V> without(K key);
 
+  Transient<K, V> asTransient() {
+    return new Transient<>(this);
+  }
+
   @SuppressWarnings("unchecked")
   public static <K, V> PersistentMap<K, V> create() {
     return EMPTY;
   }
 
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> createForUpdates() {
+    return EMPTY_FOR_UPDATES;
+  }
+
   public static <K, V> PersistentMap<K, V> of(K key, V value) {
     return PersistentMap.<K, V>create().with(key, value);
   }
+
+  static <K, V> PersistentMap<K, V> createEmpty(String implementation) {
+    switch (implementation) {
+      case "champ":
+        return ChampPersistentMap.create();
+      case "naive":
+      case "clojure":
+        return NaivePersistentMap.create();
+      default:
+        throw new IllegalArgumentException("Unknown persistent map: " + implementation);
+    }
+  }
+
+  static class Transient<K, V> {
+    private PersistentMap<K, V> map;
+
+    Transient(PersistentMap<K, V> map) {
+      this.map = map;
+    }
+
+    V get(K key) {
+      return map.get(key);
+    }
+
+    void put(K key, V value) {
+      map = map.with(key, value);
+    }
+
+    void remove(K key) {
+      map = map.without(key);
+    }
+
+    PersistentMap<K, V> persistent() {
+      return map;
+    }
+  }
 }
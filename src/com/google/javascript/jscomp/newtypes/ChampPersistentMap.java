@@ -0,0 +1,562 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.Maps;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A persistent hash map stored as a compressed hash-array mapped prefix tree (CHAMP): each node
+ * has a bitmap of the keys it stores inline and a bitmap of its child nodes, and one array with
+ * the keys and values first and the child nodes last, in reverse order. A change copies the path
+ * from the root to the changed key only.
+ *
+ * Removals keep the tree in canonical form, where a child node always holds at least two keys,
+ * so lookups go through as few nodes as possible.
+ *
+ * The nodes created by a {@link Transient} belong to it until it is made persistent, and are
+ * changed in place by its later updates, so a batch of updates does not copy the same path over
+ * and over.
+ */
+final class ChampPersistentMap<K, V> extends PersistentMap<K, V> implements Serializable {
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+  // The deepest level is at this shift; below it, keys with the same hash share a collision node.
+  private static final int MAX_SHIFT = 30;
+  // Returned by lookups that find no entry, as the values may be null.
+  private static final Object NOT_FOUND = new Object();
+
+  private final Node root;
+  private final int size;
+
+  private ChampPersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  // Not a constant, as PersistentMap calls it while this class may still be initializing.
+  public static <K, V> PersistentMap<K, V> create() {
+    return new ChampPersistentMap<>(new BitmapNode(null, 0, 0, new Object[0]), 0);
+  }
+
+  @Override
+  public PersistentMap<K, V> with(K key, V value) {
+    Change change = new Change();
+    Node newRoot = root.update(null, key, value, hash(key), 0, change);
+    return newRoot == root ? this : new ChampPersistentMap<K, V>(newRoot, size + change.sizeDelta);
+  }
+
+  @Override
+  public PersistentMap<K, V> without(K key) {
+    Change change = new Change();
+    Node newRoot = root.remove(null, key, hash(key), 0, change);
+    return newRoot == root ? this : new ChampPersistentMap<K, V>(newRoot, size + change.sizeDelta);
+  }
+
+  @Override
+  Transient<K, V> asTransient() {
+    return new ChampTransient<>(this);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    Object value = root.find(key, hash(key), 0);
+    return value == NOT_FOUND ? null : (V) value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return root.find(key, hash(key), 0) != NOT_FOUND;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private static int hash(Object key) {
+    int h = Objects.hashCode(key);
+    // Spread the higher bits, which the first levels of the tree would not see otherwise.
+    return h ^ (h >>> 16);
+  }
+
+  private static int bitpos(int hash, int shift) {
+    return 1 << ((hash >>> shift) & LEVEL_MASK);
+  }
+
+  /** What an update did to the size of the map. */
+  private static final class Change {
+    int sizeDelta;
+  }
+
+  /**
+   * A node of the tree. Nodes are immutable, except for the nodes owned by a transient map while
+   * it is being updated.
+   */
+  private abstract static class Node implements Serializable {
+    // The transient map that may change this node in place, or null.
+    final transient Object owner;
+    Object[] content;
+
+    Node(Object owner, Object[] content) {
+      this.owner = owner;
+      this.content = content;
+    }
+
+    /** Returns the value of the key, or NOT_FOUND. */
+    abstract Object find(Object key, int hash, int shift);
+
+    abstract Node update(
+        Object owner, Object key, Object value, int hash, int shift, Change change);
+
+    abstract Node remove(Object owner, Object key, int hash, int shift, Change change);
+
+    /** The number of keys stored in this node itself. */
+    abstract int payloadArity();
+
+    /** Adds the child nodes of this node to {@code nodes}. */
+    abstract void addChildren(Deque<Node> nodes);
+
+    /** Whether this node holds exactly one key, which its parent can store inline instead. */
+    abstract boolean hasSingleKey();
+
+    final Object getKey(int index) {
+      return content[2 * index];
+    }
+
+    final Object getValue(int index) {
+      return content[2 * index + 1];
+    }
+
+    final boolean isOwnedBy(Object owner) {
+      return owner != null && this.owner == owner;
+    }
+  }
+
+  private static final class BitmapNode extends Node {
+    int dataMap;
+    int nodeMap;
+
+    BitmapNode(Object owner, int dataMap, int nodeMap, Object[] content) {
+      super(owner, content);
+      this.dataMap = dataMap;
+      this.nodeMap = nodeMap;
+    }
+
+    /** Returns a node with only the given key, to be stored inline by a parent or as the root. */
+    static BitmapNode singleton(Object owner, Object key, Object value) {
+      return new BitmapNode(owner, bitpos(hash(key), 0), 0, new Object[] {key, value});
+    }
+
+    private int dataIndex(int bit) {
+      return Integer.bitCount(dataMap & (bit - 1));
+    }
+
+    private int nodeIndex(int bit) {
+      return Integer.bitCount(nodeMap & (bit - 1));
+    }
+
+    private Node getNode(int nodeIndex) {
+      return (Node) content[content.length - 1 - nodeIndex];
+    }
+
+    @Override
+    int payloadArity() {
+      return Integer.bitCount(dataMap);
+    }
+
+    private int nodeArity() {
+      return Integer.bitCount(nodeMap);
+    }
+
+    @Override
+    boolean hasSingleKey() {
+      return nodeMap == 0 && Integer.bitCount(dataMap) == 1;
+    }
+
+    @Override
+    void addChildren(Deque<Node> nodes) {
+      for (int i = 0; i < nodeArity(); i++) {
+        nodes.push(getNode(i));
+      }
+    }
+
+    @Override
+    Object find(Object key, int hash, int shift) {
+      int bit = bitpos(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        return Objects.equals(key, getKey(index)) ? getValue(index) : NOT_FOUND;
+      }
+      if ((nodeMap & bit) != 0) {
+        return getNode(nodeIndex(bit)).find(key, hash, shift + BITS_PER_LEVEL);
+      }
+      return NOT_FOUND;
+    }
+
+    @Override
+    Node update(Object owner, Object key, Object value, int hash, int shift, Change change) {
+      int bit = bitpos(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        Object currentKey = getKey(index);
+        if (Objects.equals(key, currentKey)) {
+          if (getValue(index) == value) {
+            return this;
+          }
+          Object[] newContent = isOwnedBy(owner) ? content : Arrays.copyOf(content, content.length);
+          newContent[2 * index + 1] = value;
+          return isOwnedBy(owner) ? this : new BitmapNode(owner, dataMap, nodeMap, newContent);
+        }
+        Node subNode = mergeTwoKeys(
+            owner, currentKey, getValue(index), hash(currentKey), key, value, hash,
+            shift + BITS_PER_LEVEL);
+        change.sizeDelta = 1;
+        return copyAndMigrateFromInlineToNode(owner, bit, subNode);
+      }
+      if ((nodeMap & bit) != 0) {
+        Node subNode = getNode(nodeIndex(bit));
+        Node newSubNode = subNode.update(owner, key, value, hash, shift + BITS_PER_LEVEL, change);
+        return newSubNode == subNode ? this : copyAndSetNode(owner, bit, newSubNode);
+      }
+      change.sizeDelta = 1;
+      return copyAndInsertValue(owner, bit, key, value);
+    }
+
+    @Override
+    Node remove(Object owner, Object key, int hash, int shift, Change change) {
+      int bit = bitpos(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        if (!Objects.equals(key, getKey(index))) {
+          return this;
+        }
+        change.sizeDelta = -1;
+        if (shift > 0 && nodeMap == 0 && payloadArity() == 2) {
+          // The other key will be stored inline by the parent, or become the root.
+          int other = 1 - index;
+          return singleton(owner, getKey(other), getValue(other));
+        }
+        return copyAndRemoveValue(owner, bit);
+      }
+      if ((nodeMap & bit) != 0) {
+        Node subNode = getNode(nodeIndex(bit));
+        Node newSubNode = subNode.remove(owner, key, hash, shift + BITS_PER_LEVEL, change);
+        if (newSubNode == subNode) {
+          return this;
+        }
+        if (newSubNode.hasSingleKey()) {
+          if (payloadArity() == 0 && nodeArity() == 1) {
+            // Pass the single key up, until a node stores it inline.
+            return newSubNode;
+          }
+          return copyAndMigrateFromNodeToInline(owner, bit, newSubNode);
+        }
+        return copyAndSetNode(owner, bit, newSubNode);
+      }
+      return this;
+    }
+
+    private static Node mergeTwoKeys(
+        Object owner, Object key1, Object value1, int hash1,
+        Object key2, Object value2, int hash2, int shift) {
+      if (shift > MAX_SHIFT) {
+        return new CollisionNode(owner, new Object[] {key1, value1, key2, value2});
+      }
+      int bit1 = bitpos(hash1, shift);
+      int bit2 = bitpos(hash2, shift);
+      if (bit1 != bit2) {
+        Object[] content = bit1 >>> 1 < bit2 >>> 1
+            ? new Object[] {key1, value1, key2, value2}
+            : new Object[] {key2, value2, key1, value1};
+        return new BitmapNode(owner, bit1 | bit2, 0, content);
+      }
+      Node subNode =
+          mergeTwoKeys(owner, key1, value1, hash1, key2, value2, hash2, shift + BITS_PER_LEVEL);
+      return new BitmapNode(owner, 0, bit1, new Object[] {subNode});
+    }
+
+    private Node copyAndSetNode(Object owner, int bit, Node newSubNode) {
+      int index = content.length - 1 - nodeIndex(bit);
+      if (isOwnedBy(owner)) {
+        content[index] = newSubNode;
+        return this;
+      }
+      Object[] newContent = Arrays.copyOf(content, content.length);
+      newContent[index] = newSubNode;
+      return new BitmapNode(owner, dataMap, nodeMap, newContent);
+    }
+
+    private Node copyAndInsertValue(Object owner, int bit, Object key, Object value) {
+      int index = 2 * dataIndex(bit);
+      Object[] newContent = new Object[content.length + 2];
+      System.arraycopy(content, 0, newContent, 0, index);
+      newContent[index] = key;
+      newContent[index + 1] = value;
+      System.arraycopy(content, index, newContent, index + 2, content.length - index);
+      return withContent(owner, dataMap | bit, nodeMap, newContent);
+    }
+
+    private Node copyAndRemoveValue(Object owner, int bit) {
+      int index = 2 * dataIndex(bit);
+      Object[] newContent = new Object[content.length - 2];
+      System.arraycopy(content, 0, newContent, 0, index);
+      System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+      return withContent(owner, dataMap ^ bit, nodeMap, newContent);
+    }
+
+    private Node copyAndMigrateFromInlineToNode(Object owner, int bit, Node subNode) {
+      int oldIndex = 2 * dataIndex(bit);
+      // The position of the new node, counted from the end, after the key and value are removed.
+      int newIndex = content.length - 2 - nodeIndex(bit);
+      Object[] newContent = new Object[content.length - 1];
+      System.arraycopy(content, 0, newContent, 0, oldIndex);
+      System.arraycopy(content, oldIndex + 2, newContent, oldIndex, newIndex - oldIndex);
+      newContent[newIndex] = subNode;
+      System.arraycopy(
+          content, newIndex + 2, newContent, newIndex + 1, content.length - newIndex - 2);
+      return withContent(owner, dataMap ^ bit, nodeMap | bit, newContent);
+    }
+
+    private Node copyAndMigrateFromNodeToInline(Object owner, int bit, Node subNode) {
+      int oldIndex = content.length - 1 - nodeIndex(bit);
+      int newIndex = 2 * dataIndex(bit);
+      Object[] newContent = new Object[content.length + 1];
+      System.arraycopy(content, 0, newContent, 0, newIndex);
+      newContent[newIndex] = subNode.getKey(0);
+      newContent[newIndex + 1] = subNode.getValue(0);
+      System.arraycopy(content, newIndex, newContent, newIndex + 2, oldIndex - newIndex);
+      System.arraycopy(
+          content, oldIndex + 1, newContent, oldIndex + 2, content.length - oldIndex - 1);
+      return withContent(owner, dataMap | bit, nodeMap ^ bit, newContent);
+    }
+
+    private Node withContent(Object owner, int newDataMap, int newNodeMap, Object[] newContent) {
+      if (isOwnedBy(owner)) {
+        this.dataMap = newDataMap;
+        this.nodeMap = newNodeMap;
+        this.content = newContent;
+        return this;
+      }
+      return new BitmapNode(owner, newDataMap, newNodeMap, newContent);
+    }
+  }
+
+  /** The keys whose hashes are all the same, below the deepest level of bitmap nodes. */
+  private static final class CollisionNode extends Node {
+    CollisionNode(Object owner, Object[] content) {
+      super(owner, content);
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < payloadArity(); i++) {
+        if (Objects.equals(key, getKey(i))) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    int payloadArity() {
+      return content.length / 2;
+    }
+
+    @Override
+    boolean hasSingleKey() {
+      return content.length == 2;
+    }
+
+    @Override
+    void addChildren(Deque<Node> nodes) {}
+
+    @Override
+    Object find(Object key, int hash, int shift) {
+      int index = indexOf(key);
+      return index < 0 ? NOT_FOUND : getValue(index);
+    }
+
+    @Override
+    Node update(Object owner, Object key, Object value, int hash, int shift, Change change) {
+      int index = indexOf(key);
+      Object[] newContent;
+      if (index >= 0) {
+        if (getValue(index) == value) {
+          return this;
+        }
+        newContent = isOwnedBy(owner) ? content : Arrays.copyOf(content, content.length);
+        newContent[2 * index + 1] = value;
+      } else {
+        change.sizeDelta = 1;
+        newContent = Arrays.copyOf(content, content.length + 2);
+        newContent[content.length] = key;
+        newContent[content.length + 1] = value;
+      }
+      if (isOwnedBy(owner)) {
+        this.content = newContent;
+        return this;
+      }
+      return new CollisionNode(owner, newContent);
+    }
+
+    @Override
+    Node remove(Object owner, Object key, int hash, int shift, Change change) {
+      int index = indexOf(key);
+      if (index < 0) {
+        return this;
+      }
+      change.sizeDelta = -1;
+      if (payloadArity() == 2) {
+        int other = 1 - index;
+        return BitmapNode.singleton(owner, getKey(other), getValue(other));
+      }
+      Object[] newContent = new Object[content.length - 2];
+      System.arraycopy(content, 0, newContent, 0, 2 * index);
+      System.arraycopy(
+          content, 2 * index + 2, newContent, 2 * index, content.length - 2 * index - 2);
+      if (isOwnedBy(owner)) {
+        this.content = newContent;
+        return this;
+      }
+      return new CollisionNode(owner, newContent);
+    }
+  }
+
+  /** Visits the keys stored inline in each node, then the child nodes, depth first. */
+  private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+    private final Deque<Node> pending = new ArrayDeque<>();
+    private Node current;
+    private int index;
+
+    EntryIterator(Node root) {
+      visit(root);
+    }
+
+    private void visit(Node node) {
+      current = node;
+      index = 0;
+      node.addChildren(pending);
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (index >= current.payloadArity()) {
+        if (pending.isEmpty()) {
+          return false;
+        }
+        visit(pending.pop());
+      }
+      return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map.Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      K key = (K) current.getKey(index);
+      V value = (V) current.getValue(index);
+      index++;
+      return Maps.immutableEntry(key, value);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** Changes the nodes it created in place, until it is made persistent. */
+  private static final class ChampTransient<K, V> extends Transient<K, V> {
+    private final ChampPersistentMap<K, V> original;
+    private Object owner = new Object();
+    private Node root;
+    private int size;
+
+    ChampTransient(ChampPersistentMap<K, V> map) {
+      super(map);
+      this.original = map;
+      this.root = map.root;
+      this.size = map.size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+      checkState(owner != null, "Used after persistent()");
+      Object value = root.find(key, hash(key), 0);
+      return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    void put(K key, V value) {
+      checkState(owner != null, "Used after persistent()");
+      Change change = new Change();
+      root = root.update(owner, key, value, hash(key), 0, change);
+      size += change.sizeDelta;
+    }
+
+    @Override
+    void remove(K key) {
+      checkState(owner != null, "Used after persistent()");
+      Change change = new Change();
+      root = root.remove(owner, key, hash(key), 0, change);
+      size += change.sizeDelta;
+    }
+
+    @Override
+    PersistentMap<K, V> persistent() {
+      checkState(owner != null, "Used after persistent()");
+      // Nodes owned by a dropped owner are never changed again.
+      owner = null;
+      return root == original.root ? original : new ChampPersistentMap<K, V>(root, size);
+    }
+  }
+}
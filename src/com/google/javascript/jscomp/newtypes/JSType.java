@@ -109,6 +109,8 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
   private static final ImmutableSet<EnumType> NO_ENUMS = ImmutableSet.<EnumType>of();
 
   private final JSTypes commonTypes;
+  // Computed when first needed, as the types are immutable.
+  private transient int hashCode;
 
   // Used only for development, to test performance of the code without the cost
   // of printing the error messages.
@@ -142,13 +144,15 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
     if (!JSType.isInhabitable(objs)) {
       return commonTypes.BOTTOM;
     }
+    JSType result;
     if (mask == NON_SCALAR_MASK) {
-      return new ObjsType(commonTypes, objs);
-    }
-    if (mask == (NON_SCALAR_MASK | NULL_MASK)) {
-      return new NullableObjsType(commonTypes, objs);
+      result = new ObjsType(commonTypes, objs);
+    } else if (mask == (NON_SCALAR_MASK | NULL_MASK)) {
+      result = new NullableObjsType(commonTypes, objs);
+    } else {
+      result = new UnionType(commonTypes, mask, objs, typeVar, enums);
     }
-    return new UnionType(commonTypes, mask, objs, typeVar, enums);
+    return commonTypes.intern(result);
   }
 
   private static JSType makeType(JSTypes commonTypes, int mask) {
@@ -646,7 +650,19 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
       // For now return ? when joining two type vars. This is probably uncommon.
       return commonTypes.UNKNOWN;
     }
+    TypeOperationCache cache = commonTypes.getTypeOperationCache();
+    if (cache == null || lhs.getObjs().isEmpty() || rhs.getObjs().isEmpty()) {
+      return joinHelper(commonTypes, lhs, rhs);
+    }
+    JSType result = cache.getJoin(lhs, rhs);
+    if (result == null) {
+      result = joinHelper(commonTypes, lhs, rhs);
+      cache.putJoin(lhs, rhs, result);
+    }
+    return result;
+  }
 
+  private static JSType joinHelper(JSTypes commonTypes, JSType lhs, JSType rhs) {
     int newMask = lhs.getMask() | rhs.getMask();
     ImmutableSet<ObjectType> newObjs =
         ObjectType.joinSets(lhs.getObjs(), rhs.getObjs());
@@ -1009,6 +1025,19 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
   }
 
   public static JSType meet(JSType lhs, JSType rhs) {
+    TypeOperationCache cache = lhs.commonTypes.getTypeOperationCache();
+    if (cache == null || lhs.getObjs().isEmpty() || rhs.getObjs().isEmpty()) {
+      return meetUncached(lhs, rhs);
+    }
+    JSType result = cache.getMeet(lhs, rhs);
+    if (result == null) {
+      result = meetUncached(lhs, rhs);
+      cache.putMeet(lhs, rhs, result);
+    }
+    return result;
+  }
+
+  private static JSType meetUncached(JSType lhs, JSType rhs) {
     JSType t = meetHelper(lhs, rhs);
     if (t.isBottom() && (lhs.isLoose() || rhs.isLoose())) {
       t = meetHelper(lhs.autobox(), rhs.autobox());
@@ -1207,7 +1236,17 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
 
   @Override
   public final boolean isSubtypeOf(TypeI other) {
-    return isSubtypeOf(other, SubtypeCache.create());
+    TypeOperationCache cache = this.commonTypes.getTypeOperationCache();
+    if (cache == null || this == other || getObjs().isEmpty()) {
+      return isSubtypeOf(other, SubtypeCache.create());
+    }
+    JSType type2 = (JSType) other;
+    Boolean result = cache.getIsSubtype(this, type2);
+    if (result == null) {
+      result = isSubtypeOf(type2, SubtypeCache.create());
+      cache.putIsSubtype(this, type2, result);
+    }
+    return result;
   }
 
   public static MismatchInfo whyNotSubtypeOf(JSType found, JSType expected) {
@@ -1826,7 +1865,12 @@ public abstract class JSType implements TypeI, FunctionTypeI, ObjectTypeI {
 
   @Override
   public final int hashCode() {
-    return Objects.hash(getMask(), getObjs(), getEnums(), getTypeVar());
+    int result = this.hashCode;
+    if (result == 0) {
+      result = Objects.hash(getMask(), getObjs(), getEnums(), getTypeVar());
+      this.hashCode = result;
+    }
+    return result;
   }
 
   @Override
@@ -175,6 +175,11 @@ public final class JSTypes implements Serializable {
   final boolean looseSubtypingForLooseObjects;
   final boolean bivariantArrayGenerics;
 
+  // Null until the types of the program are done; see startCachingTypeOperations.
+  private transient volatile TypeOperationCache typeOperationCache;
+  // Null unless startInterningTypes was called.
+  private transient volatile TypeInterner typeInterner;
+
   private JSTypes(boolean inCompatibilityMode) {
     Map<String, JSType> types = JSType.createScalars(this);
     this.BOOLEAN = checkNotNull(types.get("BOOLEAN"));
@@ -296,6 +301,59 @@ public final class JSTypes implements Serializable {
     return new JSTypes(inCompatibilityMode);
   }
 
+  /**
+   * Starts remembering the results of subtyping, join and meet, keeping at most {@code maxSize}
+   * results of each. Only call this once the nominal types and the scopes are frozen, as the
+   * results must not change afterwards.
+   */
+  public void startCachingTypeOperations(int maxSize) {
+    if (this.typeOperationCache == null) {
+      this.typeOperationCache = new TypeOperationCache(maxSize);
+    }
+  }
+
+  /**
+   * Stops caching type operations and drops the cached results, which keep types alive and would
+   * be wrong once the types of the program change again.
+   */
+  public void stopCachingTypeOperations() {
+    this.typeOperationCache = null;
+  }
+
+  /**
+   * Starts returning a canonical instance for the union types built from the same objects,
+   * enums, type variable and scalars, keeping at most {@code maxSize} of them.
+   */
+  public void startInterningTypes(int maxSize) {
+    if (this.typeInterner == null) {
+      this.typeInterner = new TypeInterner(maxSize);
+    }
+  }
+
+  /**
+   * Stops interning types and drops the canonical instances, so that they do not outlive the
+   * type inference.
+   */
+  public void stopInterningTypes() {
+    this.typeInterner = null;
+  }
+
+  JSType intern(JSType type) {
+    TypeInterner interner = this.typeInterner;
+    return interner == null ? type : interner.intern(type);
+  }
+
+  /** Returns statistics about the interned types, or null if types are not interned. */
+  public String getTypeInternerStatistics() {
+    TypeInterner interner = this.typeInterner;
+    return interner == null ? null : interner.toString();
+  }
+
+  /** Returns the cache of type operations, or null if they are not cached. */
+  public TypeOperationCache getTypeOperationCache() {
+    return this.typeOperationCache;
+  }
+
   public JSType fromFunctionType(FunctionType fn) {
     return JSType.fromFunctionType(fn, getFunctionType());
   }
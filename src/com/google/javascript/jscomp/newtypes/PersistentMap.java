@@ -25,28 +25,96 @@ import java.util.Map;
 /** A persistent map with non-destructive additions and removals  */
 abstract class PersistentMap<K, V> extends AbstractMap<K, V> {
 
-  private static PersistentMap EMPTY;
-  static {
-    try {
-      @SuppressWarnings("unchecked")
-      Class<? extends Map> c =
-          (Class<? extends Map>) Class.forName("clojure.lang.PersistentHashMap");
-      EMPTY = ClojurePersistentHashMap.create(c);
-    } catch (ClassNotFoundException e) {
-      EMPTY = NaivePersistentMap.create();
-    }
-  }
+  private static final PersistentMap EMPTY = createEmpty("clojure");
+
+  // The maps that get many small updates, such as the type environments of NTI, use the
+  // implementation named by this system property: "champ" (the default), "clojure" or "naive".
+  // It is a JVM-wide property rather than a compiler option because the maps are created from
+  // static contexts (SubtypeCache.create(), new TypeEnv()) all over NTI, with no options at hand,
+  // and because the implementations behave the same: the choice only affects speed, so it is a
+  // knob for benchmarks such as NewTypeInferenceBenchmark, not a setting of a compilation.
+  private static final PersistentMap EMPTY_FOR_UPDATES =
+      createEmpty(System.getProperty("jscomp.newtypes.persistentMap", "champ"));
 
   public abstract PersistentMap<K, V> with(K key, V value);
 
   public abstract PersistentMap<K, V> without(K key);
 
+  /**
+   * Returns a map with the same entries that can be changed in place, for a batch of updates.
+   * This map is not changed.
+   */
+  Transient<K, V> asTransient() {
+    return new Transient<>(this);
+  }
+
   @SuppressWarnings("unchecked")
   public static <K, V> PersistentMap<K, V> create() {
     return EMPTY;
   }
 
+  /** Returns an empty map for a map that is updated often. */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> createForUpdates() {
+    return EMPTY_FOR_UPDATES;
+  }
+
   public static <K, V> PersistentMap<K, V> of(K key, V value) {
     return PersistentMap.<K, V>create().with(key, value);
   }
+
+  /**
+   * Returns an empty map of the given implementation. Falls back to the naive map when Clojure
+   * is not on the classpath.
+   */
+  static <K, V> PersistentMap<K, V> createEmpty(String implementation) {
+    switch (implementation) {
+      case "champ":
+        return ChampPersistentMap.create();
+      case "naive":
+        return NaivePersistentMap.create();
+      case "clojure":
+        try {
+          @SuppressWarnings("unchecked")
+          Class<? extends Map> c =
+              (Class<? extends Map>) Class.forName("clojure.lang.PersistentHashMap");
+          return ClojurePersistentHashMap.create(c);
+        } catch (ClassNotFoundException e) {
+          return NaivePersistentMap.create();
+        }
+      default:
+        throw new IllegalArgumentException("Unknown persistent map: " + implementation);
+    }
+  }
+
+  /**
+   * A map that is changed in place, to build a persistent map with many updates. It must not be
+   * used after {@link #persistent}.
+   *
+   * This one makes a new persistent map for each update; the implementations that can do better
+   * override {@link PersistentMap#asTransient}.
+   */
+  static class Transient<K, V> {
+    private PersistentMap<K, V> map;
+
+    Transient(PersistentMap<K, V> map) {
+      this.map = map;
+    }
+
+    V get(K key) {
+      return map.get(key);
+    }
+
+    void put(K key, V value) {
+      map = map.with(key, value);
+    }
+
+    void remove(K key) {
+      map = map.without(key);
+    }
+
+    PersistentMap<K, V> persistent() {
+      return map;
+    }
+  }
 }
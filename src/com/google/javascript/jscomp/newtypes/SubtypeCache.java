@@ -32,7 +32,7 @@ final class SubtypeCache {
   }
 
   static SubtypeCache create() {
-    return new SubtypeCache(PersistentMap.<NominalType, NominalType>create());
+    return new SubtypeCache(PersistentMap.<NominalType, NominalType>createForUpdates());
   }
 
   NominalType get(NominalType key) {
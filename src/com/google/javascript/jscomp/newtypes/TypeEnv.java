@@ -41,7 +41,7 @@ public final class TypeEnv {
   private PersistentSet<String> changedVars = null;
 
   public TypeEnv() {
-    this.typeMap = PersistentMap.create();
+    this.typeMap = PersistentMap.createForUpdates();
   }
 
   private TypeEnv(PersistentMap<String, JSType> typeMap) {
@@ -106,7 +106,8 @@ public final class TypeEnv {
     if (!envsIter.hasNext()) {
       return firstEnv;
     }
-    PersistentMap<String, JSType> newMap = firstEnv.typeMap;
+    // Join into a transient map, so that changing many variables does not copy the map each time.
+    PersistentMap.Transient<String, JSType> newMap = firstEnv.typeMap.asTransient();
 
     if (firstEnv.changedVars == null) {
       while (envsIter.hasNext()) {
@@ -121,11 +122,11 @@ public final class TypeEnv {
           JSType otherType = entry.getValue();
           Preconditions.checkNotNull(currentType, "%s is missing from an env", name);
           if (!currentType.equals(otherType)) {
-            newMap = newMap.with(name, JSType.join(currentType, otherType));
+            newMap.put(name, JSType.join(currentType, otherType));
           }
         }
       }
-      return new TypeEnv(newMap);
+      return new TypeEnv(newMap.persistent());
     }
 
     PersistentSet<String> newLog = PersistentSet.create();
@@ -140,11 +141,11 @@ public final class TypeEnv {
         JSType currentType = newMap.get(changedVar);
         JSType otherType = env.typeMap.get(changedVar);
         if (!currentType.equals(otherType)) {
-          newMap = newMap.with(changedVar, JSType.join(currentType, otherType));
+          newMap.put(changedVar, JSType.join(currentType, otherType));
         }
       }
     }
-    return new TypeEnv(newMap, newLog);
+    return new TypeEnv(newMap.persistent(), newLog);
   }
 
   @Override
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Returns a canonical instance for the union types built from the same parts, so that joining
+ * or meeting the same types over and over does not keep copies of the result alive, and the
+ * copies compare equal by reference.
+ *
+ * Two types are the same here when they have the same mask and type variable, and the very same
+ * object and enum instances. This is stricter than JSType#equals, which ignores the looseness of
+ * objects and the declared types of properties, so the canonical instance can always stand in
+ * for a new one. Types whose objects are equal but distinct instances are kept apart.
+ *
+ * At most maxSize types are kept. When the table is full it starts over empty, which bounds the
+ * memory without keeping track of the use of each type.
+ *
+ * It can be used from several threads at once.
+ */
+final class TypeInterner {
+  private final int maxSize;
+  private final ConcurrentHashMap<Key, JSType> types = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  TypeInterner(int maxSize) {
+    checkArgument(maxSize > 0);
+    this.maxSize = maxSize;
+  }
+
+  JSType intern(JSType type) {
+    Key key = new Key(type);
+    JSType canonical = types.get(key);
+    if (canonical != null) {
+      hits.incrementAndGet();
+      return canonical;
+    }
+    misses.incrementAndGet();
+    if (types.size() >= maxSize) {
+      types.clear();
+    }
+    canonical = types.putIfAbsent(key, type);
+    return canonical == null ? type : canonical;
+  }
+
+  /** Returns the number of types for which a canonical instance was already known. */
+  long getHits() {
+    return hits.get();
+  }
+
+  /** Returns the number of types that became the canonical instance of their parts. */
+  long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public String toString() {
+    return hits + " hits, " + misses + " misses";
+  }
+
+  /** The parts of a type, with the objects and enums compared by identity. */
+  private static final class Key {
+    private final JSType type;
+    // The identity hash codes of the objects and of the enums, sorted, so that two keys with
+    // different instances are usually told apart without looking at the instances.
+    private final int[] objHashes;
+    private final int[] enumHashes;
+    private final int hashCode;
+
+    Key(JSType type) {
+      this.type = type;
+      this.objHashes = sortedIdentityHashes(type.getObjs());
+      this.enumHashes = sortedIdentityHashes(type.getEnums());
+      this.hashCode =
+          Objects.hash(type.getMask(), type.getTypeVar())
+              + 31 * Arrays.hashCode(objHashes)
+              + Arrays.hashCode(enumHashes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hashCode == other.hashCode
+          && type.getMask() == other.type.getMask()
+          && Objects.equals(type.getTypeVar(), other.type.getTypeVar())
+          && Arrays.equals(objHashes, other.objHashes)
+          && Arrays.equals(enumHashes, other.enumHashes)
+          && containSameInstances(type.getObjs(), other.type.getObjs())
+          && containSameInstances(type.getEnums(), other.type.getEnums());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    private static int[] sortedIdentityHashes(ImmutableSet<?> set) {
+      int[] hashes = new int[set.size()];
+      int i = 0;
+      for (Object o : set) {
+        hashes[i++] = System.identityHashCode(o);
+      }
+      Arrays.sort(hashes);
+      return hashes;
+    }
+
+    /** Called on sets of the same size whose identity hash codes are the same. */
+    private static boolean containSameInstances(ImmutableSet<?> s1, ImmutableSet<?> s2) {
+      switch (s1.size()) {
+        case 0:
+          return true;
+        case 1:
+          return s1.iterator().next() == s2.iterator().next();
+        default:
+          Set<Object> instances = Sets.newIdentityHashSet();
+          instances.addAll(s1);
+          for (Object o : s2) {
+            if (!instances.contains(o)) {
+              return false;
+            }
+          }
+          return true;
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the results of subtyping, join and meet for pairs of JSType instances, once the types
+ * of the program no longer change.
+ *
+ * The pairs are compared by identity: the types are immutable, and the same instances (declared
+ * types, summaries, the types in the type environments) are compared over and over during NTI.
+ * Only operations on types that contain objects are cached; the others are cheaper than a lookup.
+ *
+ * Each kind of operation keeps at most maxSize results. When it is full, it starts over empty,
+ * which bounds the memory without keeping track of the use of each entry.
+ *
+ * It can be used from several threads at once.
+ */
+public final class TypeOperationCache {
+  private final int maxSize;
+  private final Operation<Boolean> subtypes = new Operation<>();
+  private final Operation<JSType> joins = new Operation<>();
+  private final Operation<JSType> meets = new Operation<>();
+
+  TypeOperationCache(int maxSize) {
+    checkArgument(maxSize > 0);
+    this.maxSize = maxSize;
+  }
+
+  Boolean getIsSubtype(JSType lhs, JSType rhs) {
+    return subtypes.get(lhs, rhs);
+  }
+
+  void putIsSubtype(JSType lhs, JSType rhs, boolean isSubtype) {
+    subtypes.put(lhs, rhs, isSubtype, maxSize);
+  }
+
+  JSType getJoin(JSType lhs, JSType rhs) {
+    return joins.get(lhs, rhs);
+  }
+
+  void putJoin(JSType lhs, JSType rhs, JSType join) {
+    joins.put(lhs, rhs, join, maxSize);
+  }
+
+  JSType getMeet(JSType lhs, JSType rhs) {
+    return meets.get(lhs, rhs);
+  }
+
+  void putMeet(JSType lhs, JSType rhs, JSType meet) {
+    meets.put(lhs, rhs, meet, maxSize);
+  }
+
+  /** Returns the fraction of the lookups that found a result, or 0 if there were none. */
+  public double getHitRate() {
+    long hits = getHits();
+    long lookups = hits + subtypes.misses.get() + joins.misses.get() + meets.misses.get();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /** Returns the number of lookups that found a result. */
+  long getHits() {
+    return subtypes.hits.get() + joins.hits.get() + meets.hits.get();
+  }
+
+  /** Returns the number of times that a kind of operation was full and started over. */
+  long getEvictions() {
+    return subtypes.evictions.get() + joins.evictions.get() + meets.evictions.get();
+  }
+
+  @Override
+  public String toString() {
+    return "subtypes: " + subtypes + ", joins: " + joins + ", meets: " + meets;
+  }
+
+  /** The results of one kind of operation. */
+  private static final class Operation<V> {
+    final ConcurrentHashMap<Key, V> results = new ConcurrentHashMap<>();
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong evictions = new AtomicLong();
+
+    V get(JSType lhs, JSType rhs) {
+      V result = results.get(new Key(lhs, rhs));
+      (result == null ? misses : hits).incrementAndGet();
+      return result;
+    }
+
+    void put(JSType lhs, JSType rhs, V result, int maxSize) {
+      if (results.size() >= maxSize) {
+        results.clear();
+        evictions.incrementAndGet();
+      }
+      results.put(new Key(lhs, rhs), result);
+    }
+
+    @Override
+    public String toString() {
+      return hits + " hits, " + misses + " misses, " + evictions + " evictions";
+    }
+  }
+
+  /** A pair of types, compared by identity. */
+  private static final class Key {
+    private final JSType lhs;
+    private final JSType rhs;
+
+    Key(JSType lhs, JSType rhs) {
+      this.lhs = lhs;
+      this.rhs = rhs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return lhs == other.lhs && rhs == other.rhs;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(lhs) + System.identityHashCode(rhs);
+    }
+  }
+}
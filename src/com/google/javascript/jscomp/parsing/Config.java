@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Configuration for the AST factory. Should be shared across AST creation
@@ -161,6 +162,20 @@ public final class Config {
     this.strictMode = strictMode;
   }
 
+  /**
+   * Returns a string which is the same for two configs whenever they make the parser produce the
+   * same AST for the same source. Used as part of the key when caching parse results.
+   */
+  public String getFingerprint() {
+    return languageMode
+        + ":" + strictMode
+        + ":" + parseJsDocDocumentation
+        + ":" + keepGoing
+        + ":" + parseInlineSourceMaps
+        + ":" + new TreeSet<>(annotationNames.keySet())
+        + ":" + new TreeSet<>(suppressionNames);
+  }
+
   /**
    * Create the annotation names from the user-specified
    * annotation whitelist.
@@ -164,6 +164,70 @@ public class Node implements Serializable {
       IS_UNUSED_PARAMETER = 96;   // Mark a parameter as unused. Used to defer work from
                                   // RemovedUnusedVars to OptimizeParameters.
 
+  /**
+   * Properties that only ever hold a boolean. Their values are kept as bits of {@link
+   * #booleanProps}, which saves a list item per property and a list scan on every lookup.
+   */
+  private static final byte[] BOOLEAN_PROPS = {
+    VAR_ARGS_NAME,
+    INCRDECR_PROP,
+    QUOTED_PROP,
+    OPT_ARG_NAME,
+    SYNTHETIC_BLOCK_PROP,
+    ADDED_BLOCK,
+    IS_CONSTANT_NAME,
+    IS_NAMESPACE,
+    DIRECT_EVAL,
+    FREE_CALL,
+    SLASH_V,
+    INFERRED_FUNCTION,
+    REFLECTED_OBJECT,
+    STATIC_MEMBER,
+    GENERATOR_FN,
+    ARROW_FN,
+    ASYNC_FN,
+    YIELD_ALL,
+    EXPORT_DEFAULT,
+    EXPORT_ALL_FROM,
+    IS_CONSTANT_VAR,
+    GENERATOR_MARKER,
+    GENERATOR_SAFE,
+    COMPUTED_PROP_METHOD,
+    COMPUTED_PROP_GETTER,
+    COMPUTED_PROP_SETTER,
+    COMPUTED_PROP_VARIABLE,
+    ANALYZED_DURING_GTI,
+    CONSTANT_PROPERTY_DEF,
+    OPT_ES6_TYPED,
+    CONSTRUCT_SIGNATURE,
+    NON_INDEXABLE,
+    GOOG_MODULE,
+    IS_MODULE_NAME,
+    WAS_PREVIOUSLY_PROVIDED,
+    IS_ES6_CLASS,
+    TRANSPILED,
+    DELETED,
+    GOOG_MODULE_ALIAS,
+    IS_UNUSED_PARAMETER,
+  };
+
+  /** Maps a property type to its bit in {@link #booleanProps}, or -1 for list properties. */
+  private static final byte[] BOOLEAN_PROP_BITS = new byte[Byte.MAX_VALUE + 1];
+
+  static {
+    checkState(BOOLEAN_PROPS.length <= Long.SIZE);
+    Arrays.fill(BOOLEAN_PROP_BITS, (byte) -1);
+    for (int i = 0; i < BOOLEAN_PROPS.length; i++) {
+      BOOLEAN_PROP_BITS[BOOLEAN_PROPS[i]] = (byte) i;
+    }
+  }
+
+  /** Returns the mask of the given property in {@link #booleanProps}, or 0 for list properties. */
+  private static long booleanPropMask(byte propType) {
+    int bit = BOOLEAN_PROP_BITS[propType];
+    return bit < 0 ? 0 : 1L << bit;
+  }
+
   private static final String propToString(byte propType) {
       switch (propType) {
         case VAR_ARGS_NAME:      return "var_args_name";
@@ -914,6 +978,10 @@ public class Node implements Serializable {
     replaceChild(target, newChild);
   }
 
+  /**
+   * Returns the list item of the given property. Boolean properties are not stored in the list, so
+   * this is always null for them.
+   */
   @VisibleForTesting
   @Nullable
   final PropListItem lookupProperty(byte propType) {
@@ -932,12 +1000,18 @@ public class Node implements Serializable {
    * @return this node.
    */
   public final Node clonePropsFrom(Node other) {
-    checkState(this.propListHead == null, "Node has existing properties.");
+    checkState(!this.hasProps(), "Node has existing properties.");
     this.propListHead = other.propListHead;
+    this.booleanProps = other.booleanProps;
     return this;
   }
 
   public final void removeProp(byte propType) {
+    long mask = booleanPropMask(propType);
+    if (mask != 0) {
+      booleanProps &= ~mask;
+      return;
+    }
     PropListItem result = removeProp(propListHead, propType);
     if (result != propListHead) {
       propListHead = result;
@@ -945,7 +1019,7 @@ public class Node implements Serializable {
   }
 
   public final boolean hasProps() {
-    return propListHead != null;
+    return propListHead != null || booleanProps != 0;
   }
 
   /**
@@ -979,6 +1053,10 @@ public class Node implements Serializable {
   }
 
   public final boolean getBooleanProp(byte propType) {
+    long mask = booleanPropMask(propType);
+    if (mask != 0) {
+      return (booleanProps & mask) != 0;
+    }
     return getIntProp(propType) != 0;
   }
 
@@ -987,6 +1065,10 @@ public class Node implements Serializable {
    * is not defined.
    */
   public final int getIntProp(byte propType) {
+    long mask = booleanPropMask(propType);
+    if (mask != 0) {
+      return (booleanProps & mask) != 0 ? 1 : 0;
+    }
     PropListItem item = lookupProperty(propType);
     if (item == null) {
       return 0;
@@ -995,6 +1077,11 @@ public class Node implements Serializable {
   }
 
   public final int getExistingIntProp(byte propType) {
+    long mask = booleanPropMask(propType);
+    if (mask != 0) {
+      checkState((booleanProps & mask) != 0, "missing prop: %s", propType);
+      return 1;
+    }
     PropListItem item = lookupProperty(propType);
     if (item == null) {
       throw new IllegalStateException("missing prop: " + propType);
@@ -1003,6 +1090,7 @@ public class Node implements Serializable {
   }
 
   public final void putProp(byte propType, @Nullable Object value) {
+    checkArgument(booleanPropMask(propType) == 0, "boolean prop: %s", propType);
     removeProp(propType);
     if (value != null) {
       propListHead = createProp(propType, value, propListHead);
@@ -1010,10 +1098,21 @@ public class Node implements Serializable {
   }
 
   public final void putBooleanProp(byte propType, boolean value) {
+    long mask = booleanPropMask(propType);
+    if (mask != 0) {
+      booleanProps = value ? booleanProps | mask : booleanProps & ~mask;
+      return;
+    }
     putIntProp(propType, value ? 1 : 0);
   }
 
   public final void putIntProp(byte propType, int value) {
+    long mask = booleanPropMask(propType);
+    if (mask != 0) {
+      checkArgument(value == 0 || value == 1, "boolean prop %s set to %s", propType, value);
+      putBooleanProp(propType, value != 0);
+      return;
+    }
     removeProp(propType);
     if (value != 0) {
       propListHead = createProp(propType, value, propListHead);
@@ -1061,7 +1160,7 @@ public class Node implements Serializable {
 
   // Gets all the property types, in sorted order.
   private byte[] getSortedPropTypes() {
-    int count = 0;
+    int count = Long.bitCount(booleanProps);
     for (PropListItem x = propListHead; x != null; x = x.next) {
       count++;
     }
@@ -1071,6 +1170,12 @@ public class Node implements Serializable {
       count--;
       keys[count] = x.propType;
     }
+    for (int i = 0; i < BOOLEAN_PROPS.length; i++) {
+      if ((booleanProps & (1L << i)) != 0) {
+        count--;
+        keys[count] = BOOLEAN_PROPS[i];
+      }
+    }
 
     Arrays.sort(keys);
     return keys;
@@ -1178,11 +1283,14 @@ public class Node implements Serializable {
       byte[] keys = getSortedPropTypes();
       for (int i = 0; i < keys.length; i++) {
         byte type = keys[i];
-        PropListItem x = lookupProperty(type);
         sb.append(" [");
         sb.append(propToString(type));
         sb.append(": ");
-        sb.append(x);
+        if (booleanPropMask(type) != 0) {
+          sb.append(getIntProp(type));
+        } else {
+          sb.append(lookupProperty(type));
+        }
         sb.append(']');
       }
     }
@@ -1240,6 +1348,12 @@ public class Node implements Serializable {
    */
   @Nullable private transient PropListItem propListHead;
 
+  /**
+   * Values of the properties in {@link #BOOLEAN_PROPS}, which are not stored in the property list.
+   * A long fits in the padding that the object layout leaves after the other fields.
+   */
+  private transient long booleanProps;
+
   /**
    * COLUMN_BITS represents how many of the lower-order bits of
    * sourcePosition are reserved for storing the column number.
@@ -1560,6 +1674,10 @@ public class Node implements Serializable {
     this.propListHead = propListHead;
   }
 
+  final void setBooleanProps(long booleanProps) {
+    this.booleanProps = booleanProps;
+  }
+
   @Nullable
   public final Node getParent() {
     return parent;
@@ -2227,6 +2345,7 @@ public class Node implements Serializable {
     dst.setLength(this.getLength());
     dst.setTypeI(this.typei);
     dst.setPropListHead(this.propListHead);
+    dst.setBooleanProps(this.booleanProps);
 
     // TODO(johnlenz): Remove this once JSTypeExpression are immutable
     if (cloneTypeExprs) {
@@ -3264,6 +3383,11 @@ public class Node implements Serializable {
     // Null marks the end of the children.
     out.writeObject(null);
     out.writeObject(typei);
+    // The boolean properties are the bits of a long, written as two variable length ints.
+    writeEncodedInt(out, (int) booleanProps);
+    writeEncodedInt(out, (int) (booleanProps >>> 32));
+    // The other properties are written as objects, so that the lists shared by several nodes stay
+    // shared when they are read back.
     out.writeObject(propListHead);
   }
 
@@ -3300,6 +3424,7 @@ public class Node implements Serializable {
       first.previous = lastChild;
     }
     typei = (TypeI) in.readObject();
+    booleanProps = (readEncodedInt(in) & 0xffffffffL) | ((long) readEncodedInt(in) << 32);
     propListHead = (PropListItem) in.readObject();
   }
 
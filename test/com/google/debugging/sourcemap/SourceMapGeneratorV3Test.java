@@ -129,6 +129,18 @@ public final class SourceMapGeneratorV3Test extends SourceMapTestCase {
                     "}\n");
   }
 
+  public void testLongOutputMapping() throws Exception {
+    // Long enough for the printer to write out the code and its mappings in several chunks, and
+    // to cut the lines.
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      js.append("function __FN" + i + "__(__PARAM" + i + "__) {\n"
+          + "var __VAR" + i + "__ = '__STR" + i + "__';\n"
+          + "}\n");
+    }
+    compileAndCheck(js.toString());
+  }
+
   public void testGoldenOutput0() throws Exception {
     // Empty source map test
     checkSourceMap("",
@@ -27,6 +27,7 @@ import java.util.Map;
 
 public final class AmbiguatePropertiesTest extends TypeICompilerTestCase {
   private AmbiguateProperties lastPass;
+  private int numParallelThreads;
 
   private static final String EXTERNS = lines(
       MINIMAL_EXTERNS,
@@ -48,6 +49,7 @@ public final class AmbiguatePropertiesTest extends TypeICompilerTestCase {
     enableClosurePass();
     enableGatherExternProperties();
     this.mode = TypeInferenceMode.BOTH;
+    numParallelThreads = 1;
     ignoreWarnings(
         NewTypeInference.GLOBAL_THIS,
         NewTypeInference.PROPERTY_ACCESS_ON_NONOBJECT);
@@ -65,6 +67,13 @@ public final class AmbiguatePropertiesTest extends TypeICompilerTestCase {
     };
   }
 
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    return options;
+  }
+
   @Override
   protected int getNumRepetitions() {
     return 1;
@@ -1142,4 +1151,38 @@ public final class AmbiguatePropertiesTest extends TypeICompilerTestCase {
     this.mode = TypeInferenceMode.NTI_ONLY;
     test(js, output);
   }
+
+  public void testScriptsSearchedInParallel() {
+    String[] js = {
+        lines(
+            "/** @constructor */ var Foo = function(){};",
+            "Foo.prototype.z=0;",
+            "Foo.prototype.x=0;"),
+        lines(
+            "/** @constructor */ var Bar = function(){};",
+            "Bar.prototype.y=0;",
+            "Foo.prototype.z=1;"),
+        lines(
+            "Bar.prototype.w=0;",
+            "Bar.prototype.w=1;",
+            "Bar.prototype.w=2;")};
+    String[] output = {
+        lines(
+            "/** @constructor */ var Foo = function(){};",
+            "Foo.prototype.a=0;",
+            "Foo.prototype.b=0;"),
+        lines(
+            "/** @constructor */ var Bar = function(){};",
+            "Bar.prototype.b=0;",
+            "Foo.prototype.a=1;"),
+        lines(
+            "Bar.prototype.a=0;",
+            "Bar.prototype.a=1;",
+            "Bar.prototype.a=2;")};
+
+    test(js, output);
+
+    numParallelThreads = 3;
+    test(js, output);
+  }
 }
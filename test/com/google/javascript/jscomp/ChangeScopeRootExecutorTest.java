@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import junit.framework.TestCase;
+
+/** Tests for {@link ChangeScopeRootExecutor}. */
+public final class ChangeScopeRootExecutorTest extends TestCase {
+  private Compiler compiler;
+  private ChangeScopeRootExecutor executor;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    compiler = new Compiler();
+    executor = new ChangeScopeRootExecutor(compiler, 4);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    executor.shutdown();
+    super.tearDown();
+  }
+
+  public void testProcessesEveryRootOnceAfterTheRootsAroundIt() {
+    StringBuilder code = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      code.append("function f" + i + "() { function g() { return function() {}; } }");
+    }
+    Node root = parse(code.toString());
+
+    RecordingPass pass = new RecordingPass(1);
+    executor.process(pass, root);
+
+    // 1 script and 3 functions for each f.
+    assertThat(pass.processed).hasSize(61);
+    assertThat(pass.processed).containsNoDuplicates();
+    assertThat(pass.nestingViolations).isEmpty();
+  }
+
+  public void testRunsEveryRound() {
+    Node root = parse("function f() {} function g() {}");
+
+    RecordingPass pass = new RecordingPass(3);
+    executor.process(pass, root);
+
+    assertThat(pass.processed).hasSize(9);
+  }
+
+  public void testSkipsDeletedRoots() {
+    Node root = parse("function f() { function g() {} } function h() {}");
+    final Node f = root.getFirstChild().getFirstChild();
+    final Node g = f.getLastChild().getFirstChild();
+
+    RecordingPass pass = new RecordingPass(1) {
+      @Override
+      public void enterChangeScopeRoot(AbstractCompiler compiler, Node root) {
+        super.enterChangeScopeRoot(compiler, root);
+        if (root == f) {
+          // Removing g from within f is allowed.
+          compiler.reportChangeToEnclosingScope(g);
+          g.detach();
+          NodeUtil.markFunctionsDeleted(g, compiler);
+        }
+      }
+    };
+    executor.process(pass, root);
+
+    assertThat(pass.processed).contains(f);
+    assertThat(pass.processed).doesNotContain(g);
+    assertThat(pass.processed).hasSize(3);
+  }
+
+  public void testRethrowsExceptions() {
+    Node root = parse("function f() {} function g() {}");
+
+    RecordingPass pass = new RecordingPass(1) {
+      @Override
+      public void enterChangeScopeRoot(AbstractCompiler compiler, Node root) {
+        if (root.isFunction()) {
+          throw new IllegalStateException("failed on " + root.getFirstChild().getString());
+        }
+      }
+    };
+    try {
+      executor.process(pass, root);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).startsWith("failed on ");
+    }
+  }
+
+  private Node parse(String code) {
+    return IR.root(compiler.parseTestCode(code));
+  }
+
+  /**
+   * Records the roots it processes, and whether a root was processed while a root around it was
+   * being processed or before it was.
+   */
+  private static class RecordingPass implements ChangeScopeRootPass {
+    final List<Node> processed = Collections.synchronizedList(new ArrayList<Node>());
+    final List<Node> nestingViolations = Collections.synchronizedList(new ArrayList<Node>());
+    private final Set<Node> active = ConcurrentHashMap.newKeySet();
+    private int rounds;
+
+    RecordingPass(int rounds) {
+      this.rounds = rounds;
+    }
+
+    @Override
+    public List<Node> getNextChangeScopeRoots() {
+      if (rounds == 0) {
+        return ImmutableList.of();
+      }
+      rounds--;
+      return null;
+    }
+
+    @Override
+    public void enterChangeScopeRoot(AbstractCompiler compiler, Node root) {
+      active.add(root);
+      for (Node n = root.getParent(); n != null; n = n.getParent()) {
+        if (active.contains(n) || (NodeUtil.isChangeScopeRoot(n) && !processed.contains(n))) {
+          nestingViolations.add(root);
+        }
+      }
+      try {
+        // Give the other workers a chance to run at the same time.
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      processed.add(root);
+      active.remove(root);
+    }
+
+    @Override
+    public void process(Node externs, Node root) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -28,6 +28,7 @@ public final class CoalesceVariableNamesTest extends CompilerTestCase {
   // picking out which variable names are merged.
 
   private boolean usePseudoName = false;
+  private int maxVariables = LiveVariablesAnalysisEs6.MAX_VARIABLES_TO_ANALYZE;
 
   @Override
   protected int getNumRepetitions() {
@@ -38,6 +39,7 @@ public final class CoalesceVariableNamesTest extends CompilerTestCase {
   protected void setUp() throws Exception {
     super.setUp();
     usePseudoName = false;
+    maxVariables = LiveVariablesAnalysisEs6.MAX_VARIABLES_TO_ANALYZE;
   }
 
   @Override
@@ -49,7 +51,7 @@ public final class CoalesceVariableNamesTest extends CompilerTestCase {
         // so we just manually normalize the input instead.
         Normalize normalize = new Normalize(compiler, false);
         normalize.process(externs, root);
-        new CoalesceVariableNames(compiler, usePseudoName).process(externs, root);
+        new CoalesceVariableNames(compiler, usePseudoName, maxVariables).process(externs, root);
       }
     };
   }
@@ -876,6 +878,29 @@ public final class CoalesceVariableNamesTest extends CompilerTestCase {
             "}"));
   }
 
+  public void testMaxVariables() {
+    maxVariables = 2;
+    inFunction("var x; var y; x=1; x; y=1; y; return y");
+
+    maxVariables = 3;
+    inFunction(
+        "var x; var y; x=1; x; y=1; y; return y",
+        "var x;        x=1; x; x=1; x; return x");
+  }
+
+  public void testManyVariables() {
+    maxVariables = 1000;
+    StringBuilder src = new StringBuilder();
+    StringBuilder expected = new StringBuilder("var x0 = f(); g(x0);");
+    for (int i = 0; i < 500; i++) {
+      src.append("var x" + i + " = f(); g(x" + i + ");");
+      if (i > 0) {
+        expected.append("x0 = f(); g(x0);");
+      }
+    }
+    inFunction(src.toString(), expected.toString());
+  }
+
   private void inFunction(String src) {
     testSame("function FUNC(){" + src + "}");
   }
@@ -1334,6 +1334,25 @@ public final class CommandLineRunnerTest extends TestCase {
     assertThat(multistageOutput).isEqualTo(singleStageOutput);
   }
 
+  public void testParallelModuleOutput() throws Exception {
+    String inputString = "["
+        + "{\"src\": \"alert('foo');\", \"path\":\"foo.js\"},"
+        + "{\"src\": \"alert('bar');\", \"path\":\"bar.js\"},"
+        + "{\"src\": \"alert('baz');\", \"path\":\"baz.js\"}]";
+    args.add("--json_streams=BOTH");
+    args.add("--module=m0:1");
+    args.add("--module=m1:1:m0");
+    args.add("--module=m2:1:m0");
+    args.add("--module_wrapper=m1:(function(){%s})();");
+    String sequentialOutput = compile(inputString, args);
+
+    args.add("--num_parallel_threads=4");
+    String parallelOutput = compile(inputString, args);
+
+    assertThat(parallelOutput).isEqualTo(sequentialOutput);
+    assertThat(parallelOutput).contains("(function(){alert(\\\"bar\\\");})();");
+  }
+
   private String compile(String inputString, List<String> args) {
     ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
     ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
@@ -20,6 +20,7 @@ import static com.google.javascript.jscomp.CompilerTestCase.lines;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Files;
@@ -30,6 +31,7 @@ import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.InputId;
+import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.io.ByteArrayInputStream;
@@ -418,6 +420,132 @@ public final class CompilerTest extends TestCase {
     assertFalse(compiler.getInput(new InputId("in2")).isExtern());
   }
 
+  public void testParallelParsingKeepsInputOrder() {
+    CompilerOptions options = new CompilerOptions();
+    options.setNumParallelThreads(4);
+    List<SourceFile> inputs = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      // Vary the sizes so that the inputs are not parsed in list order.
+      String code = "var a" + i + " = 1;" + Strings.repeat(" a" + i + "++;", i % 7);
+      inputs.add(SourceFile.fromCode("in" + i, code));
+    }
+    inputs.add(SourceFile.fromCode("ext", "/** @externs */ var ext;"));
+    Compiler compiler = new Compiler();
+    compiler.compile(EMPTY_EXTERNS, inputs, options);
+
+    assertEquals(0, compiler.getErrorCount());
+    assertThat(compiler.jsRoot.getChildCount()).isEqualTo(20);
+    for (int i = 0; i < 20; i++) {
+      assertThat(compiler.jsRoot.getChildAtIndex(i).getSourceFileName()).isEqualTo("in" + i);
+    }
+    assertTrue(compiler.getInput(new InputId("ext")).isExtern());
+  }
+
+  public void testParallelParsingStopsOnError() {
+    CompilerOptions options = new CompilerOptions();
+    options.setNumParallelThreads(2);
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("in1", "var a = 1;"),
+        SourceFile.fromCode("in2", "var b = ;"),
+        SourceFile.fromCode("in3", "var c = 3;"));
+    Compiler compiler = new Compiler();
+    Result result = compiler.compile(EMPTY_EXTERNS, inputs, options);
+
+    assertFalse(result.success);
+    assertEquals(1, compiler.getErrorCount());
+  }
+
+  public void testParallelLocalOptimizations() {
+    List<SourceFile> inputs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      inputs.add(SourceFile.fromCode("in" + i, lines(
+          "function f" + i + "(x) {",
+          "  if (true) { x = x + 1; } else { alert('dead'); }",
+          "  function g(y) { return 1 + 2 + y; return y; }",
+          "  return g(x) ? [1, 2].join() : 'a' + 'b';",
+          "}",
+          "alert(f" + i + "(" + i + "));")));
+    }
+    CompilerOptions options = new CompilerOptions();
+    CompilationLevel.SIMPLE_OPTIMIZATIONS.setOptionsForCompilationLevel(options);
+    Compiler compiler = new Compiler();
+    compiler.compile(EMPTY_EXTERNS, inputs, options);
+    assertEquals(0, compiler.getErrorCount());
+    String expected = compiler.toSource();
+
+    options.setNumParallelThreads(4);
+    compiler = new Compiler();
+    compiler.compile(EMPTY_EXTERNS, inputs, options);
+    assertEquals(0, compiler.getErrorCount());
+    assertThat(compiler.toSource()).isEqualTo(expected);
+    assertThat(expected).doesNotContain("dead");
+  }
+
+  public void testAstCacheReusesUnchangedInputs() throws Exception {
+    File cacheDir = Files.createTempDir();
+    String code = "/** @const */ var a = {};\n/** @param {number} x */ a.f = function(x) {};";
+    CompilerOptions options = new CompilerOptions();
+    options.setAstCacheDirectory(cacheDir.getPath());
+
+    Compiler compiler = new Compiler();
+    compiler.compile(
+        EMPTY_EXTERNS, ImmutableList.of(SourceFile.fromCode("in1", code)), options);
+    String expected = compiler.toSource();
+    assertThat(compiler.getAstCache().getHitCount()).isEqualTo(0);
+
+    compiler = new Compiler();
+    compiler.compile(
+        EMPTY_EXTERNS,
+        ImmutableList.of(
+            SourceFile.fromCode("in1", code), SourceFile.fromCode("in2", "var changed;")),
+        options);
+    assertThat(compiler.getAstCache().getHitCount()).isEqualTo(2);
+    assertThat(compiler.getAstCache().getMissCount()).isEqualTo(1);
+
+    Node script = compiler.jsRoot.getFirstChild();
+    assertThat(script.getSourceFileName()).isEqualTo("in1");
+    assertThat(script.getStaticSourceFile())
+        .isSameAs(compiler.getInput(new InputId("in1")).getSourceFile());
+    assertThat(script.getFirstChild().getJSDocInfo().isConstant()).isTrue();
+    assertThat(compiler.toSource()).isEqualTo(expected + "var changed;");
+  }
+
+  public void testAstCacheKeepsFilesWithTheSameCodeApart() throws Exception {
+    File cacheDir = Files.createTempDir();
+    String code = "/** @param {number} x */ var f = function(x) {};";
+    CompilerOptions options = new CompilerOptions();
+    options.setAstCacheDirectory(cacheDir.getPath());
+    List<SourceFile> inputs =
+        ImmutableList.of(SourceFile.fromCode("in1", code), SourceFile.fromCode("in2", code));
+
+    Compiler compiler = new Compiler();
+    compiler.compile(EMPTY_EXTERNS, inputs, options);
+    assertThat(compiler.getAstCache().getHitCount()).isEqualTo(0);
+
+    compiler = new Compiler();
+    compiler.compile(EMPTY_EXTERNS, inputs, options);
+    assertThat(compiler.getAstCache().getMissCount()).isEqualTo(0);
+    for (Node script : compiler.jsRoot.children()) {
+      String name = script.getSourceFileName();
+      JSDocInfo info = script.getFirstChild().getJSDocInfo();
+      assertThat(info.getParameterType("x").getSourceName()).isEqualTo(name);
+    }
+  }
+
+  public void testAstCacheSkipsInputsWithParseErrors() throws Exception {
+    File cacheDir = Files.createTempDir();
+    CompilerOptions options = new CompilerOptions();
+    options.setAstCacheDirectory(cacheDir.getPath());
+    List<SourceFile> inputs = ImmutableList.of(SourceFile.fromCode("in1", "var a = ;"));
+
+    for (int i = 0; i < 2; i++) {
+      Compiler compiler = new Compiler();
+      compiler.compile(ImmutableList.<SourceFile>of(), inputs, options);
+      assertEquals(1, compiler.getErrorCount());
+      assertThat(compiler.getAstCache().getHitCount()).isEqualTo(0);
+    }
+  }
+
   public void testRebuildInputsFromModule() {
     List<JSModule> modules = ImmutableList.of(
         new JSModule("m1"), new JSModule("m2"));
@@ -856,6 +984,23 @@ public final class CompilerTest extends TestCase {
     assertEquals(js, cb.toString());
   }
 
+  public void testWriteSource() throws Exception {
+    CompilerOptions options = new CompilerOptions();
+    options.setPrintInputDelimiter(true);
+    options.setPreferLineBreakAtEndOfFile(true);
+    Compiler compiler = new Compiler();
+    compiler.compile(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(
+            SourceFile.fromCode("a.js", "var a = 1"),
+            SourceFile.fromCode("b.js", "/** @license B */ function b() { return a; }")),
+        options);
+
+    StringBuilder sb = new StringBuilder();
+    compiler.writeSource(sb);
+    assertThat(sb.toString()).isEqualTo(compiler.toSource());
+  }
+
   public void testWarningsFiltering() {
     // Warnings and errors are left alone when no filtering is used
     assertTrue(hasOutput(
@@ -1116,6 +1261,40 @@ public final class CompilerTest extends TestCase {
 
   }
 
+  public void testRestoreStateRejectsOtherFormats() throws Exception {
+    CompilerOptions options = new CompilerOptions();
+    Compiler compiler = new Compiler(new TestErrorManager());
+    compiler.init(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(SourceFile.fromCode("input.js", "var x;")),
+        options);
+    compiler.parse();
+
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    compiler.saveState(byteArrayOutputStream);
+    byte[] state = byteArrayOutputStream.toByteArray();
+    // Change the version that follows the magic number.
+    state[7]++;
+
+    compiler = new Compiler(new TestErrorManager());
+    compiler.options = options;
+    try {
+      compiler.restoreState(new ByteArrayInputStream(state));
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(e.getMessage()).contains("version");
+    }
+
+    compiler = new Compiler(new TestErrorManager());
+    compiler.options = options;
+    try {
+      compiler.restoreState(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(e.getMessage()).contains("Not a saved compiler state");
+    }
+  }
+
   public void testExternsDependencyPruning() {
     List<SourceFile> inputs =
         ImmutableList.of(
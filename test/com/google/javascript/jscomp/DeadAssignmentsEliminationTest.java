@@ -755,4 +755,16 @@ public final class DeadAssignmentsEliminationTest extends CompilerTestCase {
             "}",
             "print(x);"));
   }
+
+  public void testLargeFunction() {
+    StringBuilder src = new StringBuilder("var a = 0;");
+    StringBuilder expected = new StringBuilder("var a = 0;");
+    for (int i = 0; i < 2000; i++) {
+      src.append("while (param1) { a = a + 1; a = 2; }");
+      expected.append("while (param1) { a + 1; a = 2; }");
+    }
+    src.append("return a;");
+    expected.append("return a;");
+    inFunction(src.toString(), expected.toString());
+  }
 }
@@ -31,6 +31,7 @@ import java.util.TreeSet;
 
 public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
   private DisambiguateProperties lastPass;
+  private int numParallelThreads;
   private static final String RENAME_FUNCTION_DEFINITION =
       "/** @const */ var goog = {};\n"
           + "/** @const */ goog.reflect = {};\n"
@@ -47,6 +48,14 @@ public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
     enableNormalize();
     enableParseTypeInfo();
     ignoreWarnings(DiagnosticGroups.NEW_CHECK_TYPES_EXTRA_CHECKS);
+    numParallelThreads = 1;
+  }
+
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    return options;
   }
 
   @Override
@@ -2662,6 +2671,51 @@ public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
     testSame(DEFAULT_EXTERNS + externs, js);
   }
 
+  public void testTwoTypesInParallelScripts() {
+    String[] js = {
+        ""
+            + "/** @constructor */ function Foo() {}\n"
+            + "Foo.prototype.a = 0;",
+        ""
+            + "/** @constructor */ function Bar() {}\n"
+            + "Bar.prototype.a = 0;",
+        ""
+            + "/** @type {Foo} */\n"
+            + "var F = new Foo;\n"
+            + "F.a = 0;"
+            + "/** @type {Bar} */\n"
+            + "var B = new Bar;\n"
+            + "B.a = 0;"};
+    String[] output = {
+        ""
+            + "/** @constructor */function Foo(){}"
+            + "Foo.prototype.Foo_prototype$a=0;",
+        ""
+            + "/** @constructor */ function Bar(){}"
+            + "Bar.prototype.Bar_prototype$a=0;",
+        ""
+            + "/** @type {Foo} */"
+            + "var F=new Foo;"
+            + "F.Foo_prototype$a=0;"
+            + "/** @type {Bar} */"
+            + "var B=new Bar;"
+            + "B.Bar_prototype$a=0"};
+    numParallelThreads = 3;
+    test(srcs(js), expected(output));
+    assertEquals(
+        "{a=[[Bar.prototype], [Foo.prototype]]}",
+        mapToString(lastPass.getRenamedTypesForTesting()));
+  }
+
+  public void testInvalidationInParallelScriptsReportedOnce() {
+    numParallelThreads = 2;
+    test(
+        srcs(
+            "function addSingletonGetter(foo) { foo.foobar = 'a'; };",
+            "function addOtherGetter(bar) { bar.foobar = 'b'; };"),
+        error(DisambiguateProperties.Warnings.INVALIDATION).withMessageContaining("Consider casting foo "));
+  }
+
   private void testSets(String js, String expected, final String fieldTypes) {
     test(srcs(js), expected(expected));
     assertEquals(fieldTypes, mapToString(lastPass.getRenamedTypesForTesting()));
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.javascript.jscomp.testing.JSErrorSubject.assertError;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.rhino.InputId;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import junit.framework.TestCase;
+
+/** Tests for {@link IncrementalCompiler}. */
+public final class IncrementalCompilerTest extends TestCase {
+  private static final Joiner LINE_JOINER = Joiner.on('\n');
+
+  private static final String CLOSURE_BASE =
+      LINE_JOINER.join(
+          "/** @const */ var goog = goog || {};",
+          "goog.require = function(x) {};",
+          "goog.provide = function(x) {};");
+
+  private static final ImmutableList<SourceFile> EXTERNS =
+      ImmutableList.of(SourceFile.fromCode("externs", "var extVar = 3;"));
+
+  private CompilerOptions options;
+  private IncrementalCompiler compiler;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    options = new CompilerOptions();
+    options.setLanguageIn(LanguageMode.ECMASCRIPT5);
+    options.declaredGlobalExternsOnWindow = false;
+    options.setClosurePass(true);
+    options.setInferTypes(true);
+    options.setAllowHotswapReplaceScript(true);
+    options.setChecksOnly(true);
+    options.setContinueAfterErrors(true);
+    options.setWarningLevel(DiagnosticGroups.CHECK_TYPES, CheckLevel.ERROR);
+    compiler = new IncrementalCompiler(options);
+  }
+
+  public void testRequiresChecksOnly() {
+    CompilerOptions options = new CompilerOptions();
+    options.setAllowHotswapReplaceScript(true);
+    try {
+      new IncrementalCompiler(options);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testUpdateReportsNewErrors() {
+    Result result = compiler.compile(EXTERNS, ImmutableList.of(
+        SourceFile.fromCode("base.js", CLOSURE_BASE),
+        SourceFile.fromCode("a.js", "/** @type {number} */ var a = 1;")));
+    assertThat(result.errors).isEmpty();
+
+    result = compiler.update(ImmutableList.of(
+        SourceFile.fromCode("a.js", "/** @type {number} */ var a = 'a';")));
+    assertThat(result.errors).hasLength(1);
+    assertError(result.errors[0]).hasType(TypeValidator.TYPE_MISMATCH_WARNING);
+
+    result = compiler.update(ImmutableList.of(
+        SourceFile.fromCode("a.js", "/** @type {number} */ var a = 2;")));
+    assertThat(result.errors).isEmpty();
+  }
+
+  public void testUpdateRechecksDependents() {
+    Result result = compiler.compile(EXTERNS, ImmutableList.of(
+        SourceFile.fromCode("base.js", CLOSURE_BASE),
+        SourceFile.fromCode("a.js", LINE_JOINER.join(
+            "goog.provide('a');",
+            "/** @return {string} */ a.f = function() { return ''; };")),
+        SourceFile.fromCode("b.js", LINE_JOINER.join(
+            "goog.provide('b');",
+            "goog.require('a');",
+            "/** @type {string} */ b.x = a.f();")),
+        SourceFile.fromCode("c.js", "/** @type {string} */ var c = '';")));
+    assertThat(result.errors).isEmpty();
+
+    result = compiler.update(ImmutableList.of(
+        SourceFile.fromCode("a.js", LINE_JOINER.join(
+            "goog.provide('a');",
+            "/** @return {number} */ a.f = function() { return 0; };"))));
+    assertThat(result.errors).hasLength(1);
+    assertError(result.errors[0]).hasType(TypeValidator.TYPE_MISMATCH_WARNING);
+    assertThat(result.errors[0].sourceName).isEqualTo("b.js");
+  }
+
+  public void testUpdateRechecksDependentsOfNewProvides() {
+    compiler.compile(EXTERNS, ImmutableList.of(
+        SourceFile.fromCode("base.js", CLOSURE_BASE),
+        SourceFile.fromCode("a.js", "/** @type {number} */ var x = 1;"),
+        SourceFile.fromCode("b.js", LINE_JOINER.join(
+            "goog.provide('b');",
+            "goog.require('a');",
+            "/** @type {string} */ b.x = a.f();"))));
+
+    Result result = compiler.update(ImmutableList.of(
+        SourceFile.fromCode("a.js", LINE_JOINER.join(
+            "goog.provide('a');",
+            "/** @return {number} */ a.f = function() { return 0; };"))));
+    assertThat(result.errors).hasLength(1);
+    assertError(result.errors[0]).hasType(TypeValidator.TYPE_MISMATCH_WARNING);
+    assertThat(result.errors[0].sourceName).isEqualTo("b.js");
+  }
+
+  public void testOutputMetricsOfUpdate() throws Exception {
+    options.setTracerMode(CompilerOptions.TracerMode.AST_SIZE);
+    options.setTracerOutput(new PrintStream(new ByteArrayOutputStream()));
+    compiler.compile(EXTERNS, ImmutableList.of(
+        SourceFile.fromCode("base.js", CLOSURE_BASE),
+        SourceFile.fromCode("a.js", "/** @type {number} */ var a = 1;")));
+
+    compiler.update(ImmutableList.of(
+        SourceFile.fromCode("a.js", "/** @type {number} */ var a = 2;")));
+    StringBuilder out = new StringBuilder();
+    compiler.outputMetrics(out, PerformanceTracker.MetricsFormat.JSON);
+    // Only the hot-swapped checks of the update are in the metrics.
+    assertThat(out.toString()).contains("\"pass\":\"checkVars\"");
+    assertThat(out.toString()).doesNotContain("\"pass\":\"parseInputs\"");
+  }
+
+  public void testUpdateAddsNewInputs() {
+    compiler.compile(EXTERNS, ImmutableList.of(
+        SourceFile.fromCode("base.js", CLOSURE_BASE),
+        SourceFile.fromCode("a.js", "/** @type {number} */ var a = 1;")));
+
+    Result result = compiler.update(ImmutableList.of(
+        SourceFile.fromCode("b.js", "/** @type {string} */ var b = a;")));
+    assertThat(result.errors).hasLength(1);
+    assertError(result.errors[0]).hasType(TypeValidator.TYPE_MISMATCH_WARNING);
+    assertThat(compiler.getCompiler().getInput(new InputId("b.js"))).isNotNull();
+  }
+}
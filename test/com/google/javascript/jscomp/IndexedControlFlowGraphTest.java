@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import java.util.Comparator;
+import junit.framework.TestCase;
+
+/** Tests for {@link IndexedControlFlowGraph}. */
+public final class IndexedControlFlowGraphTest extends TestCase {
+
+  public void testNodesInGraphOrder() {
+    ControlFlowGraph<String> cfg = createDiamond();
+    IndexedControlFlowGraph<String> graph = IndexedControlFlowGraph.create(cfg, null);
+
+    assertThat(graph.getNodeCount()).isEqualTo(5);
+    assertThat(graph.getNode(0).getValue()).isEqualTo("a");
+    assertThat(graph.getNode(1).getValue()).isEqualTo("b");
+    assertThat(graph.getNode(2).getValue()).isEqualTo("c");
+    assertThat(graph.getNode(3).getValue()).isEqualTo("d");
+    assertThat(graph.getEntry()).isEqualTo(0);
+    assertThat(graph.getImplicitReturn()).isEqualTo(4);
+    assertThat(graph.getNode(4)).isSameAs(cfg.getImplicitReturn());
+  }
+
+  public void testNodesInComparatorOrder() {
+    ControlFlowGraph<String> cfg = createDiamond();
+    IndexedControlFlowGraph<String> graph =
+        IndexedControlFlowGraph.create(
+            cfg,
+            new Comparator<DiGraphNode<String, Branch>>() {
+              @Override
+              public int compare(DiGraphNode<String, Branch> a, DiGraphNode<String, Branch> b) {
+                // The implicit return has a null value and must not be compared.
+                return b.getValue().compareTo(a.getValue());
+              }
+            });
+
+    assertThat(graph.getNode(0).getValue()).isEqualTo("d");
+    assertThat(graph.getNode(3).getValue()).isEqualTo("a");
+    assertThat(graph.getEntry()).isEqualTo(3);
+    assertThat(graph.getImplicitReturn()).isEqualTo(4);
+  }
+
+  public void testEdges() {
+    IndexedControlFlowGraph<String> graph =
+        IndexedControlFlowGraph.create(createDiamond(), null);
+
+    // a -> b, a -> c
+    int a = graph.getEntry();
+    assertThat(graph.getSuccCount(a)).isEqualTo(2);
+    int pos = graph.getSuccStart(a);
+    assertThat(graph.getSucc(pos)).isEqualTo(1);
+    assertThat(graph.getSuccBranch(pos)).isEqualTo(Branch.ON_TRUE);
+    assertThat(graph.getSucc(pos + 1)).isEqualTo(2);
+    assertThat(graph.getSuccBranch(pos + 1)).isEqualTo(Branch.ON_FALSE);
+    assertThat(graph.getPredCount(a)).isEqualTo(0);
+
+    // b -> d, c -> d, d -> implicit return
+    assertThat(graph.getPredCount(3)).isEqualTo(2);
+    pos = graph.getPredStart(3);
+    assertThat(graph.getPred(pos)).isEqualTo(1);
+    assertThat(graph.getPred(pos + 1)).isEqualTo(2);
+    assertThat(graph.getPredBranch(pos)).isEqualTo(Branch.UNCOND);
+    assertThat(graph.getSucc(graph.getSuccStart(3))).isEqualTo(graph.getImplicitReturn());
+    assertThat(graph.getPredCount(graph.getImplicitReturn())).isEqualTo(1);
+    assertThat(graph.getSuccCount(graph.getImplicitReturn())).isEqualTo(0);
+
+    assertThat(graph.getSuccIndex(a, 2)).isEqualTo(1);
+    assertThat(graph.getSuccIndex(a, 3)).isEqualTo(-1);
+  }
+
+  public void testReversePostOrder() {
+    ControlFlowGraph<String> cfg = createDiamond();
+    // A node that cannot be reached from the entry and that cannot reach the implicit return.
+    cfg.createNode("e");
+    cfg.connect("e", Branch.UNCOND, "e");
+    IndexedControlFlowGraph<String> graph = IndexedControlFlowGraph.create(cfg, null);
+
+    // a=0, b=1, c=2, d=3, e=4, implicit return=5
+    assertThat(graph.getReversePostOrder(true)).asList().containsExactly(0, 2, 1, 3, 5, 4)
+        .inOrder();
+    assertThat(graph.getReversePostOrder(false)).asList().containsExactly(5, 3, 2, 1, 0, 4)
+        .inOrder();
+  }
+
+  public void testIndexedGraphIsKeptUntilTheGraphChanges() {
+    ControlFlowGraph<String> cfg = createDiamond();
+    IndexedControlFlowGraph<String> forward = cfg.getIndexedGraph(true);
+    assertThat(cfg.getIndexedGraph(true)).isSameAs(forward);
+    assertThat(cfg.getIndexedGraph(false)).isNotSameAs(forward);
+
+    cfg.createNode("e");
+    cfg.connect("d", Branch.UNCOND, "e");
+    IndexedControlFlowGraph<String> changed = cfg.getIndexedGraph(true);
+    assertThat(changed).isNotSameAs(forward);
+    assertThat(changed.getNodeCount()).isEqualTo(6);
+
+    cfg.disconnectInDirection("d", "e");
+    assertThat(cfg.getIndexedGraph(true)).isNotSameAs(changed);
+  }
+
+  private static ControlFlowGraph<String> createDiamond() {
+    ControlFlowGraph<String> cfg = new ControlFlowGraph<>("a", true, true);
+    cfg.createNode("b");
+    cfg.createNode("c");
+    cfg.createNode("d");
+    cfg.connect("a", Branch.ON_TRUE, "b");
+    cfg.connect("a", Branch.ON_FALSE, "c");
+    cfg.connect("b", Branch.UNCOND, "d");
+    cfg.connect("c", Branch.UNCOND, "d");
+    cfg.connectIfNotFound("d", Branch.UNCOND, null);
+    return cfg;
+  }
+}
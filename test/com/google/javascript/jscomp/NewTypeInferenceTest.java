@@ -22420,4 +22420,38 @@ public final class NewTypeInferenceTest extends NewTypeInferenceTestBase {
         "var x = /** @type {!Foo} */ ({ a: 1 });"),
         NewTypeInference.INVALID_CAST);
   }
+
+  public void testAnalyzeFunctionsInParallel() {
+    compilerOptions.setNumParallelThreads(4);
+
+    typeCheck(LINE_JOINER.join(
+        "function f() { return 'str'; }",
+        "function g() { f() - 5; }",
+        "function h(x) { x - 5; }",
+        "h(5 < 6);"),
+        NewTypeInference.INVALID_INFERRED_RETURN_TYPE,
+        NewTypeInference.INVALID_ARGUMENT_TYPE);
+
+    // The outer functions use the summaries of the inner ones.
+    typeCheck(LINE_JOINER.join(
+        "function f() {",
+        "  function g() { return 'str'; }",
+        "  function h() { return g(); }",
+        "  var /** number */ n = h();",
+        "}",
+        "function k() {",
+        "  function m(x) { return x; }",
+        "  var /** string */ s = m('str');",
+        "}"),
+        NewTypeInference.MISTYPED_ASSIGN_RHS);
+
+    // Unannotated callbacks are analyzed after the functions that contain them.
+    typeCheck(LINE_JOINER.join(
+        "/** @param {function(number)} fun */",
+        "function f(fun) {}",
+        "function g() {",
+        "  f(function(x) { var /** string */ s = x; });",
+        "}"),
+        NewTypeInference.MISTYPED_ASSIGN_RHS);
+  }
 }
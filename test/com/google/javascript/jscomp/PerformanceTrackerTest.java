@@ -22,6 +22,9 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import com.google.javascript.jscomp.CompilerOptions.TracerMode;
 import com.google.javascript.jscomp.PerformanceTracker.Stats;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.io.ByteArrayOutputStream;
@@ -102,6 +105,60 @@ public final class PerformanceTrackerTest extends TestCase {
     assertEquals(0, st.changes);
   }
 
+  public void testJsonMetrics() throws Exception {
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.AST_SIZE, null);
+    CodeChangeHandler handler = tracker.getCodeChangeHandler();
+    tracker.recordPassStart("passA", true);
+    handler.reportChange();
+    tracker.recordPassStop("passA", 5);
+    tracker.recordPassStart("pass\"B", false);
+    tracker.recordPassStop("pass\"B", 3);
+
+    StringBuilder output = new StringBuilder();
+    tracker.outputMetrics(output, PerformanceTracker.MetricsFormat.JSON);
+    JsonObject metrics = new JsonParser().parse(output.toString()).getAsJsonObject();
+    assertEquals(8, metrics.get("passesRuntime").getAsInt());
+    assertEquals(2, metrics.get("runs").getAsInt());
+    assertEquals(1, metrics.get("changes").getAsInt());
+
+    JsonArray summary = metrics.getAsJsonArray("summary");
+    assertThat(summary.size()).isEqualTo(2);
+    JsonObject passA = summary.get(0).getAsJsonObject();
+    assertEquals("passA", passA.get("pass").getAsString());
+    assertEquals(5, passA.get("runtime").getAsInt());
+    assertEquals(1, passA.get("changes").getAsInt());
+    assertTrue(passA.has("cpuTime"));
+    assertTrue(passA.has("allocBytes"));
+    assertEquals("pass\"B", summary.get(1).getAsJsonObject().get("pass").getAsString());
+
+    JsonArray log = metrics.getAsJsonArray("log");
+    assertThat(log.size()).isEqualTo(2);
+    assertTrue(log.get(0).getAsJsonObject().get("codeChanged").getAsBoolean());
+    assertFalse(log.get(1).getAsJsonObject().get("codeChanged").getAsBoolean());
+  }
+
+  public void testChromeTraceMetrics() throws Exception {
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.TIMING_ONLY, null);
+    tracker.recordPassStart("passA", true);
+    tracker.recordPassStop("passA", 5000);
+
+    StringBuilder output = new StringBuilder();
+    tracker.outputMetrics(output, PerformanceTracker.MetricsFormat.CHROME_TRACE);
+    JsonArray events =
+        new JsonParser().parse(output.toString()).getAsJsonObject().getAsJsonArray("traceEvents");
+    assertThat(events.size()).isEqualTo(1);
+    JsonObject event = events.get(0).getAsJsonObject();
+    assertEquals("passA", event.get("name").getAsString());
+    assertEquals("X", event.get("ph").getAsString());
+    // The duration is measured in microseconds by the tracker, not converted from the runtime in
+    // milliseconds that the tracer reports.
+    assertThat(event.get("dur").getAsLong()).isAtLeast(0L);
+    assertThat(event.get("dur").getAsLong()).isLessThan(5000000L);
+    assertThat(event.get("ts").getAsLong()).isAtLeast(0L);
+  }
+
   public void testOutputFormat() {
     ByteArrayOutputStream output = new ByteArrayOutputStream();
     try (PrintStream outstream = new PrintStream(output)) {
@@ -90,6 +90,50 @@ public final class PhaseOptimizerTest extends TestCase {
     assertPasses(PassNames.PEEPHOLE_OPTIMIZATIONS);
   }
 
+  public void testStopPassesAfterLowYieldRuns() {
+    compiler.getOptions().setOptimizationLoopMinYield(1);
+    tracker = new PerformanceTracker(dummyExternsRoot, dummyRoot, TracerMode.AST_SIZE, null);
+    optimizer = new PhaseOptimizer(compiler, tracker);
+    Loop loop = optimizer.addFixedPointLoop();
+    // The passes keep changing the code without making it smaller, so each runs twice.
+    addLoopedPass(loop, "x", 5);
+    addLoopedPass(loop, "y", 5);
+    assertPasses("x", "y", "x", "y");
+  }
+
+  public void testKeepRunningPassesThatGrowTheAst() {
+    compiler.getOptions().setOptimizationLoopMinYield(1);
+    tracker = new PerformanceTracker(dummyExternsRoot, dummyRoot, TracerMode.AST_SIZE, null);
+    compiler.addChangeHandler(tracker.getCodeChangeHandler());
+    optimizer = new PhaseOptimizer(compiler, tracker);
+    Loop loop = optimizer.addFixedPointLoop();
+    loop.addLoopedPass(createPassFactory("g", new CompilerPass() {
+      private int runs = 0;
+
+      @Override
+      public void process(Node externs, Node root) {
+        passesRun.add("g");
+        if (runs++ < 3) {
+          dummyScript.addChildToBack(IR.empty());
+          compiler.reportChangeToEnclosingScope(dummyScript);
+        }
+      }
+    }, false));
+    // The runs that grow the AST do not count as low yield, so g runs until it stops changing
+    // the code.
+    assertPasses("g", "g", "g", "g");
+  }
+
+  public void testMinYieldNeedsAstSizes() {
+    compiler.getOptions().setOptimizationLoopMinYield(1);
+    optimizer = new PhaseOptimizer(compiler, tracker);
+    Loop loop = optimizer.addFixedPointLoop();
+    // The tracker only measures time, so the yield of the passes is not known.
+    addLoopedPass(loop, "x", 2);
+    addLoopedPass(loop, "y", 2);
+    assertPasses("x", "y", "x", "y", "x", "y");
+  }
+
   public void testNotInfiniteLoop() {
     Loop loop = optimizer.addFixedPointLoop();
     addLoopedPass(loop, "x", PhaseOptimizer.MAX_LOOPS - 2);
@@ -128,8 +172,10 @@ public final class PhaseOptimizerTest extends TestCase {
             createPassFactory("e", 1, true),
             createPassFactory("f", 0, true)));
     // The pass iterations can be grouped as:
-    // [a] [b c d] [b c d] [c] [b d] [e] [f]
-    assertPasses("a", "b", "c", "d", "b", "c", "d", "c", "b", "d", "e", "f");
+    // [a] [b c d] [b c d] [c] [b] [e] [f]
+    // d is not run again in the last iteration of the loop, as the code did not change since it
+    // last ran without making changes.
+    assertPasses("a", "b", "c", "d", "b", "c", "d", "c", "b", "e", "f");
   }
 
   public void testSchedulingOfAnyKindOfPasses3() {
@@ -150,6 +196,56 @@ public final class PhaseOptimizerTest extends TestCase {
     assertPasses("a", "b", "c");
   }
 
+  public void testSkipPassesThatAreUpToDate() {
+    Loop loop = optimizer.addFixedPointLoop();
+    addLoopedPass(loop, "x", 2);
+    addLoopedPass(loop, "y", 1);
+    // The pass iterations can be grouped as: [x y] [x y] [x]
+    // y is not run again after the last iteration, as it made no changes the last time it ran
+    // and the code did not change since then.
+    assertPasses("x", "y", "x", "y", "x");
+  }
+
+  public void testChangeScopeRootsOfLoopedPasses() {
+    addChangeScopeRootsLoop();
+    assertPasses("x", "y", "x");
+
+    // x only looks at the script the first time. y looks at the whole AST, which is not counted
+    // when the tracker only measures time.
+    assertEquals(1, tracker.getStats().get("x").changeScopeRoots);
+    assertEquals(-1, tracker.getStats().get("y").changeScopeRoots);
+    assertEquals(2, tracker.getStats().get("x").runs);
+  }
+
+  public void testChangeScopeRootsOfLoopedPassesWithAstSizes() {
+    tracker = new PerformanceTracker(dummyExternsRoot, dummyRoot, TracerMode.AST_SIZE, null);
+    optimizer = new PhaseOptimizer(compiler, tracker);
+    compiler.setPhaseOptimizer(optimizer);
+    addChangeScopeRootsLoop();
+    assertPasses("x", "y", "x");
+
+    // x only looks at the script the first time, y looks at the whole AST.
+    assertEquals(1, tracker.getStats().get("x").changeScopeRoots);
+    assertEquals(1, tracker.getStats().get("y").changeScopeRoots);
+  }
+
+  private void addChangeScopeRootsLoop() {
+    Loop loop = optimizer.addFixedPointLoop();
+    loop.addLoopedPass(createPassFactory("x", new CompilerPass() {
+      private boolean changed = false;
+
+      @Override
+      public void process(Node externs, Node root) {
+        passesRun.add("x");
+        if (compiler.hasScopeChanged(dummyScript) && !changed) {
+          changed = true;
+          compiler.reportChangeToEnclosingScope(dummyScript);
+        }
+      }
+    }, false));
+    addLoopedPass(loop, "y", 0);
+  }
+
   public void testDuplicateLoop() {
     Loop loop = optimizer.addFixedPointLoop();
     addLoopedPass(loop, "x", 1);
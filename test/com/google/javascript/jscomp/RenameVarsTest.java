@@ -48,6 +48,9 @@ public final class RenameVarsTest extends CompilerTestCase {
   // NameGenerator to use, or null for a default.
   private DefaultNameGenerator nameGenerator = null;
 
+  // Cache to pass to the pass, or null for none.
+  private RenameVarsCache cache = null;
+
   @Override
   protected CodingConvention getCodingConvention() {
     if (useGoogleCodingConvention) {
@@ -67,11 +70,13 @@ public final class RenameVarsTest extends CompilerTestCase {
           localRenamingOnly, preserveFunctionExpressionNames,
           generatePseudoNames, shouldShadow, preferStableNames,
           previouslyUsedMap, null, null, nameGenerator);
+      renameVars.setCache(cache);
     } else {
       pass =  renameVars = new RenameVars(compiler, prefix,
           localRenamingOnly, preserveFunctionExpressionNames,
           generatePseudoNames, shouldShadow, preferStableNames,
           previouslyUsedMap, null, null, new DefaultNameGenerator());
+      renameVars.setCache(cache);
     }
 
     if (withNormalize) {
@@ -103,6 +108,7 @@ public final class RenameVarsTest extends CompilerTestCase {
     shouldShadow = false;
     preferStableNames = false;
     nameGenerator = null;
+    cache = null;
   }
 
   public void testRenameSimple() {
@@ -921,6 +927,49 @@ public final class RenameVarsTest extends CompilerTestCase {
     assertEquals("b", renameVars.getVariableMap().lookupNewName("L 0"));
   }
 
+  public void testCache() {
+    cache = new RenameVarsCache();
+    test("function Foo(v1, v2) {return v1;} Foo();",
+         "function a(b, c) {return b;} a();");
+    assertEquals(0, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    test("function Foo(v1, v2) {return v1;} Foo();",
+         "function a(b, c) {return b;} a();");
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  public void testCacheWithChangedScript() {
+    cache = new RenameVarsCache();
+    test(new String[] {"var x = 1; function f(y) { return y + x; }", "f(x);"},
+         new String[] {"var a = 1; function b(c) { return c + a; }", "b(a);"});
+    assertEquals(0, cache.getHitCount());
+
+    test(new String[] {"var x = 1; function f(z) { return x + z; }", "f(x);"},
+         new String[] {"var a = 1; function b(c) { return a + c; }", "b(a);"});
+    assertEquals(1, cache.getHitCount());
+
+    // The second script is unchanged, but x is no longer a global.
+    test(new String[] {"function f(y) { return y; }", "f(x);"},
+         new String[] {"function a(b) { return b; }", "a(x);"});
+    assertEquals(1, cache.getHitCount());
+
+    test(new String[] {"function f(y) { return y; }", "f(x);"},
+         new String[] {"function a(b) { return b; }", "a(x);"});
+    assertEquals(3, cache.getHitCount());
+  }
+
+  public void testCacheWithOtherOptions() {
+    cache = new RenameVarsCache();
+    test("var Foo; function f(v1) {return v1;}",
+         "var b; function c(a) {return a;}");
+    localRenamingOnly = true;
+    test("var Foo; function f(v1) {return v1;}",
+         "var Foo; function f(a) {return a;}");
+    assertEquals(0, cache.getHitCount());
+  }
+
   private static String createManyVarFunction(int numVars) {
     List<String> locals = new ArrayList<>();
     for (int i = 0; i < numVars; i++) {
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import junit.framework.TestCase;
+
+/** Tests for {@link TaskGraphExecutor}. */
+public final class TaskGraphExecutorTest extends TestCase {
+
+  public void testRunsEveryTaskOnceAfterItsDependencies() {
+    List<Integer> tasks = new ArrayList<>();
+    Multimap<Integer, Integer> dependencies = LinkedHashMultimap.create();
+    for (int i = 0; i < 200; i++) {
+      tasks.add(i);
+      if (i >= 2) {
+        // Like a tree of scopes: each task waits for the two tasks before it.
+        dependencies.put(i, i / 2);
+        dependencies.put(i, i - 1);
+      }
+    }
+    List<Integer> done = new CopyOnWriteArrayList<>();
+    List<RecordingWorker> workers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      workers.add(new RecordingWorker(done, dependencies));
+    }
+
+    TaskGraphExecutor.execute(tasks, dependencies, workers);
+
+    assertThat(done).containsExactlyElementsIn(tasks);
+  }
+
+  public void testRunsInOrderWithOneWorker() {
+    List<Integer> done = new ArrayList<>();
+    Multimap<Integer, Integer> dependencies = LinkedHashMultimap.create();
+    TaskGraphExecutor.execute(
+        ImmutableList.of(3, 1, 2),
+        dependencies,
+        ImmutableList.of(new RecordingWorker(done, dependencies)));
+    assertThat(done).containsExactly(3, 1, 2).inOrder();
+  }
+
+  public void testRethrowsFailures() {
+    final IllegalStateException failure = new IllegalStateException();
+    List<TaskGraphExecutor.Worker<Integer>> workers = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      workers.add(new TaskGraphExecutor.Worker<Integer>() {
+        @Override
+        public void run(Integer task) {
+          if (task == 1) {
+            throw failure;
+          }
+        }
+      });
+    }
+    Multimap<Integer, Integer> dependencies = LinkedHashMultimap.create();
+    dependencies.put(2, 1);
+    try {
+      TaskGraphExecutor.execute(ImmutableList.of(0, 1, 2), dependencies, workers);
+      fail("Expected an exception");
+    } catch (IllegalStateException e) {
+      assertSame(failure, e);
+    }
+  }
+
+  public void testRejectsDependenciesOnLaterTasks() {
+    Multimap<Integer, Integer> dependencies = LinkedHashMultimap.create();
+    dependencies.put(0, 1);
+    try {
+      TaskGraphExecutor.execute(
+          ImmutableList.of(0, 1),
+          dependencies,
+          ImmutableList.of(new RecordingWorker(new ArrayList<Integer>(), dependencies)));
+      fail("Expected an exception");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  /** Records the tasks it runs, after checking that their dependencies are done. */
+  private static class RecordingWorker implements TaskGraphExecutor.Worker<Integer> {
+    private final List<Integer> done;
+    private final Multimap<Integer, Integer> dependencies;
+
+    RecordingWorker(List<Integer> done, Multimap<Integer, Integer> dependencies) {
+      this.done = done;
+      this.dependencies = dependencies;
+    }
+
+    @Override
+    public void run(Integer task) {
+      for (Integer dependency : dependencies.get(task)) {
+        assertThat(done).contains(dependency);
+      }
+      done.add(task);
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link ThreadSafeDelegatingErrorManager}. */
+public final class ThreadSafeDelegatingErrorManagerTest extends TestCase {
+  private static final DiagnosticType FOO_TYPE = DiagnosticType.warning("TEST_FOO", "Foo");
+  private static final DiagnosticType BAR_TYPE = DiagnosticType.warning("TEST_BAR", "Bar");
+
+  private final RecordingErrorManager delegated = new RecordingErrorManager();
+  private final ErrorManager errorManager = new ThreadSafeDelegatingErrorManager(delegated);
+
+  public void testReportsAreQueuedUntilRead() {
+    errorManager.report(CheckLevel.WARNING, JSError.make("a.js", 1, 0, FOO_TYPE));
+    assertThat(delegated.reports).isEmpty();
+    assertEquals(1, errorManager.getWarningCount());
+    assertThat(delegated.reports).hasSize(1);
+  }
+
+  public void testSortsTheReportsOfOneThread() {
+    errorManager.report(CheckLevel.WARNING, JSError.make("b.js", 1, 0, FOO_TYPE));
+    errorManager.report(CheckLevel.WARNING, JSError.make("a.js", 2, 0, FOO_TYPE));
+    errorManager.report(CheckLevel.WARNING, JSError.make("a.js", 1, 5, FOO_TYPE));
+    errorManager.report(CheckLevel.WARNING, JSError.make("a.js", 1, 5, BAR_TYPE));
+    errorManager.report(CheckLevel.WARNING, JSError.make("a.js", 1, 0, FOO_TYPE));
+    errorManager.generateReport();
+    assertReport(0, "a.js", 1, 0, FOO_TYPE);
+    assertReport(1, "a.js", 1, 5, BAR_TYPE);
+    assertReport(2, "a.js", 1, 5, FOO_TYPE);
+    assertReport(3, "a.js", 2, 0, FOO_TYPE);
+    assertReport(4, "b.js", 1, 0, FOO_TYPE);
+  }
+
+  public void testSortsTheReportsOfSeveralThreads() throws Exception {
+    final int reportsPerThread = 100;
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      final String sourceName = "input" + i + ".js";
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (int line = reportsPerThread; line > 0; line--) {
+            errorManager.report(CheckLevel.WARNING, JSError.make(sourceName, line, 0, FOO_TYPE));
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(4 * reportsPerThread, errorManager.getWarningCount());
+    for (int i = 0; i < delegated.reports.size(); i++) {
+      JSError error = delegated.reports.get(i);
+      assertEquals("input" + (i / reportsPerThread) + ".js", error.sourceName);
+      assertEquals(i % reportsPerThread + 1, error.lineNumber);
+    }
+  }
+
+  private void assertReport(
+      int index, String sourceName, int lineNumber, int charno, DiagnosticType type) {
+    JSError error = delegated.reports.get(index);
+    assertEquals(sourceName, error.sourceName);
+    assertEquals(lineNumber, error.lineNumber);
+    assertEquals(charno, error.getCharno());
+    assertEquals(type, error.getType());
+  }
+
+  /** Records the reports in the order they come. */
+  private static class RecordingErrorManager implements ErrorManager {
+    final List<JSError> reports = new ArrayList<>();
+
+    @Override
+    public void report(CheckLevel level, JSError error) {
+      reports.add(error);
+    }
+
+    @Override
+    public void generateReport() {}
+
+    @Override
+    public int getErrorCount() {
+      return 0;
+    }
+
+    @Override
+    public int getWarningCount() {
+      return reports.size();
+    }
+
+    @Override
+    public JSError[] getErrors() {
+      return new JSError[0];
+    }
+
+    @Override
+    public JSError[] getWarnings() {
+      return reports.toArray(new JSError[0]);
+    }
+
+    @Override
+    public void setTypedPercent(double typedPercent) {}
+
+    @Override
+    public double getTypedPercent() {
+      return 0;
+    }
+  }
+}
@@ -50,6 +50,14 @@ public final class TypedScopeCreatorTest extends CompilerTestCase {
   private JSTypeRegistry registry;
   private TypedScope globalScope;
   private TypedScope lastLocalScope;
+  private int numParallelThreads = 1;
+
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    return options;
+  }
 
   @Override
   protected int getNumRepetitions() {
@@ -276,6 +284,22 @@ public final class TypedScopeCreatorTest extends CompilerTestCase {
     assertEquals("goog.ui.Zippy.EventType", y.getReferenceName());
   }
 
+  public void testDeclarationsCollectedInParallel() {
+    numParallelThreads = 3;
+    testSame(new String[] {
+        "/**\n * @param {E} e\n * @param {T} t\n */\nfunction f(e, t) {}",
+        "/** @enum {string} */ var E = {A: 'a'};",
+        "/** @typedef {{a: number}} */ var T;",
+        "function g() { var x = 1; function h() { x = 2; } }"});
+
+    // The enums and typedefs of the later scripts are known to be non-nullable.
+    FunctionType f = globalScope.getVar("f").getType().toMaybeFunctionType();
+    for (Node param : f.getParameters()) {
+      assertFalse(param.getJSType().isNullable());
+    }
+    assertTrue(lastLocalScope.getVar("x").isMarkedEscaped());
+  }
+
   public void testEnumAlias() {
     testSame("/** @enum */ var Foo = {BAR: 1}; " +
         "/** @enum */ var FooAlias = Foo; var f = FooAlias;");
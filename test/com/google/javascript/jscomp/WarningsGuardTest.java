@@ -459,6 +459,49 @@ public final class WarningsGuardTest extends TestCase {
     assertThat(guard.level(JSError.make(findNameNode(code, "a"), BAR_WARNING))).isEqualTo(OFF);
   }
 
+  public void testComposeGuardCachesByFileAndType() {
+    final int[] calls = {0};
+    WarningsGuard countingGuard = new WarningsGuard() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public CheckLevel level(JSError error) {
+        calls[0]++;
+        return error.sourceName.contains("/foo/") ? OFF : null;
+      }
+
+      @Override
+      protected boolean dependsOnlyOnFileAndType() {
+        return true;
+      }
+    };
+    WarningsGuard guard = new ComposeWarningsGuard(countingGuard, visibilityOff);
+
+    assertEquals(OFF, guard.level(makeError("a/foo/hello.js", 1)));
+    assertEquals(OFF, guard.level(makeError("a/foo/hello.js", 2)));
+    assertEquals(1, calls[0]);
+    assertNull(guard.level(makeError("a/hello.js", 1)));
+    assertNull(guard.level(makeError("a/hello.js", 2)));
+    assertEquals(OFF, guard.level(makeError("a/hello.js", VISIBILITY_MISMATCH)));
+    assertEquals(3, calls[0]);
+  }
+
+  public void testComposeGuardDoesNotCacheOtherGuards() {
+    WarningsGuard lineGuard = new WarningsGuard() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public CheckLevel level(JSError error) {
+        return error.lineNumber == 12 ? WARNING : null;
+      }
+    };
+    ComposeWarningsGuard guard = new ComposeWarningsGuard(lineGuard, visibilityOff);
+
+    assertEquals(WARNING, guard.level(makeError("a.js", 12)));
+    assertNull(guard.level(makeError("a.js", 13)));
+    assertFalse(guard.dependsOnlyOnFileAndType());
+  }
+
   public void testComposeGuardCycle() {
     ComposeWarningsGuard guard = new ComposeWarningsGuard(
         visibilityOff, visibilityWarning);
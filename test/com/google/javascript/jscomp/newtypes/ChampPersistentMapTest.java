@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/** Tests for {@link ChampPersistentMap}. */
+public final class ChampPersistentMapTest extends TestCase {
+
+  public void testWithAndWithout() {
+    PersistentMap<String, Integer> empty = ChampPersistentMap.create();
+    PersistentMap<String, Integer> m = empty.with("a", 1).with("b", 2).with("a", 3);
+
+    assertThat(m).containsExactly("a", 3, "b", 2);
+    assertThat(m.without("a")).containsExactly("b", 2);
+    assertThat(m.without("c")).isSameAs(m);
+    assertThat(m.with("b", 2)).isSameAs(m);
+    assertThat(m.without("a").without("b")).isEmpty();
+    assertThat(empty).isEmpty();
+  }
+
+  public void testOldVersionsDoNotChange() {
+    PersistentMap<Integer, Integer> m = ChampPersistentMap.create();
+    for (int i = 0; i < 100; i++) {
+      m = m.with(i, i);
+    }
+    PersistentMap<Integer, Integer> changed = m;
+    for (int i = 0; i < 100; i += 2) {
+      changed = changed.without(i).with(i + 1, -i);
+    }
+
+    assertThat(m).hasSize(100);
+    for (int i = 0; i < 100; i++) {
+      assertThat(m.get(i)).isEqualTo(i);
+    }
+    assertThat(changed).hasSize(50);
+    assertThat(changed).doesNotContainKey(0);
+    assertThat(changed.get(1)).isEqualTo(0);
+  }
+
+  public void testNullValues() {
+    PersistentMap<String, Integer> m = ChampPersistentMap.<String, Integer>create().with("a", null);
+
+    assertThat(m.containsKey("a")).isTrue();
+    assertThat(m.containsKey("b")).isFalse();
+    assertThat(m.get("a")).isNull();
+  }
+
+  public void testKeysWithTheSameHash() {
+    // The hashes are spread before use, so these collide in every level of the tree.
+    CollidingKey a = new CollidingKey("a");
+    CollidingKey b = new CollidingKey("b");
+    CollidingKey c = new CollidingKey("c");
+    PersistentMap<CollidingKey, Integer> m =
+        ChampPersistentMap.<CollidingKey, Integer>create().with(a, 1).with(b, 2).with(c, 3);
+
+    assertThat(m).containsExactly(a, 1, b, 2, c, 3);
+    assertThat(m.with(b, 4)).containsExactly(a, 1, b, 4, c, 3);
+    assertThat(m.without(b)).containsExactly(a, 1, c, 3);
+    assertThat(m.without(b).without(a)).containsExactly(c, 3);
+    assertThat(m.without(b).without(a).without(c)).isEmpty();
+  }
+
+  public void testTransient() {
+    PersistentMap<Integer, Integer> m = ChampPersistentMap.create();
+    for (int i = 0; i < 100; i++) {
+      m = m.with(i, i);
+    }
+    PersistentMap.Transient<Integer, Integer> t = m.asTransient();
+    for (int i = 0; i < 100; i++) {
+      t.put(i, i + 1);
+      t.put(i, i + 2);
+      assertThat(t.get(i)).isEqualTo(i + 2);
+    }
+    t.remove(0);
+    t.put(100, 100);
+    PersistentMap<Integer, Integer> updated = t.persistent();
+
+    assertThat(updated).hasSize(100);
+    assertThat(updated).doesNotContainKey(0);
+    assertThat(updated.get(1)).isEqualTo(3);
+    assertThat(updated.get(100)).isEqualTo(100);
+    // Neither the map the transient came from nor the result change afterwards.
+    assertThat(m.get(1)).isEqualTo(1);
+    PersistentMap<Integer, Integer> later = updated.asTransient().persistent();
+    assertThat(updated.with(1, 5).get(1)).isEqualTo(5);
+    assertThat(updated.get(1)).isEqualTo(3);
+    assertThat(later).isEqualTo(updated);
+  }
+
+  public void testTransientCannotBeUsedAfterPersistent() {
+    PersistentMap.Transient<String, Integer> t =
+        ChampPersistentMap.<String, Integer>create().asTransient();
+    t.persistent();
+    try {
+      t.put("a", 1);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  public void testBehavesLikeHashMap() {
+    Random random = new Random(42);
+    Map<Integer, Integer> expected = new HashMap<>();
+    PersistentMap<Integer, Integer> m = ChampPersistentMap.create();
+    for (int i = 0; i < 10000; i++) {
+      // Few distinct hashes in the lower bits, so that the tree gets deep.
+      Integer key = random.nextInt(500) << 20;
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        m = m.without(key);
+      } else {
+        expected.put(key, i);
+        m = m.with(key, i);
+      }
+      assertThat(m.size()).isEqualTo(expected.size());
+    }
+
+    assertThat(m).isEqualTo(expected);
+    assertThat(m.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(m.entrySet()).hasSize(expected.size());
+  }
+
+  public void testCreateEmpty() {
+    assertThat(PersistentMap.createEmpty("champ")).isInstanceOf(ChampPersistentMap.class);
+    assertThat(PersistentMap.createEmpty("naive")).isInstanceOf(NaivePersistentMap.class);
+    assertThat(PersistentMap.<String, Integer>createEmpty("clojure").with("a", 1))
+        .isEqualTo(ImmutableMap.of("a", 1));
+    try {
+      PersistentMap.createEmpty("tree");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private static final class CollidingKey {
+    private final String name;
+
+    CollidingKey(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof CollidingKey && ((CollidingKey) o).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return 42;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+/** Tests for {@link TypeInterner}. */
+public final class TypeInternerTest extends TestCase {
+  private JSTypes commonTypes;
+  private JSType typeVar;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    commonTypes = JSTypes.init(false);
+    typeVar = JSType.fromTypeVar(commonTypes, "T");
+  }
+
+  public void testCanonicalInstances() {
+    // Without interning, each join builds a new union.
+    JSType union1 = JSType.join(typeVar, commonTypes.NUMBER);
+    JSType union2 = JSType.join(typeVar, commonTypes.NUMBER);
+    JSType other = JSType.join(typeVar, commonTypes.STRING);
+    assertThat(union1).isNotSameAs(union2);
+    TypeInterner interner = new TypeInterner(10);
+
+    assertThat(interner.intern(union1)).isSameAs(union1);
+    assertThat(interner.intern(union2)).isSameAs(union1);
+    assertThat(interner.intern(other)).isSameAs(other);
+
+    assertThat(interner.getHits()).isEqualTo(1);
+    assertThat(interner.getMisses()).isEqualTo(2);
+  }
+
+  public void testStartsOverWhenFull() {
+    JSType union1 = JSType.join(typeVar, commonTypes.NUMBER);
+    JSType union2 = JSType.join(typeVar, commonTypes.NUMBER);
+    JSType other = JSType.join(typeVar, commonTypes.STRING);
+    TypeInterner interner = new TypeInterner(1);
+
+    interner.intern(union1);
+    interner.intern(other);
+    // union1 was dropped to make room for other.
+    assertThat(interner.intern(union2)).isSameAs(union2);
+    assertThat(interner.getHits()).isEqualTo(0);
+  }
+
+  public void testJoinReturnsCanonicalInstances() {
+    commonTypes.startInterningTypes(10);
+
+    assertThat(JSType.join(typeVar, commonTypes.NUMBER))
+        .isSameAs(JSType.join(typeVar, commonTypes.NUMBER));
+    assertThat(JSType.join(typeVar, commonTypes.NUMBER))
+        .isNotSameAs(JSType.join(typeVar, commonTypes.STRING));
+  }
+
+  public void testStopInterningTypes() {
+    commonTypes.startInterningTypes(10);
+    commonTypes.stopInterningTypes();
+
+    assertThat(commonTypes.getTypeInternerStatistics()).isNull();
+    assertThat(JSType.join(typeVar, commonTypes.NUMBER))
+        .isNotSameAs(JSType.join(typeVar, commonTypes.NUMBER));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+/** Tests for {@link TypeOperationCache}. */
+public final class TypeOperationCacheTest extends TestCase {
+  private JSTypes commonTypes;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    commonTypes = JSTypes.init(false);
+  }
+
+  public void testHits() {
+    JSType number = commonTypes.NUMBER;
+    JSType string = commonTypes.STRING;
+    TypeOperationCache cache = new TypeOperationCache(10);
+
+    assertThat(cache.getJoin(number, string)).isNull();
+    cache.putJoin(number, string, commonTypes.NUMBER_OR_STRING);
+    assertThat(cache.getJoin(number, string)).isSameAs(commonTypes.NUMBER_OR_STRING);
+    // The pairs are ordered, and each kind of operation has its own results.
+    assertThat(cache.getJoin(string, number)).isNull();
+    assertThat(cache.getMeet(number, string)).isNull();
+
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getHitRate()).isWithin(1e-9).of(0.25);
+    assertThat(cache.getEvictions()).isEqualTo(0);
+  }
+
+  public void testTypesAreComparedByIdentity() {
+    JSType typeVar = JSType.fromTypeVar(commonTypes, "T");
+    JSType union1 = JSType.join(typeVar, commonTypes.NUMBER);
+    JSType union2 = JSType.join(typeVar, commonTypes.NUMBER);
+    assertThat(union1).isEqualTo(union2);
+    assertThat(union1).isNotSameAs(union2);
+    TypeOperationCache cache = new TypeOperationCache(10);
+
+    cache.putIsSubtype(union1, commonTypes.TOP, true);
+    assertThat(cache.getIsSubtype(union1, commonTypes.TOP)).isTrue();
+    assertThat(cache.getIsSubtype(union2, commonTypes.TOP)).isNull();
+  }
+
+  public void testStartsOverWhenFull() {
+    JSType number = commonTypes.NUMBER;
+    JSType string = commonTypes.STRING;
+    TypeOperationCache cache = new TypeOperationCache(2);
+
+    cache.putIsSubtype(number, string, false);
+    cache.putIsSubtype(string, number, false);
+    cache.putMeet(number, string, commonTypes.BOTTOM);
+    assertThat(cache.getEvictions()).isEqualTo(0);
+
+    cache.putIsSubtype(number, number, true);
+    assertThat(cache.getEvictions()).isEqualTo(1);
+    assertThat(cache.getIsSubtype(number, string)).isNull();
+    assertThat(cache.getIsSubtype(number, number)).isTrue();
+    // The other kinds of operations keep their results.
+    assertThat(cache.getMeet(number, string)).isSameAs(commonTypes.BOTTOM);
+  }
+
+  public void testStopCaching() {
+    commonTypes.startCachingTypeOperations(10);
+    assertThat(commonTypes.getTypeOperationCache()).isNotNull();
+
+    commonTypes.stopCachingTypeOperations();
+    assertThat(commonTypes.getTypeOperationCache()).isNull();
+  }
+}
@@ -44,7 +44,10 @@ import com.google.javascript.rhino.Node.NodeMismatch;
 import com.google.javascript.rhino.jstype.JSTypeNative;
 import com.google.javascript.rhino.jstype.JSTypeRegistry;
 import com.google.javascript.rhino.testing.TestErrorReporter;
-
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import junit.framework.TestCase;
 
 public class NodeTest extends TestCase {
@@ -419,20 +422,47 @@ public class NodeTest extends TestCase {
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, false);
 
-    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertFalse(n.hasProps());
     assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
 
-    assertNotNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertTrue(n.hasProps());
     assertTrue(n.getBooleanProp(Node.IS_CONSTANT_NAME));
+    assertEquals(1, n.getIntProp(Node.IS_CONSTANT_NAME));
+    // Boolean props are not kept in the property list.
+    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, false);
 
-    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertFalse(n.hasProps());
     assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
   }
 
+  public void testBooleanPropsAreIndependent() {
+    Node n = getVarRef("a");
+    n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+    n.putIntProp(Node.FREE_CALL, 1);
+    n.putIntProp(Node.SIDE_EFFECT_FLAGS, 5);
+
+    Node m = new Node(Token.TRUE);
+    m.clonePropsFrom(n);
+    n.removeProp(Node.IS_CONSTANT_NAME);
+
+    assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
+    assertTrue(n.getBooleanProp(Node.FREE_CALL));
+    assertTrue(m.getBooleanProp(Node.IS_CONSTANT_NAME));
+    assertTrue(m.getBooleanProp(Node.FREE_CALL));
+    assertEquals(5, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
+    assertEquals(1, m.getExistingIntProp(Node.FREE_CALL));
+
+    try {
+      n.putIntProp(Node.FREE_CALL, 2);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   // Verify that annotations on cloned nodes are properly handled.
   public void testCloneAnnontations2() {
     Node n = getVarRef("a");
@@ -447,6 +477,31 @@ public class NodeTest extends TestCase {
     assertTrue(nodeClone.getBooleanProp(Node.IS_CONSTANT_NAME));
   }
 
+  public void testSerializationKeepsProps() throws Exception {
+    Node assign = getAssignExpr("b", "c");
+    Node lhs = assign.getFirstChild();
+    lhs.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+    lhs.putIntProp(Node.SIDE_EFFECT_FLAGS, 300);
+    lhs.putProp(Node.ORIGINALNAME_PROP, "original");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(assign);
+    }
+    Node copy;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (Node) in.readObject();
+    }
+
+    assertNull(assign.checkTreeEquals(copy));
+    Node copyLhs = copy.getFirstChild();
+    assertTrue(copyLhs.getBooleanProp(Node.IS_CONSTANT_NAME));
+    assertEquals(300, copyLhs.getIntProp(Node.SIDE_EFFECT_FLAGS));
+    assertEquals("original", copyLhs.getProp(Node.ORIGINALNAME_PROP));
+    assertEquals(lhs.toString(), copyLhs.toString());
+  }
+
   public void testGetIndexOfChild() {
     Node assign = getAssignExpr("b", "c");
     assertEquals(2, assign.getChildCount());